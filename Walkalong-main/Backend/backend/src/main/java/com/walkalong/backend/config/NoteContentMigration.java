@@ -0,0 +1,78 @@
+package com.walkalong.backend.config;
+
+import com.walkalong.backend.entity.CompressedTextConverter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * StreamNote bodies used to live in a TEXT column named content. ddl-auto=update adds the compressed
+ * content_data column but leaves the old one in place, so on startup any rows still holding only the
+ * old body are compressed over in batches and their old value cleared. Does nothing once done, or
+ * on databases that never had the column.
+ */
+@Component
+@DependsOn("entityManagerFactory") // schema update has to add content_data first
+public class NoteContentMigration implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(NoteContentMigration.class);
+
+    static final String TABLE = "stream_note";
+    static final String LEGACY_COLUMN = "content";
+    private static final int BATCH = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final CompressedTextConverter converter = new CompressedTextConverter();
+
+    public NoteContentMigration(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (!legacyColumnExists()) return;
+        int migrated = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT id, content FROM stream_note WHERE content IS NOT NULL AND content_data IS NULL " +
+                    "ORDER BY id LIMIT " + BATCH);
+            if (rows.isEmpty()) break;
+            List<Object[]> updates = new ArrayList<>(rows.size());
+            for (Map<String, Object> row : rows) {
+                String content = String.valueOf(row.get("content"));
+                updates.add(new Object[]{converter.convertToDatabaseColumn(content),
+                        content.getBytes(StandardCharsets.UTF_8).length, row.get("id")});
+            }
+            jdbcTemplate.batchUpdate(
+                    "UPDATE stream_note SET content_data = ?, content_size = ?, content = NULL WHERE id = ?", updates);
+            migrated += rows.size();
+        }
+        if (migrated > 0) log.info("Compressed {} stream note bodies", migrated);
+    }
+
+    private boolean legacyColumnExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((Connection connection) -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            // Postgres reports lower-case names, H2 upper-case
+            return hasColumn(metaData, TABLE, LEGACY_COLUMN) || hasColumn(metaData, TABLE.toUpperCase(), LEGACY_COLUMN.toUpperCase());
+        }));
+    }
+
+    private static boolean hasColumn(DatabaseMetaData metaData, String table, String column) throws SQLException {
+        try (ResultSet columns = metaData.getColumns(null, null, table, column)) {
+            return columns.next();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.walkalong.backend.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.stereotype.Component;
+
+/**
+ * LearningTask ids used to come from an IDENTITY column. ddl-auto=update creates learning_task_seq
+ * starting at 1, which would collide with existing rows, so on startup the sequence is moved past
+ * MAX(id) when it is behind. It only ever moves forward, so running instances keep their id blocks.
+ */
+@Component
+public class TaskSequenceInitializer implements InitializingBean {
+
+    static final String SEQUENCE = "learning_task_seq";
+    static final int ALLOCATION_SIZE = 50;
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    public TaskSequenceInitializer(EntityManagerFactory entityManagerFactory) {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        Dialect dialect = entityManagerFactory.unwrap(SessionFactory.class)
+                .unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect();
+        EntityManager em = entityManagerFactory.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            Long maxId = em.createQuery("SELECT MAX(t.id) FROM LearningTask t", Long.class).getSingleResult();
+            if (maxId != null) {
+                long next = ((Number) em.createNativeQuery(
+                        dialect.getSequenceSupport().getSequenceNextValString(SEQUENCE)).getSingleResult()).longValue();
+                // Pooled optimizer hands out (next - ALLOCATION_SIZE, next]
+                if (next - ALLOCATION_SIZE < maxId) {
+                    em.createNativeQuery("ALTER SEQUENCE " + SEQUENCE + " RESTART WITH " + (maxId + ALLOCATION_SIZE + 1))
+                            .executeUpdate();
+                }
+            }
+            em.getTransaction().commit();
+        } finally {
+            if (em.getTransaction().isActive()) em.getTransaction().rollback();
+            em.close();
+        }
+    }
+}
@@ -1,11 +1,20 @@
 package com.walkalong.backend.controller;
+import com.walkalong.backend.dto.TaskStats;
+import com.walkalong.backend.entity.TaskDailyStat;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.UserRepository;
 import com.walkalong.backend.service.AnalyticsService;
+import com.walkalong.backend.service.TaskRollupService;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 
@@ -16,20 +25,50 @@ public class AnalyticsController {
 
 
     private final AnalyticsService analyticsService;
+    private final UserRepository userRepository;
+    private final TaskRollupService taskRollupService;
 
 
-    public AnalyticsController(AnalyticsService analyticsService) {
+    public AnalyticsController(AnalyticsService analyticsService, UserRepository userRepository,
+                               TaskRollupService taskRollupService) {
         this.analyticsService = analyticsService;
+        this.userRepository = userRepository;
+        this.taskRollupService = taskRollupService;
     }
 
 
     @GetMapping
 
     public Map<String, Object> getDashboardData() {
+        // TODO: Get user from authentication context
+        User user = userRepository.findFirstByOrderByIdAsc().orElse(null);
+        TaskStats stats = user != null
+                ? analyticsService.getTaskStats(user.getId())
+                : new TaskStats(0, 0, 0, 0, 0, 0);
+
         Map<String, Object> data = new HashMap<>();
-        data.put("totalTasks", analyticsService.getTotalTasks());
-        data.put("completedTasks", analyticsService.getCompletedTasks());
-        data.put("learningRate", analyticsService.getLearningRate());
+        data.put("totalTasks", stats.totalTasks());
+        data.put("completedTasks", stats.completedTasks());
+        data.put("skippedTasks", stats.skippedTasks());
+        data.put("pendingTasks", stats.pendingTasks());
+        data.put("totalPoints", stats.totalPoints());
+        data.put("earnedPoints", stats.earnedPoints());
+        data.put("learningRate", stats.learningRate());
         return data;
     }
-}
\ No newline at end of file
+
+
+    // Served from the task_daily_stats rollup only; [from, to) like the other range endpoints
+    @GetMapping("/trend")
+    public ResponseEntity<List<TaskDailyStat>> getTrend(@RequestParam LocalDate from, @RequestParam LocalDate to) {
+        if (!to.isAfter(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        // TODO: Get user from authentication context
+        User user = userRepository.findFirstByOrderByIdAsc().orElse(null);
+        if (user == null) {
+            return ResponseEntity.ok(List.of());
+        }
+        return ResponseEntity.ok(taskRollupService.getTrend(user.getId(), from, to));
+    }
+}
@@ -1,13 +1,36 @@
 package com.walkalong.backend.controller;
 
 import com.walkalong.backend.entity.*;
+import com.walkalong.backend.dto.UploadInit;
+import com.walkalong.backend.dto.UploadStatus;
 import com.walkalong.backend.service.AnswerService;
+import com.walkalong.backend.service.ChunkedUploadService;
+import com.walkalong.backend.service.FileStorageService;
+import com.walkalong.backend.service.UploadLayoutMigration;
+import com.walkalong.backend.service.UploadPipeline;
+import com.walkalong.backend.repository.SparseFieldQuery;
 import com.walkalong.backend.repository.UserRepository;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
 import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/answers")
@@ -15,7 +38,12 @@ import java.util.List;
 public class AnswerController {
 
     @Autowired private AnswerService answerService;
+    @Autowired private FileStorageService fileStorageService;
+    @Autowired private UploadPipeline uploadPipeline;
+    @Autowired private ChunkedUploadService chunkedUploadService;
+    @Autowired private UploadLayoutMigration uploadLayoutMigration;
     @Autowired private UserRepository userRepository;
+    @Autowired private SparseFieldQuery sparseFieldQuery;
 
     @PostMapping("/questions")
     public AnswerQuestion createQuestion(@RequestBody AnswerQuestion question) {
@@ -23,12 +51,25 @@ public class AnswerController {
     }
 
     @GetMapping("/questions")
-    public List<AnswerQuestion> getAllQuestions() {
-        return answerService.getAllQuestions();
+    public ResponseEntity<List<?>> getAllQuestions(@RequestParam(required = false) String fields,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(required = false) Integer limit) {
+        List<String> selected = FieldSets.parse(fields, FieldSets.QUESTION);
+        Keyset.Cursor after = Keyset.decode(cursor);
+        int pageSize = Keyset.limit(limit);
+        if (selected != null) {
+            List<Map<String, Object>> rows = sparseFieldQuery.select(AnswerQuestion.class, Keyset.withKeys(selected, "id"),
+                    after == null ? null : (root, cb) -> cb.greaterThan(root.get("id"), after.id()),
+                    Sort.by("id"), pageSize + 1);
+            return Keyset.page(rows, pageSize, selected, null, "id");
+        }
+        List<AnswerQuestion> questions = answerService.getQuestionsPage(after != null ? after.id() : null, pageSize + 1);
+        return Keyset.page(questions, pageSize, q -> Keyset.encode(null, q.getId()));
     }
 
+    // Stored on the upload pool; the request thread is released until the submission is saved
     @PostMapping("/submit")
-    public AnswerSubmission submitAnswer(
+    public DeferredResult<AnswerSubmission> submitAnswer(
             @RequestParam("questionId") Long questionId,
             @RequestParam(value = "parentSubmissionId", required = false) Long parentSubmissionId,
             @RequestParam("timeTaken") Integer timeTaken,
@@ -37,12 +78,91 @@ public class AnswerController {
         // Match existing pattern of getting first user for now
         User user = userRepository.findAll().stream().findFirst().orElseThrow(() -> new RuntimeException("No user found in system"));
         
-        return answerService.submitAnswer(questionId, user.getId(), timeTaken, parentSubmissionId, file);
+        return cancelOnTimeout(uploadPipeline.submit(questionId, user.getId(), timeTaken, parentSubmissionId, file));
+    }
+
+    // A request that times out gets a 503 and is likely retried, so a job still queued by then is
+    // dropped rather than saved alongside the retry. spring.mvc.async.request-timeout is set well
+    // above the pipeline's worst case, so one that has already started should finish in time.
+    private static <T> DeferredResult<T> cancelOnTimeout(CompletableFuture<T> job) {
+        DeferredResult<T> result = new DeferredResult<>();
+        result.onTimeout(() -> job.cancel(false));
+        job.whenComplete((value, error) -> {
+            if (error == null) {
+                result.setResult(value);
+            } else {
+                result.setErrorResult(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        });
+        return result;
+    }
+
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> uploadsBusy(RejectedExecutionException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "5")
+                .body("Too many uploads in progress; retry shortly");
+    }
+
+    @GetMapping("/upload-stats")
+    public Map<String, Object> getUploadStats() {
+        return uploadPipeline.stats();
+    }
+
+    // Resumable upload: start with the file size, PUT each chunk, then complete. GET the upload
+    // after a dropped connection to see which chunks are still missing.
+    @PostMapping("/uploads")
+    public ResponseEntity<UploadStatus> startUpload(@RequestBody UploadInit init) {
+        if (init.questionId() == null || init.timeTaken() == null || init.size() == null) {
+            return ResponseEntity.badRequest().build();
+        }
+        User user = userRepository.findAll().stream().findFirst().orElseThrow(() -> new RuntimeException("No user found in system"));
+        UploadStatus status = chunkedUploadService.start(init.questionId(), user.getId(), init.timeTaken(),
+                init.parentSubmissionId(), init.fileName(), init.size(), init.chunkSize());
+        return ResponseEntity.created(URI.create("/api/answers/uploads/" + status.id())).body(status);
+    }
+
+    @PutMapping("/uploads/{id}/chunks/{index}")
+    public UploadStatus putChunk(@PathVariable String id, @PathVariable int index, HttpServletRequest request) throws IOException {
+        return chunkedUploadService.putChunk(id, index, request.getInputStream());
+    }
+
+    @GetMapping("/uploads/{id}")
+    public UploadStatus getUpload(@PathVariable String id) {
+        return chunkedUploadService.status(id);
+    }
+
+    @PostMapping("/uploads/{id}/complete")
+    public DeferredResult<AnswerSubmission> completeUpload(@PathVariable String id) {
+        return cancelOnTimeout(chunkedUploadService.complete(id));
+    }
+
+    @DeleteMapping("/uploads/{id}")
+    public void abortUpload(@PathVariable String id) {
+        chunkedUploadService.abort(id);
+    }
+
+    @GetMapping("/storage-migration")
+    public Map<String, Object> getStorageMigration() {
+        return uploadLayoutMigration.status();
+    }
+
+    // Moves files from the flat upload directory into shards in the background; poll the GET for progress
+    @PostMapping("/storage-migration")
+    public ResponseEntity<Map<String, Object>> startStorageMigration() {
+        boolean started = uploadLayoutMigration.start();
+        return ResponseEntity.status(started ? HttpStatus.ACCEPTED : HttpStatus.CONFLICT).body(uploadLayoutMigration.status());
     }
 
     @GetMapping("/my-submissions")
-    public List<AnswerSubmission> getMySubmissions() {
+    public List<?> getMySubmissions(@RequestParam(required = false) String fields) {
+        List<String> selected = FieldSets.parse(fields, FieldSets.SUBMISSION);
         User user = userRepository.findAll().stream().findFirst().orElseThrow(() -> new RuntimeException("No user found in system"));
+        if (selected != null) {
+            return sparseFieldQuery.select(AnswerSubmission.class, selected,
+                    (root, cb) -> cb.equal(root.get("user").get("id"), user.getId()),
+                    Sort.by(Sort.Direction.DESC, "submittedAt"));
+        }
         return answerService.getMySubmissions(user.getId());
     }
 
@@ -63,21 +183,49 @@ public class AnswerController {
                 .orElse(ResponseEntity.notFound().build());
     }
 
+    // Supports Range, If-Range and If-None-Match / If-Modified-Since; see FileDownloads
     @GetMapping("/download/{fileName}")
-    public ResponseEntity<org.springframework.core.io.Resource> downloadFile(@PathVariable String fileName) {
+    public void downloadFile(@PathVariable String fileName,
+                             HttpServletRequest request,
+                             HttpServletResponse response) throws IOException {
+        Optional<FileStorageService.StoredFile> file;
         try {
-            java.nio.file.Path filePath = answerService.getFilePath(fileName);
-            org.springframework.core.io.Resource resource = new org.springframework.core.io.UrlResource(filePath.toUri());
-            if (resource.exists()) {
-                return ResponseEntity.ok()
-                        .header(org.springframework.http.HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + resource.getFilename() + "\"")
-                        .contentType(org.springframework.http.MediaType.APPLICATION_PDF)
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
-            }
-        } catch (java.net.MalformedURLException e) {
-            return ResponseEntity.badRequest().build();
+            file = fileStorageService.stat(fileName);
+        } catch (IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        if (file.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        FileDownloads.send(fileStorageService, file.get(), pdfName(file.get().name()), MediaType.APPLICATION_PDF, request, response);
+    }
+
+    // Same as /download, but saved under the name the file was uploaded with
+    @GetMapping("/submission/{id}/file")
+    public void downloadSubmissionFile(@PathVariable Long id,
+                                       HttpServletRequest request,
+                                       HttpServletResponse response) throws IOException {
+        AnswerSubmission submission = answerService.findSubmission(id).orElse(null);
+        Optional<FileStorageService.StoredFile> file = submission == null || submission.getPdfPath() == null
+                ? Optional.empty()
+                : fileStorageService.stat(submission.getPdfPath());
+        if (file.isEmpty()) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
         }
+        String name = submission.getOriginalName() != null ? submission.getOriginalName() : file.get().name();
+        FileDownloads.send(fileStorageService, file.get(), pdfName(name), MediaType.APPLICATION_PDF, request, response);
+    }
+
+    // Stored names are digests (or UUID_name for older uploads); either way the download ends in .pdf
+    private static String pdfName(String name) {
+        return name.toLowerCase(Locale.ROOT).endsWith(".pdf") ? name : name + ".pdf";
+    }
+
+    @GetMapping("/download-cache-stats")
+    public Map<String, Object> getDownloadCacheStats() {
+        return fileStorageService.hotFileStats();
     }
 }
@@ -4,11 +4,14 @@ import com.walkalong.backend.entity.CalendarEntry;
 import com.walkalong.backend.entity.User;
 import com.walkalong.backend.repository.CalendarRepository;
 import com.walkalong.backend.repository.UserRepository;
+import com.walkalong.backend.service.StudyStreakService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @RestController
@@ -22,10 +25,13 @@ public class CalendarController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private StudyStreakService studyStreakService;
+
     @GetMapping("/studied-days")
     public List<String> getStudiedDays() {
         // TODO: Get user from authentication context
-        User user = userRepository.findAll().stream().findFirst().orElse(null);
+        User user = userRepository.findFirstByOrderByIdAsc().orElse(null);
         
         if (user == null) {
             return List.of();
@@ -42,7 +48,7 @@ public class CalendarController {
     @PostMapping("/mark-studied")
     public CalendarEntry markStudied(@RequestBody CalendarEntry entry) {
         // TODO: Get user from authentication context
-        User user = userRepository.findAll().stream().findFirst().orElse(null);
+        User user = userRepository.findFirstByOrderByIdAsc().orElse(null);
         entry.setUser(user);
         entry.setStudied(true);
         
@@ -50,6 +56,31 @@ public class CalendarController {
             entry.setDate(LocalDate.now());
         }
         
-        return calendarRepository.save(entry);
+        CalendarEntry saved = calendarRepository.save(entry);
+        if (user != null) {
+            studyStreakService.markStudied(user, saved.getDate());
+        }
+        return saved;
+    }
+
+    @GetMapping("/streak")
+    public Map<String, Object> getStreak() {
+        // TODO: Get user from authentication context
+        User user = userRepository.findFirstByOrderByIdAsc().orElse(null);
+        Map<String, Object> data = new HashMap<>();
+        data.put("currentStreak", user != null ? studyStreakService.currentStreak(user, LocalDate.now()) : 0);
+        data.put("longestStreak", user != null ? studyStreakService.longestStreak(user) : 0);
+        return data;
+    }
+
+    @GetMapping("/heatmap")
+    public Map<String, Object> getHeatmap(@RequestParam(required = false) Integer year) {
+        // TODO: Get user from authentication context
+        User user = userRepository.findFirstByOrderByIdAsc().orElse(null);
+        int y = year != null ? year : LocalDate.now().getYear();
+        Map<String, Object> data = new HashMap<>();
+        data.put("year", y);
+        data.put("days", user != null ? studyStreakService.heatmap(user, y) : new int[java.time.Year.of(y).length()]);
+        return data;
     }
 }
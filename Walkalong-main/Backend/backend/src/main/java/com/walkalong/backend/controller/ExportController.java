@@ -0,0 +1,52 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.UserRepository;
+import com.walkalong.backend.service.ExportService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@RestController
+@RequestMapping("/api/export")
+@CrossOrigin(origins = "*")
+public class ExportController {
+
+    private final ExportService exportService;
+    private final UserRepository userRepository;
+
+    public ExportController(ExportService exportService, UserRepository userRepository) {
+        this.exportService = exportService;
+        this.userRepository = userRepository;
+    }
+
+    @GetMapping("/{kind}")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String kind,
+                                                        @RequestParam(defaultValue = "ndjson") String format) {
+        ExportService.Kind k;
+        ExportService.Format f;
+        try {
+            k = ExportService.Kind.valueOf(kind.toUpperCase());
+            f = ExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        // TODO: Get user from authentication context
+        User user = userRepository.findFirstByOrderByIdAsc().orElse(null);
+        if (user == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        String fileName = kind.toLowerCase() + (f == ExportService.Format.CSV ? ".csv" : ".ndjson");
+        MediaType type = f == ExportService.Format.CSV
+                ? new MediaType("text", "csv")
+                : new MediaType("application", "x-ndjson");
+        StreamingResponseBody body = out -> exportService.export(k, f, user.getId(), out);
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
+                .contentType(type)
+                .body(body);
+    }
+}
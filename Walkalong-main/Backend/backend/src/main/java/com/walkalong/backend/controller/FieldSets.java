@@ -0,0 +1,78 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.repository.SparseFieldQuery;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Whitelisted attribute paths for the ?fields= parameter. Anything not listed here (user passwords,
+ * collections, large text bodies on other entities) can't be requested.
+ */
+final class FieldSets {
+
+    static final Set<String> TASK = Set.of(
+            "id", "title", "type", "status", "assignedDate", "completedDate", "duration", "points",
+            "stream.id", "stream.name");
+
+    static final Set<String> STREAM = Set.of("id", "name");
+
+    static final Set<String> MOOD = Set.of("id", "date", "mood", "notes");
+
+    static final Set<String> QUESTION = Set.of("id", "questionText", "subject", "topic", "createdAt");
+
+    static final Set<String> SUBMISSION = Set.of(
+            "id", "pdfPath", "originalName", "timeTakenMinutes", "status", "submittedAt", "parentSubmissionId",
+            "question.id", "question.subject", "question.topic", "user.id", "user.username");
+
+    private FieldSets() {
+    }
+
+    /** Returns null when no fields were requested, meaning "full entity". */
+    static List<String> parse(String fields, Set<String> allowed) {
+        if (fields == null || fields.isBlank()) return null;
+        List<String> result = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String f = field.trim();
+            if (f.isEmpty() || result.contains(f)) continue;
+            if (!allowed.contains(f)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown field: " + f);
+            }
+            result.add(f);
+        }
+        if (result.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No fields requested");
+        }
+        return result;
+    }
+
+    /** Projects already-loaded objects (e.g. from an in-memory cache) without going back to the database. */
+    static List<Map<String, Object>> project(List<?> items, List<String> fields) {
+        List<Map<String, Object>> result = new ArrayList<>(items.size());
+        for (Object item : items) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                SparseFieldQuery.putNested(row, field, read(item, field));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    private static Object read(Object bean, String field) {
+        Object value = bean;
+        for (String part : field.split("\\.")) {
+            if (value == null) return null;
+            BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(value);
+            value = wrapper.getPropertyValue(part);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,114 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.service.FileStorageService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Conditional and partial GETs for stored files. Responses carry an ETag and Last-Modified with a
+ * long private max-age, so a reviewer reopening a PDF gets a 304 instead of the file, and a viewer
+ * that asks for one byte range (resuming, or fetching pages on demand) gets a 206 with just that range.
+ * Requests for several ranges get the whole file.
+ *
+ * Files already in the storage's hot file cache are written from memory. Everything else, including
+ * cache misses, is handed to Tomcat's sendfile when the connector supports it, and otherwise written
+ * with FileChannel.transferTo; neither copies the file through a heap buffer of ours.
+ */
+final class FileDownloads {
+
+    static final String CACHE_CONTROL = "private, max-age=31536000, immutable";
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private FileDownloads() {
+    }
+
+    static void send(FileStorageService storage, FileStorageService.StoredFile file, String downloadName,
+                     MediaType contentType, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        // Sets ETag and Last-Modified, and the 304 (or 412) status when the client's copy is current
+        if (new ServletWebRequest(request, response).checkNotModified(file.etag(), file.lastModified())) {
+            return;
+        }
+
+        long size = file.size();
+        long start = 0;
+        long end = size - 1;
+        HttpRange range = requestedRange(request, file);
+        if (range != null) {
+            try {
+                start = range.getRangeStart(size);
+                end = range.getRangeEnd(size);
+            } catch (IllegalArgumentException e) {
+                start = size;
+            }
+            if (start >= size || start > end) {
+                response.setStatus(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE.value());
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+                return;
+            }
+            response.setStatus(HttpStatus.PARTIAL_CONTENT.value());
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+        }
+        long length = end - start + 1;
+        response.setContentType(contentType.toString());
+        // Quotes the name, and encodes it as RFC 5987 filename* when it isn't plain ASCII
+        ContentDisposition.Builder disposition = ContentDisposition.attachment();
+        if (StandardCharsets.US_ASCII.newEncoder().canEncode(downloadName)) {
+            disposition.filename(downloadName);
+        } else {
+            disposition.filename(downloadName, StandardCharsets.UTF_8);
+        }
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition.build().toString());
+        response.setContentLengthLong(length);
+        if ("HEAD".equals(request.getMethod()) || length == 0) return;
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT)) && !storage.servesFromMemory(file)) {
+            request.setAttribute(SENDFILE_FILENAME, file.path().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1);
+            return;
+        }
+        storage.transfer(file, start, length, Channels.newChannel(response.getOutputStream()));
+    }
+
+    // The single range asked for, or null to send the whole file
+    private static HttpRange requestedRange(HttpServletRequest request, FileStorageService.StoredFile file) {
+        String header = request.getHeader(HttpHeaders.RANGE);
+        if (header == null || !ifRangeMatches(request, file)) return null;
+        List<HttpRange> ranges;
+        try {
+            ranges = HttpRange.parseRanges(header);
+        } catch (IllegalArgumentException e) {
+            return null; // a malformed Range header is ignored
+        }
+        return ranges.size() == 1 ? ranges.get(0) : null;
+    }
+
+    // If-Range names the representation the client already has part of; if it changed, send it all
+    private static boolean ifRangeMatches(HttpServletRequest request, FileStorageService.StoredFile file) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) return true;
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) return ifRange.equals(file.etag());
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == file.lastModified() / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.entity.FocusSession;
+import com.walkalong.backend.service.FocusSessionService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Map;
+
+// Server-side stopwatch for tasks: start, beat every few seconds while focused, stop
+@RestController
+@RequestMapping("/api/focus-sessions")
+@CrossOrigin(origins = "*")
+public class FocusSessionController {
+
+    private final FocusSessionService focusSessionService;
+
+    public FocusSessionController(FocusSessionService focusSessionService) {
+        this.focusSessionService = focusSessionService;
+    }
+
+    @PostMapping
+    public ResponseEntity<?> start(@RequestBody Map<String, Long> payload) {
+        Long taskId = payload.get("taskId");
+        if (taskId == null) {
+            return ResponseEntity.badRequest().body("taskId is required");
+        }
+        return ResponseEntity.ok(focusSessionService.start(taskId));
+    }
+
+    // Accepted rather than OK: the beat is buffered and written with the next flush
+    @PostMapping("/{id}/heartbeat")
+    public ResponseEntity<Void> heartbeat(@PathVariable Long id) {
+        return focusSessionService.heartbeat(id)
+                ? ResponseEntity.accepted().build()
+                : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping("/{id}/stop")
+    public FocusSession stop(@PathVariable Long id) {
+        return focusSessionService.stop(id);
+    }
+
+    @GetMapping
+    public List<FocusSession> getSessions(@RequestParam Long taskId) {
+        return focusSessionService.getSessions(taskId);
+    }
+}
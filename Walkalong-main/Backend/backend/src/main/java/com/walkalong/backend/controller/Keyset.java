@@ -0,0 +1,127 @@
+package com.walkalong.backend.controller;
+
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Cursor pagination for list endpoints. A cursor is the opaque encoding of the last row's sort key
+ * (date and/or id); the next page is "rows after that key", so every page costs one index seek no
+ * matter how deep it is (two on the page where the dated rows run out and the undated ones begin). Pages come back as plain JSON arrays as before, with the next cursor in the
+ * X-Next-Cursor header when more rows exist. Requests without ?limit= are capped at DEFAULT_LIMIT.
+ */
+final class Keyset {
+
+    static final String NEXT_CURSOR = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT = 500;
+    static final int MAX_LIMIT = 500;
+
+    record Cursor(LocalDate date, Long id) {}
+
+    private Keyset() {
+    }
+
+    static int limit(Integer requested) {
+        if (requested == null) return DEFAULT_LIMIT;
+        if (requested < 1) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be positive");
+        return Math.min(requested, MAX_LIMIT);
+    }
+
+    static String encode(LocalDate date, Long id) {
+        String raw = (date != null ? date.toString() : "") + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Cursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int bar = raw.indexOf('|');
+            LocalDate date = bar > 0 ? LocalDate.parse(raw.substring(0, bar)) : null;
+            return new Cursor(date, Long.parseLong(raw.substring(bar + 1)));
+        } catch (RuntimeException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+        }
+    }
+
+    /**
+     * Fills one page of up to want rows with two plain seeks: dated rows past a dated cursor (or from
+     * the start), then, only once those run out, undated rows by id. Undated rows sort after all dated
+     * ones in either direction, and a cursor on one of them goes straight to the id seek. Keeping the
+     * IS NULL branch out of the dated query leaves that one a single range scan on its (date, id) index.
+     */
+    static <T> List<T> datedThenUndated(Cursor cursor, int want, boolean descending,
+                                        IntFunction<List<T>> dated, BiFunction<Long, Integer, List<T>> undatedPast) {
+        if (cursor != null && cursor.date() == null) {
+            return undatedPast.apply(cursor.id(), want);
+        }
+        List<T> rows = new ArrayList<>(dated.apply(want));
+        if (rows.size() < want) {
+            rows.addAll(undatedPast.apply(descending ? Long.MAX_VALUE : 0L, want - rows.size()));
+        }
+        return rows;
+    }
+
+    /**
+     * Dated rows strictly past the cursor, or all dated rows for the first page, for criteria-based
+     * sparse queries. Written as date >= d AND (date > d OR id > i) so the leading date bound stays
+     * an index range; criteria has no row-value comparison.
+     */
+    static Predicate datedPast(CriteriaBuilder cb, Path<LocalDate> date, Path<Long> id, Cursor cursor, boolean descending) {
+        if (cursor == null) {
+            return cb.isNotNull(date);
+        }
+        Predicate fromDate = descending ? cb.lessThanOrEqualTo(date, cursor.date()) : cb.greaterThanOrEqualTo(date, cursor.date());
+        Predicate nextDate = descending ? cb.lessThan(date, cursor.date()) : cb.greaterThan(date, cursor.date());
+        Predicate nextId = descending ? cb.lessThan(id, cursor.id()) : cb.greaterThan(id, cursor.id());
+        return cb.and(fromDate, cb.or(nextDate, nextId));
+    }
+
+    /** Undated rows past the given id, the second half of {@link #datedThenUndated}. */
+    static Predicate undatedPast(CriteriaBuilder cb, Path<LocalDate> date, Path<Long> id, long pastId, boolean descending) {
+        return cb.and(cb.isNull(date), descending ? cb.lessThan(id, pastId) : cb.greaterThan(id, pastId));
+    }
+
+    /** rows holds up to limit + 1 entries; the extra one only signals that another page exists. */
+    static <T> ResponseEntity<List<?>> page(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return ResponseEntity.ok(rows);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        return ResponseEntity.ok().header(NEXT_CURSOR, cursorOf.apply(items.get(limit - 1))).body(items);
+    }
+
+    /** Sparse-field variant: key columns are always selected for the cursor, then dropped unless requested. */
+    static ResponseEntity<List<?>> page(List<Map<String, Object>> rows, int limit, List<String> requested,
+                                        String dateKey, String idKey) {
+        ResponseEntity<List<?>> response = page(rows, limit,
+                row -> encode(dateKey != null ? (LocalDate) row.get(dateKey) : null, (Long) row.get(idKey)));
+        for (Object row : response.getBody()) {
+            Map<?, ?> map = (Map<?, ?>) row;
+            if (dateKey != null && !requested.contains(dateKey)) map.remove(dateKey);
+            if (!requested.contains(idKey)) map.remove(idKey);
+        }
+        return response;
+    }
+
+    static List<String> withKeys(List<String> requested, String... keys) {
+        List<String> fields = new ArrayList<>(requested);
+        for (String key : keys) {
+            if (key != null && !fields.contains(key)) fields.add(key);
+        }
+        return fields;
+    }
+}
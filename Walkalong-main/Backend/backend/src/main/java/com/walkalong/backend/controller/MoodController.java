@@ -3,11 +3,17 @@ package com.walkalong.backend.controller;
 import com.walkalong.backend.entity.MoodEntry;
 import com.walkalong.backend.entity.User;
 import com.walkalong.backend.repository.MoodRepository;
+import com.walkalong.backend.repository.SparseFieldQuery;
 import com.walkalong.backend.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/mood")
@@ -20,21 +26,49 @@ public class MoodController {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private SparseFieldQuery sparseFieldQuery;
+
     @PostMapping
     public MoodEntry saveMood(@RequestBody MoodEntry entry) {
         // TODO: Get user from authentication context
         User user = userRepository.findAll().stream().findFirst().orElse(null);
         entry.setUser(user);
+        if (entry.getDate() == null) {
+            entry.setDate(LocalDate.now()); // history pages are keyed on date
+        }
         return moodRepository.save(entry);
     }
 
     @GetMapping("/history")
-    public List<MoodEntry> getHistory() {
+    public ResponseEntity<List<?>> getHistory(@RequestParam(required = false) String fields,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(required = false) Integer limit) {
+        List<String> selected = FieldSets.parse(fields, FieldSets.MOOD);
+        Keyset.Cursor before = Keyset.decode(cursor);
+        int pageSize = Keyset.limit(limit);
         // TODO: Filter by authenticated user
         User user = userRepository.findAll().stream().findFirst().orElse(null);
-        if (user != null) {
-            return moodRepository.findByUserOrderByDateDesc(user);
+        if (user == null) {
+            return ResponseEntity.ok(List.of());
+        }
+        if (selected != null) {
+            List<String> columns = Keyset.withKeys(selected, "date", "id");
+            List<Map<String, Object>> rows = Keyset.datedThenUndated(before, pageSize + 1, true,
+                    n -> sparseFieldQuery.select(MoodEntry.class, columns,
+                            (root, cb) -> cb.and(cb.equal(root.get("user"), user),
+                                                 Keyset.datedPast(cb, root.get("date"), root.get("id"), before, true)),
+                            Sort.by(Sort.Direction.DESC, "date", "id"), n),
+                    (pastId, n) -> sparseFieldQuery.select(MoodEntry.class, columns,
+                            (root, cb) -> cb.and(cb.equal(root.get("user"), user),
+                                                 Keyset.undatedPast(cb, root.get("date"), root.get("id"), pastId, true)),
+                            Sort.by(Sort.Direction.DESC, "id"), n));
+            return Keyset.page(rows, pageSize, selected, "date", "id");
         }
-        return List.of();
+        List<MoodEntry> entries = Keyset.datedThenUndated(before, pageSize + 1, true,
+                n -> before == null ? moodRepository.findFirstPage(user, Limit.of(n))
+                        : moodRepository.findPageBefore(user, before.date(), before.id(), Limit.of(n)),
+                (pastId, n) -> moodRepository.findUndatedPageBefore(user, pastId, Limit.of(n)));
+        return Keyset.page(entries, pageSize, m -> Keyset.encode(m.getDate(), m.getId()));
     }
 }
@@ -0,0 +1,31 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.dto.SearchHit;
+import com.walkalong.backend.service.SearchService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "*")
+public class SearchController {
+
+    private final SearchService searchService;
+
+    public SearchController(SearchService searchService) {
+        this.searchService = searchService;
+    }
+
+    // Ranked matches across task titles, stream notes and answer questions; prefixes and small typos match too
+    @GetMapping
+    public ResponseEntity<List<SearchHit>> search(@RequestParam String q,
+                                                  @RequestParam(required = false) Integer limit) {
+        if (q.isBlank()) {
+            return ResponseEntity.ok(List.of());
+        }
+        int size = limit == null ? SearchService.DEFAULT_LIMIT : Math.max(1, Math.min(limit, SearchService.MAX_LIMIT));
+        return ResponseEntity.ok(searchService.search(q, size));
+    }
+}
@@ -1,11 +1,20 @@
 package com.walkalong.backend.controller;
 
 
+import com.walkalong.backend.dto.StreamSummary;
+import com.walkalong.backend.entity.LearningTask;
 import com.walkalong.backend.entity.Stream;
+import com.walkalong.backend.repository.SparseFieldQuery;
 import com.walkalong.backend.repository.StreamRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.service.StreamService;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 
 @RestController
@@ -15,10 +24,17 @@ public class StreamController {
 
 
     private final StreamRepository streamRepository;
+    private final SparseFieldQuery sparseFieldQuery;
+    private final TaskRepository taskRepository;
+    private final StreamService streamService;
 
 
-    public StreamController(StreamRepository streamRepository) {
+    public StreamController(StreamRepository streamRepository, SparseFieldQuery sparseFieldQuery,
+                            TaskRepository taskRepository, StreamService streamService) {
         this.streamRepository = streamRepository;
+        this.sparseFieldQuery = sparseFieldQuery;
+        this.taskRepository = taskRepository;
+        this.streamService = streamService;
     }
 
 
@@ -27,17 +43,51 @@ public class StreamController {
         return streamRepository.save(stream);
     }
     @GetMapping
-    public List<Stream> getAllStreams() {
-        return streamRepository.findAll();
+    public ResponseEntity<List<?>> getAllStreams(@RequestParam(required = false) String fields,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Integer limit) {
+        List<String> selected = FieldSets.parse(fields, FieldSets.STREAM);
+        Keyset.Cursor after = Keyset.decode(cursor);
+        int pageSize = Keyset.limit(limit);
+        if (selected != null) {
+            List<Map<String, Object>> rows = sparseFieldQuery.select(Stream.class, Keyset.withKeys(selected, "id"),
+                    after == null ? null : (root, cb) -> cb.greaterThan(root.get("id"), after.id()),
+                    Sort.by("id"), pageSize + 1);
+            return Keyset.page(rows, pageSize, selected, null, "id");
+        }
+        List<Stream> streams = after == null
+                ? streamRepository.findAllByOrderByIdAsc(Limit.of(pageSize + 1))
+                : streamRepository.findByIdGreaterThanOrderByIdAsc(after.id(), Limit.of(pageSize + 1));
+        return Keyset.page(streams, pageSize, s -> Keyset.encode(null, s.getId()));
+    }
+
+    @GetMapping("/summary")
+    public List<StreamSummary> getStreamSummaries() {
+        return streamRepository.summarizeAll();
+    }
+
+    @GetMapping("/{id}/tasks")
+    public ResponseEntity<List<?>> getStreamTasks(@PathVariable Long id,
+                                                  @RequestParam(required = false) String cursor,
+                                                  @RequestParam(required = false) Integer limit) {
+        if (!streamRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        Keyset.Cursor after = Keyset.decode(cursor);
+        int pageSize = Keyset.limit(limit);
+        List<LearningTask> tasks = Keyset.datedThenUndated(after, pageSize + 1, false,
+                n -> after == null ? taskRepository.findStreamPage(id, Limit.of(n))
+                        : taskRepository.findStreamPageAfter(id, after.date(), after.id(), Limit.of(n)),
+                (pastId, n) -> taskRepository.findUndatedStreamPageAfter(id, pastId, Limit.of(n)));
+        return Keyset.page(tasks, pageSize, t -> Keyset.encode(t.getAssignedDate(), t.getId()));
     }
 
     @DeleteMapping("/{id}")
     public org.springframework.http.ResponseEntity<?> deleteStream(@PathVariable Long id) {
         try {
-            if (!streamRepository.existsById(id)) {
+            if (!streamService.delete(id)) {
                 return org.springframework.http.ResponseEntity.notFound().build();
             }
-            streamRepository.deleteById(id);
             return org.springframework.http.ResponseEntity.ok().build();
         } catch (Exception e) {
             return org.springframework.http.ResponseEntity.status(500)
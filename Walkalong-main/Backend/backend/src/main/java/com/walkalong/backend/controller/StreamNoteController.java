@@ -1,13 +1,18 @@
 package com.walkalong.backend.controller;
 
-import com.walkalong.backend.entity.Stream;
+import com.walkalong.backend.dto.NotePatch;
+import com.walkalong.backend.dto.NoteSummary;
 import com.walkalong.backend.entity.StreamNote;
 import com.walkalong.backend.repository.StreamNoteRepository;
-import com.walkalong.backend.repository.StreamRepository;
+import com.walkalong.backend.service.NoteService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/stream-notes")
@@ -16,23 +21,58 @@ public class StreamNoteController {
 
     @Autowired
     private StreamNoteRepository streamNoteRepository;
-    
+
     @Autowired
-    private StreamRepository streamRepository;
+    private NoteService noteService;
 
+    // Titles and sizes only; fetch a single note for its content
     @GetMapping("/stream/{streamId}")
-    public List<StreamNote> getNotesByStream(@PathVariable Long streamId) {
-        return streamNoteRepository.findByStreamId(streamId);
+    public List<NoteSummary> getNotesByStream(@PathVariable Long streamId) {
+        return streamNoteRepository.findSummariesByStreamId(streamId);
+    }
+
+    @GetMapping("/{id}")
+    public ResponseEntity<StreamNote> getNote(@PathVariable Long id) {
+        return noteService.get(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/{id}/versions/{version}")
+    public ResponseEntity<Map<String, Object>> getNoteVersion(@PathVariable Long id, @PathVariable long version) {
+        return noteService.getVersion(id, version)
+                .map(text -> ResponseEntity.ok(Map.<String, Object>of("id", id, "version", version, "content", text)))
+                .orElse(ResponseEntity.notFound().build());
     }
 
+    // Creates a note, or replaces an existing one's full text when the body carries its id
     @PostMapping
     public StreamNote createNote(@RequestBody StreamNote note) {
-        // Ensure stream reference is loaded if only ID is sent, or rely on Hibernate
-        return streamNoteRepository.save(note);
+        return noteService.save(note);
+    }
+
+    // Autosave: {"baseVersion": 7, "edits": [{"at": 120, "delete": 3, "insert": "new"}]}
+    @PatchMapping("/{id}")
+    public ResponseEntity<?> patchNote(@PathVariable Long id, @RequestBody NotePatch patch) {
+        if (patch.baseVersion() == null || patch.edits() == null) {
+            return ResponseEntity.badRequest().body("baseVersion and edits are required");
+        }
+        try {
+            return noteService.patch(id, patch.baseVersion(), patch.edits())
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElse(ResponseEntity.notFound().build());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> conflict(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Note was changed by another save; reload and retry");
     }
 
     @DeleteMapping("/{id}")
     public void deleteNote(@PathVariable Long id) {
-        streamNoteRepository.deleteById(id);
+        noteService.delete(id);
     }
 }
@@ -1,12 +1,22 @@
 package com.walkalong.backend.controller;
 
+import com.walkalong.backend.dto.TaskBatchRequest;
+import com.walkalong.backend.dto.TaskStatusChange;
 import com.walkalong.backend.entity.LearningTask;
 import com.walkalong.backend.entity.TaskStatus;
+import com.walkalong.backend.repository.SparseFieldQuery;
 import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.service.TaskService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,39 +28,82 @@ public class TaskController {
     @Autowired
     private TaskRepository taskRepository;
 
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private SparseFieldQuery sparseFieldQuery;
+
     @PostMapping
     public LearningTask createTask(@RequestBody LearningTask task) {
-        if (task.getStatus() == null) task.setStatus(TaskStatus.PENDING);
-        if (task.getPoints() == null) task.setPoints(10); // Default if not sent
-        task.setAssignedDate(LocalDate.now());
-        return taskRepository.save(task);
+        return taskService.create(task);
+    }
+
+    // Bulk create and bulk status change in one transaction, e.g. planning a whole week at once.
+    // Unlike POST /api/tasks, created tasks keep an assignedDate if one is sent.
+    @PostMapping("/batch")
+    public ResponseEntity<?> batch(@RequestBody TaskBatchRequest request) {
+        List<LearningTask> create = request.create() != null ? request.create() : List.of();
+        List<TaskBatchRequest.StatusChange> changes = request.statusChanges() != null ? request.statusChanges() : List.of();
+        if (create.size() + changes.size() > TaskService.MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest().body("At most " + TaskService.MAX_BATCH_SIZE + " operations per batch");
+        }
+
+        Map<Long, TaskStatus> statuses = new LinkedHashMap<>();
+        for (TaskBatchRequest.StatusChange change : changes) {
+            if (change.id() == null || change.status() == null) {
+                return ResponseEntity.badRequest().body("Each status change needs an id and a status");
+            }
+            statuses.put(change.id(), change.status());
+        }
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("created", create.isEmpty() ? List.of() : taskService.createAll(create));
+        result.put("updated", statuses.isEmpty() ? List.of() : taskService.updateStatuses(statuses));
+        return ResponseEntity.ok(result);
     }
 
     @GetMapping
-    public List<LearningTask> getAllTasks() {
-        return taskRepository.findAll();
+    public ResponseEntity<List<?>> getAllTasks(@RequestParam(required = false) String fields,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(required = false) Integer limit) {
+        List<String> selected = FieldSets.parse(fields, FieldSets.TASK);
+        Keyset.Cursor after = Keyset.decode(cursor);
+        int pageSize = Keyset.limit(limit);
+        if (selected != null) {
+            List<String> columns = Keyset.withKeys(selected, "assignedDate", "id");
+            List<Map<String, Object>> rows = Keyset.datedThenUndated(after, pageSize + 1, false,
+                    n -> sparseFieldQuery.select(LearningTask.class, columns,
+                            (root, cb) -> Keyset.datedPast(cb, root.get("assignedDate"), root.get("id"), after, false),
+                            Sort.by("assignedDate", "id"), n),
+                    (pastId, n) -> sparseFieldQuery.select(LearningTask.class, columns,
+                            (root, cb) -> Keyset.undatedPast(cb, root.get("assignedDate"), root.get("id"), pastId, false),
+                            Sort.by("id"), n));
+            return Keyset.page(rows, pageSize, selected, "assignedDate", "id");
+        }
+        List<LearningTask> tasks = Keyset.datedThenUndated(after, pageSize + 1, false,
+                n -> after == null ? taskRepository.findFirstPage(Limit.of(n))
+                        : taskRepository.findPageAfter(after.date(), after.id(), Limit.of(n)),
+                (pastId, n) -> taskRepository.findUndatedPageAfter(pastId, Limit.of(n)));
+        return Keyset.page(tasks, pageSize, t -> Keyset.encode(t.getAssignedDate(), t.getId()));
     }
 
+    // Send the task's "version" along with the status to reject the change if the task moved on since
     @PutMapping("/{id}/status")
-    public LearningTask updateStatus(@PathVariable Long id, @RequestBody Map<String, String> payload) {
-        LearningTask task = taskRepository.findById(id).orElseThrow();
+    public TaskStatusChange updateStatus(@PathVariable Long id, @RequestBody Map<String, String> payload) {
         String statusStr = payload.get("status");
         TaskStatus status = TaskStatus.valueOf(statusStr);
-        
-        // Logic for deductions can go here if we were updating a User entity immediately
-        // For now, we rely on the state of the task to calculate total points on the frontend/dashboard
-        
-        task.setStatus(status);
-        if (status == TaskStatus.COMPLETED) {
-            task.setCompletedDate(LocalDate.now());
-        } else {
-            task.setCompletedDate(null); // Reset if moved back to Pending/Skipped
-        }
-        return taskRepository.save(task);
+        String version = payload.get("version");
+        return taskService.updateStatus(id, status, version != null ? Long.valueOf(version) : null);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<String> conflict(OptimisticLockingFailureException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).body("Task was changed by another request; reload and retry");
     }
 
     @DeleteMapping("/{id}")
     public void deleteTask(@PathVariable Long id) {
-        taskRepository.deleteById(id);
+        taskService.delete(id);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,59 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.entity.TaskTemplate;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.TaskTemplateRepository;
+import com.walkalong.backend.repository.UserRepository;
+import com.walkalong.backend.service.RecurringTaskService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Recurring tasks: a template is expanded into dated LearningTasks by RecurringTaskService
+@RestController
+@RequestMapping("/api/task-templates")
+@CrossOrigin(origins = "*")
+public class TaskTemplateController {
+
+    private final TaskTemplateRepository templateRepository;
+    private final UserRepository userRepository;
+    private final RecurringTaskService recurringTaskService;
+
+    public TaskTemplateController(TaskTemplateRepository templateRepository,
+                                  UserRepository userRepository,
+                                  RecurringTaskService recurringTaskService) {
+        this.templateRepository = templateRepository;
+        this.userRepository = userRepository;
+        this.recurringTaskService = recurringTaskService;
+    }
+
+    @GetMapping
+    public List<TaskTemplate> getTemplates() {
+        // TODO: Get user from authentication context
+        User user = userRepository.findFirstByOrderByIdAsc().orElse(null);
+        if (user == null) return List.of();
+        return templateRepository.findByUserIdOrderByIdAsc(user.getId());
+    }
+
+    @PostMapping
+    public ResponseEntity<?> createTemplate(@RequestBody TaskTemplate template) {
+        if (template.getTitle() == null || template.getType() == null) {
+            return ResponseEntity.badRequest().body("title and type are required");
+        }
+        if (template.getEndDate() != null && template.getStartDate() != null
+                && template.getEndDate().isBefore(template.getStartDate())) {
+            return ResponseEntity.badRequest().body("endDate must not be before startDate");
+        }
+        return ResponseEntity.ok(recurringTaskService.create(template));
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deactivateTemplate(@PathVariable Long id) {
+        if (!templateRepository.existsById(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        recurringTaskService.deactivate(id);
+        return ResponseEntity.ok().build();
+    }
+}
@@ -1,10 +1,17 @@
 package com.walkalong.backend.controller;
 
 import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.UserRepository;
+import com.walkalong.backend.service.PlanCache;
 import com.walkalong.backend.service.ViewPlanService;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/view-plan")
@@ -13,27 +20,78 @@ public class ViewPlanController {
 
 
     private final ViewPlanService viewPlanService;
+    private final UserRepository userRepository;
+    private final PlanCache planCache;
 
 
-    public ViewPlanController(ViewPlanService viewPlanService) {
+    public ViewPlanController(ViewPlanService viewPlanService, UserRepository userRepository, PlanCache planCache) {
         this.viewPlanService = viewPlanService;
+        this.userRepository = userRepository;
+        this.planCache = planCache;
     }
 
 
     @GetMapping("/daily")
-    public List<LearningTask> getDailyPlan(@RequestParam(required = false) LocalDate date) {
-        return viewPlanService.getDailyTasks(date != null ? date : LocalDate.now());
+    public List<?> getDailyPlan(@RequestParam(required = false) LocalDate date,
+                                @RequestParam(required = false) String fields) {
+        List<String> selected = FieldSets.parse(fields, FieldSets.TASK);
+        User user = currentUser();
+        if (user == null) return List.of();
+        List<LearningTask> tasks = viewPlanService.getDailyTasks(user.getId(), date != null ? date : LocalDate.now());
+        return selected != null ? FieldSets.project(tasks, selected) : tasks;
     }
 
 
     @GetMapping("/weekly")
-    public List<LearningTask> getWeeklyPlan(@RequestParam(required = false) LocalDate date) {
-        return viewPlanService.getWeeklyTasks(date != null ? date : LocalDate.now());
+    public List<?> getWeeklyPlan(@RequestParam(required = false) LocalDate date,
+                                @RequestParam(required = false) String fields) {
+        List<String> selected = FieldSets.parse(fields, FieldSets.TASK);
+        User user = currentUser();
+        if (user == null) return List.of();
+        List<LearningTask> tasks = viewPlanService.getWeeklyTasks(user.getId(), date != null ? date : LocalDate.now());
+        return selected != null ? FieldSets.project(tasks, selected) : tasks;
     }
 
 
     @GetMapping("/monthly")
-    public List<LearningTask> getMonthlyPlan(@RequestParam(required = false) LocalDate date) {
-        return viewPlanService.getMonthlyTasks(date != null ? date : LocalDate.now());
+    public List<?> getMonthlyPlan(@RequestParam(required = false) LocalDate date,
+                                @RequestParam(required = false) String fields) {
+        List<String> selected = FieldSets.parse(fields, FieldSets.TASK);
+        User user = currentUser();
+        if (user == null) return List.of();
+        List<LearningTask> tasks = viewPlanService.getMonthlyTasks(user.getId(), date != null ? date : LocalDate.now());
+        return selected != null ? FieldSets.project(tasks, selected) : tasks;
     }
-}
\ No newline at end of file
+
+    @GetMapping("/range")
+    public ResponseEntity<StreamingResponseBody> getRangePlan(@RequestParam LocalDate from,
+                                                              @RequestParam LocalDate to,
+                                                              @RequestParam(defaultValue = "DAY") String granularity) {
+        ViewPlanService.Granularity g;
+        try {
+            g = ViewPlanService.Granularity.valueOf(granularity.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (!to.isAfter(from)) {
+            return ResponseEntity.badRequest().build();
+        }
+        User user = currentUser();
+        if (user == null) {
+            return ResponseEntity.notFound().build();
+        }
+        StreamingResponseBody body = out -> viewPlanService.writeRange(user.getId(), from, to, g, out);
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+
+    @GetMapping("/cache-stats")
+    public Map<String, Object> getCacheStats() {
+        return planCache.stats();
+    }
+
+    // TODO: Get user from authentication context
+    private User currentUser() {
+        return userRepository.findFirstByOrderByIdAsc().orElse(null);
+    }
+}
@@ -0,0 +1,12 @@
+package com.walkalong.backend.dto;
+
+import java.time.LocalDate;
+
+/** Per-user, per-day task aggregate row. Points and minutes are only filled for completion counts. */
+public interface DailyTaskCount {
+    Long getUserId();
+    LocalDate getDay();
+    Long getTasks();
+    Long getPoints();
+    Long getMinutes();
+}
@@ -0,0 +1,12 @@
+package com.walkalong.backend.dto;
+
+import java.util.List;
+
+/**
+ * Autosave request: edits against the text of baseVersion, in ascending, non-overlapping order.
+ * Positions and lengths are in UTF-16 code units, as JavaScript strings count them.
+ */
+public record NotePatch(Long baseVersion, List<Edit> edits) {
+
+    public record Edit(int at, int delete, String insert) {}
+}
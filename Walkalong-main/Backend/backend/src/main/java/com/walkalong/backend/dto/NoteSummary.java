@@ -0,0 +1,6 @@
+package com.walkalong.backend.dto;
+
+import java.time.LocalDateTime;
+
+/** A stream note without its body; size is the body's length in UTF-8 bytes. */
+public record NoteSummary(Long id, String title, Integer size, LocalDateTime updatedAt) {}
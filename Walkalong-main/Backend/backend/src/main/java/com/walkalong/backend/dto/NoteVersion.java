@@ -0,0 +1,6 @@
+package com.walkalong.backend.dto;
+
+import java.time.LocalDateTime;
+
+/** Result of an autosave; the client sends version as the base of its next one. */
+public record NoteVersion(Long id, long version, int size, LocalDateTime updatedAt) {}
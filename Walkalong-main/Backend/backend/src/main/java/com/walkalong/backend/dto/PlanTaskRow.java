@@ -0,0 +1,20 @@
+package com.walkalong.backend.dto;
+
+import com.walkalong.backend.entity.TaskStatus;
+import com.walkalong.backend.entity.TaskType;
+
+import java.time.LocalDate;
+
+/** Flat task row for plan views, selected directly so no entities end up in the persistence context. */
+public record PlanTaskRow(
+        Long id,
+        String title,
+        TaskType type,
+        TaskStatus status,
+        LocalDate assignedDate,
+        LocalDate completedDate,
+        Integer duration,
+        Integer points,
+        Long streamId,
+        String streamName) {
+}
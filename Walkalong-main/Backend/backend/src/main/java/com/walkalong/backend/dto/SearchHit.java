@@ -0,0 +1,7 @@
+package com.walkalong.backend.dto;
+
+/** One /api/search result; title is the document's title or the start of its text. */
+public record SearchHit(Kind kind, long id, String title, double score) {
+
+    public enum Kind { TASK, NOTE, QUESTION }
+}
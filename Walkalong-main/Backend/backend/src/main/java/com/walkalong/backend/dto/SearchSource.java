@@ -0,0 +1,4 @@
+package com.walkalong.backend.dto;
+
+/** Searchable text of one row, as read by the index rebuild. */
+public record SearchSource(Long id, String title, String text) {}
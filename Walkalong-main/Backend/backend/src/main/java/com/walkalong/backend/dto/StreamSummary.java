@@ -0,0 +1,26 @@
+package com.walkalong.backend.dto;
+
+import java.time.LocalDate;
+
+/** Per-stream task totals for the streams list; lastActivity is the latest assigned or completed date. */
+public record StreamSummary(
+        Long id,
+        String name,
+        long totalTasks,
+        long completedTasks,
+        long pendingTasks,
+        long pointsEarned,
+        LocalDate lastActivity) {
+
+    // Target of the grouped query, which can only return the two dates separately
+    public StreamSummary(Long id, String name, Long totalTasks, Long completedTasks, Long pendingTasks,
+                         Long pointsEarned, LocalDate lastAssigned, LocalDate lastCompleted) {
+        this(id, name, orZero(totalTasks), orZero(completedTasks), orZero(pendingTasks), orZero(pointsEarned),
+                lastCompleted == null || (lastAssigned != null && lastAssigned.isAfter(lastCompleted))
+                        ? lastAssigned : lastCompleted);
+    }
+
+    private static long orZero(Long value) {
+        return value != null ? value : 0;
+    }
+}
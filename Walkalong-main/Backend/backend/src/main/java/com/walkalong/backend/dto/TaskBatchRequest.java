@@ -0,0 +1,12 @@
+package com.walkalong.backend.dto;
+
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskStatus;
+
+import java.util.List;
+
+/** Body of POST /api/tasks/batch. Either list may be omitted. */
+public record TaskBatchRequest(List<LearningTask> create, List<StatusChange> statusChanges) {
+
+    public record StatusChange(Long id, TaskStatus status) {}
+}
@@ -0,0 +1,9 @@
+package com.walkalong.backend.dto;
+
+import com.walkalong.backend.entity.TaskStatus;
+
+import java.time.LocalDate;
+
+/** What the in-memory task views need to forget a task that was deleted in bulk. */
+public record TaskRef(Long id, Long userId, LocalDate assignedDate, LocalDate completedDate,
+                      TaskStatus status, Integer points) {}
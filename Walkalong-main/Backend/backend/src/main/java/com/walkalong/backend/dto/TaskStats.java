@@ -0,0 +1,15 @@
+package com.walkalong.backend.dto;
+
+/** Dashboard totals for one user. Points only count towards earnedPoints once the task is completed. */
+public record TaskStats(
+        long totalTasks,
+        long completedTasks,
+        long skippedTasks,
+        long pendingTasks,
+        long totalPoints,
+        long earnedPoints) {
+
+    public double learningRate() {
+        return totalTasks == 0 ? 0 : (double) completedTasks / totalTasks;
+    }
+}
@@ -0,0 +1,9 @@
+package com.walkalong.backend.dto;
+
+import com.walkalong.backend.entity.TaskStatus;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/** The fields a status update changed; clients merge it into the task they already hold. */
+public record TaskStatusChange(Long id, TaskStatus status, LocalDate completedDate, LocalDateTime updatedAt, Long version) {}
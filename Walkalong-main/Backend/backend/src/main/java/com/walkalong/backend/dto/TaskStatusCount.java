@@ -0,0 +1,10 @@
+package com.walkalong.backend.dto;
+
+import com.walkalong.backend.entity.TaskStatus;
+
+/** One row of the per-status task aggregate. */
+public interface TaskStatusCount {
+    TaskStatus getStatus();
+    Long getTasks();
+    Long getPoints();
+}
@@ -0,0 +1,8 @@
+package com.walkalong.backend.dto;
+
+/**
+ * Starts a chunked upload of size bytes; chunkSize defaults to walkalong.uploads.chunk-bytes.
+ * fileName is the name of the file on the client, kept for downloads.
+ */
+public record UploadInit(Long questionId, Integer timeTaken, Long parentSubmissionId, Long size, Integer chunkSize,
+                         String fileName) {}
@@ -0,0 +1,14 @@
+package com.walkalong.backend.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Where a chunked upload stands. Chunk i covers bytes [i * chunkSize, min((i + 1) * chunkSize, size));
+ * missing lists the chunks still to send as inclusive index ranges.
+ */
+public record UploadStatus(String id, long size, int chunkSize, int chunkCount, int received,
+                           List<ChunkRange> missing, LocalDateTime expiresAt) {
+
+    public record ChunkRange(int from, int to) {}
+}
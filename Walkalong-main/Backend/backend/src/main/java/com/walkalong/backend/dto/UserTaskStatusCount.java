@@ -0,0 +1,6 @@
+package com.walkalong.backend.dto;
+
+/** Per-user row of the task aggregate used to seed and verify in-memory counters. */
+public interface UserTaskStatusCount extends TaskStatusCount {
+    Long getUserId();
+}
@@ -6,7 +6,7 @@ import java.time.LocalDateTime;
 
 @Entity
 @Data
-@Table(name = "answer_submissions")
+@Table(name = "answer_submissions", indexes = @Index(name = "idx_submission_pdf", columnList = "pdf_path"))
 public class AnswerSubmission {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -20,7 +20,8 @@ public class AnswerSubmission {
     @JoinColumn(name = "user_id")
     private User user;
 
-    private String pdfPath;
+    private String pdfPath; // SHA-256 of the file for uploads since content addressing; older rows hold UUID_name
+    private String originalName; // the file name as uploaded, sent back in Content-Disposition
     private Integer timeTakenMinutes;
 
     @Enumerated(EnumType.STRING)
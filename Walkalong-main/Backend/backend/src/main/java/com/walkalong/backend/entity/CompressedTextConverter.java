@@ -0,0 +1,86 @@
+package com.walkalong.backend.entity;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Stores text as [codec byte][original UTF-8 length][payload]. Bodies above a small threshold are
+ * deflated when that actually saves space; short or incompressible ones are kept as plain UTF-8.
+ */
+@Converter
+public class CompressedTextConverter implements AttributeConverter<String, byte[]> {
+
+    static final byte RAW = 0;
+    static final byte DEFLATE = 1;
+    static final int HEADER = 5;
+    private static final int MIN_COMPRESS = 256;
+
+    @Override
+    public byte[] convertToDatabaseColumn(String text) {
+        if (text == null) return null;
+        byte[] utf8 = text.getBytes(StandardCharsets.UTF_8);
+        if (utf8.length >= MIN_COMPRESS) {
+            byte[] deflated = deflate(utf8);
+            if (deflated.length < utf8.length) return frame(DEFLATE, utf8.length, deflated);
+        }
+        return frame(RAW, utf8.length, utf8);
+    }
+
+    @Override
+    public String convertToEntityAttribute(byte[] data) {
+        if (data == null) return null;
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        byte codec = buffer.get();
+        int length = buffer.getInt();
+        if (codec == RAW) {
+            return new String(data, HEADER, data.length - HEADER, StandardCharsets.UTF_8);
+        }
+        if (codec != DEFLATE) {
+            throw new IllegalStateException("Unknown text codec " + codec);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data, HEADER, data.length - HEADER);
+            byte[] utf8 = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(utf8, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                read += n;
+            }
+            if (read != length) throw new IllegalStateException("Truncated compressed text");
+            return new String(utf8, StandardCharsets.UTF_8);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt compressed text", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] deflate(byte[] input) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(input);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(input.length / 2);
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(chunk, 0, deflater.deflate(chunk));
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] frame(byte codec, int length, byte[] payload) {
+        return ByteBuffer.allocate(HEADER + payload.length).put(codec).putInt(length).put(payload).array();
+    }
+}
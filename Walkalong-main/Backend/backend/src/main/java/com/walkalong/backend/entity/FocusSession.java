@@ -0,0 +1,36 @@
+package com.walkalong.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "focus_sessions", indexes = {
+        @Index(name = "idx_focus_task", columnList = "task_id"),
+        @Index(name = "idx_focus_open", columnList = "ended_at, last_heartbeat_at")
+})
+public class FocusSession {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "task_id", nullable = false)
+    private Long taskId;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    private LocalDateTime startedAt;
+    private LocalDateTime lastHeartbeatAt; // written in batches by FocusSessionService, may lag a few seconds
+    private LocalDateTime endedAt;         // null while the session is open
+
+    public long getFocusedSeconds() {
+        LocalDateTime until = endedAt != null ? endedAt : lastHeartbeatAt;
+        return startedAt == null || until == null ? 0 : Duration.between(startedAt, until).getSeconds();
+    }
+}
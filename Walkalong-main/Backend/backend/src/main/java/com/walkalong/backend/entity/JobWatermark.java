@@ -0,0 +1,18 @@
+package com.walkalong.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "job_watermarks")
+public class JobWatermark {
+    @Id
+    private String name;
+
+    private LocalDateTime processedUpTo;
+}
@@ -2,11 +2,24 @@ package com.walkalong.backend.entity;
 
 import jakarta.persistence.*;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = {
+        @Index(name = "idx_task_user_type_date", columnList = "user_id, type, assigned_date"),
+        @Index(name = "idx_task_user_date", columnList = "user_id, assigned_date"),
+        @Index(name = "idx_task_updated_at", columnList = "updated_at"),
+        @Index(name = "idx_task_assigned_id", columnList = "assigned_date, id"),
+        @Index(name = "idx_task_stream_date_id", columnList = "stream_id, assigned_date, id")
+}, uniqueConstraints = {
+        // At most one occurrence per template and day, even if a materializer run is replayed
+        @UniqueConstraint(name = "uk_task_template_date", columnNames = {"template_id", "assigned_date"})
+})
 public class LearningTask {
+    // Pooled sequence instead of IDENTITY so Hibernate can batch inserts; see TaskSequenceInitializer
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "learning_task_seq")
+    @SequenceGenerator(name = "learning_task_seq", sequenceName = "learning_task_seq", allocationSize = 50)
     private Long id;
 
     private String title;
@@ -31,6 +44,18 @@ public class LearningTask {
     @JoinColumn(name = "user_id")
     private User user;
 
+    @Column(name = "template_id")
+    @com.fasterxml.jackson.annotation.JsonProperty(access = com.fasterxml.jackson.annotation.JsonProperty.Access.READ_ONLY)
+    private Long templateId; // set on occurrences created from a TaskTemplate
+
+    private LocalDateTime updatedAt; // drives the incremental task_daily_stats rollup
+
+    // Optimistic lock; existing rows start at 0. Clients echo it back on status changes to detect conflicts
+    @Version
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    @com.fasterxml.jackson.annotation.JsonProperty(access = com.fasterxml.jackson.annotation.JsonProperty.Access.READ_ONLY)
+    private Long version;
+
     public LearningTask() {
         this.points = 10; // Default points
     }
@@ -64,4 +89,19 @@ public class LearningTask {
 
     public User getUser() { return user; }
     public void setUser(User user) { this.user = user; }
+
+    public Long getTemplateId() { return templateId; }
+    public void setTemplateId(Long templateId) { this.templateId = templateId; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.updatedAt = LocalDateTime.now();
+    }
 }
\ No newline at end of file
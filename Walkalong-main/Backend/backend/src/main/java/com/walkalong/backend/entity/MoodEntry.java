@@ -9,7 +9,9 @@ import java.time.LocalDate;
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
-@Table(name = "mood_entries")
+@Table(name = "mood_entries", indexes = {
+        @Index(name = "idx_mood_user_date_id", columnList = "user_id, date, id")
+})
 public class MoodEntry {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -0,0 +1,35 @@
+package com.walkalong.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "note_revisions",
+       uniqueConstraints = @UniqueConstraint(name = "uk_note_revision", columnNames = {"note_id", "version"}))
+public class NoteRevision {
+    public enum Kind { SNAPSHOT, DELTA }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "note_id", nullable = false)
+    private Long noteId;
+
+    @Column(nullable = false)
+    private long version;
+
+    @Enumerated(EnumType.STRING)
+    private Kind kind;
+
+    // SNAPSHOT: the full text in CompressedTextConverter format; DELTA: edits from the previous version
+    @Column(columnDefinition = "bytea")
+    private byte[] data;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,29 @@
+package com.walkalong.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/** An uploaded file stored once under the SHA-256 of its content, with a count of submissions using it. */
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "stored_blobs", indexes = @Index(name = "idx_blob_unreferenced", columnList = "ref_count, touched_at"))
+public class StoredBlob {
+    @Id
+    @Column(length = 64)
+    private String digest; // lowercase hex
+
+    private long size;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    private LocalDateTime createdAt;
+
+    // Last acquire or release; the GC leaves recently touched blobs alone
+    @Column(name = "touched_at")
+    private LocalDateTime touchedAt;
+}
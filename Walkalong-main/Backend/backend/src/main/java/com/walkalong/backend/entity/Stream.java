@@ -18,8 +18,9 @@ public class Stream {
 
     private String name;
 
+    // Not serialized: listing streams would load every task of each one. Use /api/streams/{id}/tasks
     @OneToMany(mappedBy = "stream", cascade = CascadeType.ALL, orphanRemoval = true)
-    @com.fasterxml.jackson.annotation.JsonIgnoreProperties("stream")
+    @com.fasterxml.jackson.annotation.JsonIgnore
     private List<LearningTask> tasks;
 
     @ManyToOne
@@ -1,27 +1,62 @@
 package com.walkalong.backend.entity;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
 
 @Entity
+@DynamicUpdate // autosaves change the version and size columns without rewriting content_data
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class StreamNote {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     private String title;
-    
-    @Lob
-    @Column(columnDefinition = "TEXT")
+
+    // Compressed on write; lists read NoteSummary projections so this column is only read for one note.
+    // Rows written before compression are moved over by NoteContentMigration.
+    // Holds the text as of snapshotVersion; NoteService applies later deltas from note_revisions
+    @Convert(converter = CompressedTextConverter.class)
+    @Column(name = "content_data", columnDefinition = "bytea")
     private String content;
 
+    private Integer contentSize; // UTF-8 bytes of content, so lists can show it without reading the body
+
+    private LocalDateTime updatedAt;
+
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private long version; // latest version; PATCH requests name it as their base
+
+    @Column(nullable = false, columnDefinition = "bigint default 0")
+    @JsonIgnore
+    private long snapshotVersion;
+
     @ManyToOne
     @JoinColumn(name = "stream_id")
     @JsonBackReference
     private Stream stream;
+
+    public StreamNote(Long id, String title, String content, Stream stream) {
+        this.id = id;
+        this.title = title;
+        this.content = content;
+        this.stream = stream;
+    }
+
+    @PrePersist
+    @PreUpdate
+    void touch() {
+        this.contentSize = content != null ? content.getBytes(StandardCharsets.UTF_8).length : 0;
+        this.updatedAt = LocalDateTime.now();
+    }
 }
@@ -0,0 +1,29 @@
+package com.walkalong.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "task_daily_stats",
+       uniqueConstraints = @UniqueConstraint(name = "uk_task_daily_stats_user_date", columnNames = {"user_id", "stat_date"}))
+public class TaskDailyStat {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "stat_date", nullable = false)
+    private LocalDate date;
+
+    private long assignedTasks;   // tasks whose assignedDate is this day
+    private long completedTasks;  // tasks whose completedDate is this day
+    private long pointsEarned;    // points of the tasks completed this day
+    private long minutesStudied;  // duration of the tasks completed this day
+}
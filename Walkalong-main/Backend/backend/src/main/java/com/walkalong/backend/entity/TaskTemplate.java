@@ -0,0 +1,46 @@
+package com.walkalong.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDate;
+
+@Entity
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "task_templates", indexes = {
+        @Index(name = "idx_template_due", columnList = "active, materialized_through, id")
+})
+public class TaskTemplate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String title;
+
+    @Enumerated(EnumType.STRING)
+    private TaskType type; // DAILY, WEEKLY, MONTHLY recurrence
+
+    @ManyToOne
+    @JoinColumn(name = "stream_id")
+    @com.fasterxml.jackson.annotation.JsonIgnoreProperties("tasks")
+    private Stream stream;
+
+    private Integer duration; // in minutes
+    private Integer points;
+
+    private LocalDate startDate; // first occurrence; weekly/monthly repeat on its weekday/day of month
+    private LocalDate endDate;   // last possible occurrence, null for open-ended
+
+    private boolean active = true;
+
+    // Occurrences up to and including this date have been created; the materializer's watermark
+    @com.fasterxml.jackson.annotation.JsonProperty(access = com.fasterxml.jackson.annotation.JsonProperty.Access.READ_ONLY)
+    private LocalDate materializedThrough;
+
+    @ManyToOne
+    @JoinColumn(name = "user_id")
+    @com.fasterxml.jackson.annotation.JsonIgnore
+    private User user;
+}
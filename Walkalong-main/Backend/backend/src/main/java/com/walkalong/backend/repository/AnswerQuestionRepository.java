@@ -1,9 +1,27 @@
 package com.walkalong.backend.repository;
 
+import com.walkalong.backend.dto.SearchSource;
 import com.walkalong.backend.entity.AnswerQuestion;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
 @Repository
 public interface AnswerQuestionRepository extends JpaRepository<AnswerQuestion, Long> {
+    List<AnswerQuestion> findAllByOrderByIdAsc(Limit limit);
+
+    List<AnswerQuestion> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Search index rebuild; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.walkalong.backend.dto.SearchSource(q.id, CAST(NULL AS String), q.questionText) FROM AnswerQuestion q")
+    Stream<SearchSource> streamSearchSources();
 }
@@ -2,11 +2,22 @@ package com.walkalong.backend.repository;
 
 import com.walkalong.backend.entity.AnswerSubmission;
 import com.walkalong.backend.entity.User;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface AnswerSubmissionRepository extends JpaRepository<AnswerSubmission, Long> {
     List<AnswerSubmission> findByUserOrderBySubmittedAtDesc(User user);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT s FROM AnswerSubmission s LEFT JOIN FETCH s.question WHERE s.user.id = :userId ORDER BY s.id")
+    Stream<AnswerSubmission> streamByUserId(@Param("userId") Long userId);
 }
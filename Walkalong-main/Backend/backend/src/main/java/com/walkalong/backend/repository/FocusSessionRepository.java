@@ -0,0 +1,27 @@
+package com.walkalong.backend.repository;
+
+import com.walkalong.backend.entity.FocusSession;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface FocusSessionRepository extends JpaRepository<FocusSession, Long> {
+    List<FocusSession> findByTaskIdOrderByStartedAtDesc(Long taskId);
+
+    boolean existsByIdAndEndedAtIsNull(Long id);
+
+    // Open sessions whose last persisted heartbeat is older than the cutoff; served by idx_focus_open
+    @Query("SELECT s.id FROM FocusSession s WHERE s.endedAt IS NULL AND s.lastHeartbeatAt < :cutoff")
+    List<Long> findIdleIds(@Param("cutoff") LocalDateTime cutoff);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE FocusSession s SET s.endedAt = s.lastHeartbeatAt WHERE s.id IN :ids AND s.endedAt IS NULL")
+    int closeAtLastHeartbeat(@Param("ids") Collection<Long> ids);
+}
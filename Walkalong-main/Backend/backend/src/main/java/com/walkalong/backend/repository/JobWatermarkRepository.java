@@ -0,0 +1,7 @@
+package com.walkalong.backend.repository;
+
+import com.walkalong.backend.entity.JobWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface JobWatermarkRepository extends JpaRepository<JobWatermark, String> {
+}
@@ -2,9 +2,32 @@ package com.walkalong.backend.repository;
 
 import com.walkalong.backend.entity.MoodEntry;
 import com.walkalong.backend.entity.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface MoodRepository extends JpaRepository<MoodEntry, Long> {
-    List<MoodEntry> findByUserOrderByDateDesc(User user);
+    // Newest first, read backwards along idx_mood_user_date_id; entries without a date come after all
+    // dated ones and are paged on id alone once those run out (see Keyset.datedThenUndated)
+    @Query("SELECT m FROM MoodEntry m WHERE m.user = :user AND m.date IS NOT NULL ORDER BY m.date DESC, m.id DESC")
+    List<MoodEntry> findFirstPage(@Param("user") User user, Limit limit);
+
+    @Query("SELECT m FROM MoodEntry m WHERE m.user = :user AND (m.date, m.id) < (:date, :id) ORDER BY m.date DESC, m.id DESC")
+    List<MoodEntry> findPageBefore(@Param("user") User user, @Param("date") LocalDate date, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT m FROM MoodEntry m WHERE m.user = :user AND m.date IS NULL AND m.id < :id ORDER BY m.id DESC")
+    List<MoodEntry> findUndatedPageBefore(@Param("user") User user, @Param("id") Long id, Limit limit);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT m FROM MoodEntry m WHERE m.user.id = :userId ORDER BY m.date, m.id")
+    Stream<MoodEntry> streamByUserId(@Param("userId") Long userId);
 }
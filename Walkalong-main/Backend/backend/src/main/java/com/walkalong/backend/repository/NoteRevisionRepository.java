@@ -0,0 +1,30 @@
+package com.walkalong.backend.repository;
+
+import com.walkalong.backend.entity.NoteRevision;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface NoteRevisionRepository extends JpaRepository<NoteRevision, Long> {
+    // Revisions (after, upTo] in order, served by uk_note_revision
+    @Query("SELECT r FROM NoteRevision r WHERE r.noteId = :noteId AND r.version > :after AND r.version <= :upTo " +
+           "ORDER BY r.version")
+    List<NoteRevision> findRange(@Param("noteId") Long noteId, @Param("after") long after, @Param("upTo") long upTo);
+
+    Optional<NoteRevision> findFirstByNoteIdAndKindAndVersionLessThanEqualOrderByVersionDesc(
+            Long noteId, NoteRevision.Kind kind, long version);
+
+    boolean existsByNoteId(Long noteId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM NoteRevision r WHERE r.noteId = :noteId")
+    int deleteAllByNoteId(@Param("noteId") Long noteId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM NoteRevision r WHERE r.noteId IN (SELECT n.id FROM StreamNote n WHERE n.stream.id = :streamId)")
+    int deleteAllByStreamId(@Param("streamId") Long streamId);
+}
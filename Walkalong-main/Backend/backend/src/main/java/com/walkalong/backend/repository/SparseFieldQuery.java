@@ -0,0 +1,114 @@
+package com.walkalong.backend.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Order;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a criteria query that selects only the requested attribute paths (e.g. "title", "stream.name")
+ * instead of whole entities. Associations named in a path are LEFT JOINed once; nothing else is fetched.
+ * Callers are responsible for whitelisting the paths.
+ */
+@Repository
+public class SparseFieldQuery {
+
+    public interface Filter<T> {
+        Predicate apply(Root<T> root, CriteriaBuilder cb);
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public <T> List<Map<String, Object>> select(Class<T> entityClass, List<String> fields, Filter<T> filter, Sort sort) {
+        return select(entityClass, fields, filter, sort, null);
+    }
+
+    public <T> List<Map<String, Object>> select(Class<T> entityClass, List<String> fields, Filter<T> filter, Sort sort,
+                                                Integer limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(entityClass);
+        Map<String, From<?, ?>> joins = new HashMap<>();
+
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String field : fields) {
+            selections.add(path(root, joins, field).alias(field));
+        }
+        query.multiselect(selections);
+
+        if (filter != null) {
+            query.where(filter.apply(root, cb));
+        }
+        if (sort != null && sort.isSorted()) {
+            List<Order> orders = new ArrayList<>();
+            for (Sort.Order order : sort) {
+                Path<?> p = path(root, joins, order.getProperty());
+                if (order.getNullHandling() != Sort.NullHandling.NATIVE && cb instanceof HibernateCriteriaBuilder hcb) {
+                    boolean nullsFirst = order.getNullHandling() == Sort.NullHandling.NULLS_FIRST;
+                    orders.add(order.isAscending() ? hcb.asc(p, nullsFirst) : hcb.desc(p, nullsFirst));
+                } else {
+                    orders.add(order.isAscending() ? cb.asc(p) : cb.desc(p));
+                }
+            }
+            query.orderBy(orders);
+        }
+
+        List<Map<String, Object>> result = new ArrayList<>();
+        TypedQuery<Tuple> typed = entityManager.createQuery(query);
+        if (limit != null) {
+            typed.setMaxResults(limit);
+        }
+        for (Tuple tuple : typed.getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (String field : fields) {
+                putNested(row, field, tuple.get(field));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
+    /** Writes "a.b" as {"a": {"b": value}} so projected rows keep the shape of the full entity JSON. */
+    @SuppressWarnings("unchecked")
+    public static void putNested(Map<String, Object> row, String field, Object value) {
+        String[] parts = field.split("\\.");
+        Map<String, Object> target = row;
+        for (int i = 0; i < parts.length - 1; i++) {
+            target = (Map<String, Object>) target.computeIfAbsent(parts[i], k -> new LinkedHashMap<String, Object>());
+        }
+        target.put(parts[parts.length - 1], value);
+    }
+
+    private static Path<?> path(Root<?> root, Map<String, From<?, ?>> joins, String field) {
+        String[] parts = field.split("\\.");
+        From<?, ?> from = root;
+        String prefix = "";
+        for (int i = 0; i < parts.length - 1; i++) {
+            prefix = prefix.isEmpty() ? parts[i] : prefix + "." + parts[i];
+            From<?, ?> parent = from;
+            String attribute = parts[i];
+            from = joins.computeIfAbsent(prefix, k -> (Join<?, ?>) parent.join(attribute, JoinType.LEFT));
+        }
+        return from.get(parts[parts.length - 1]);
+    }
+}
@@ -0,0 +1,50 @@
+package com.walkalong.backend.repository;
+
+import com.walkalong.backend.entity.StoredBlob;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface StoredBlobRepository extends JpaRepository<StoredBlob, String> {
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount + 1, b.touchedAt = :now WHERE b.digest = :digest")
+    int acquire(@Param("digest") String digest, @Param("now") LocalDateTime now);
+
+    // A plain insert rather than save(), which would merge over a row inserted concurrently
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO stored_blobs (digest, size, ref_count, created_at, touched_at) " +
+                   "VALUES (:digest, :size, 1, :now, :now)", nativeQuery = true)
+    int insert(@Param("digest") String digest, @Param("size") long size, @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredBlob b SET b.refCount = b.refCount - 1, b.touchedAt = :now " +
+           "WHERE b.digest = :digest AND b.refCount > 0")
+    int release(@Param("digest") String digest, @Param("now") LocalDateTime now);
+
+    // Resets counts of settled blobs to the submissions that actually point at them; only rows that
+    // drifted are written, so an hourly run over a healthy table updates nothing
+    @Modifying
+    @Transactional
+    @Query("UPDATE StoredBlob b SET b.refCount = " +
+           "(SELECT COUNT(s) FROM AnswerSubmission s WHERE s.pdfPath = b.digest) WHERE b.touchedAt < :cutoff " +
+           "AND b.refCount <> (SELECT COUNT(s) FROM AnswerSubmission s WHERE s.pdfPath = b.digest)")
+    int reconcile(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT b.digest FROM StoredBlob b WHERE b.refCount = 0 AND b.touchedAt < :cutoff")
+    List<String> findUnreferenced(@Param("cutoff") LocalDateTime cutoff, Limit limit);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredBlob b WHERE b.digest = :digest AND b.refCount = 0 AND b.touchedAt < :cutoff")
+    int deleteIfUnreferenced(@Param("digest") String digest, @Param("cutoff") LocalDateTime cutoff);
+}
@@ -1,9 +1,56 @@
 package com.walkalong.backend.repository;
 
+import com.walkalong.backend.dto.NoteSummary;
+import com.walkalong.backend.dto.SearchSource;
 import com.walkalong.backend.entity.StreamNote;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface StreamNoteRepository extends JpaRepository<StreamNote, Long> {
     List<StreamNote> findByStreamId(Long streamId);
+
+    // Never touches content_data
+    @Query("SELECT new com.walkalong.backend.dto.NoteSummary(n.id, n.title, n.contentSize, n.updatedAt) " +
+           "FROM StreamNote n WHERE n.stream.id = :streamId ORDER BY n.id")
+    List<NoteSummary> findSummariesByStreamId(@Param("streamId") Long streamId);
+
+    @Query("SELECT n.id FROM StreamNote n WHERE n.stream.id = :streamId")
+    List<Long> findIdsByStreamId(@Param("streamId") Long streamId);
+
+    // Autosave: moves the note to the next version only if it is still at the base the client edited
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StreamNote n SET n.version = :version, n.contentSize = :size, n.updatedAt = :updatedAt " +
+           "WHERE n.id = :id AND n.version = :base")
+    int advanceVersion(@Param("id") Long id,
+                       @Param("base") long base,
+                       @Param("version") long version,
+                       @Param("size") int size,
+                       @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE StreamNote n SET n.content = :content, n.snapshotVersion = :version WHERE n.id = :id")
+    int writeSnapshot(@Param("id") Long id, @Param("content") String content, @Param("version") long version);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM StreamNote n WHERE n.stream.id = :streamId")
+    int deleteAllByStreamId(@Param("streamId") Long streamId);
+
+    // Notes whose content column is behind their latest version, i.e. with deltas still to replay
+    @Query("SELECT n FROM StreamNote n WHERE n.version > n.snapshotVersion")
+    List<StreamNote> findWithPendingDeltas();
+
+    // Search index rebuild; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "100"))
+    @Query("SELECT new com.walkalong.backend.dto.SearchSource(n.id, n.title, n.content) FROM StreamNote n")
+    Stream<SearchSource> streamSearchSources();
 }
@@ -1,8 +1,32 @@
 package com.walkalong.backend.repository;
 
+import com.walkalong.backend.dto.StreamSummary;
 import com.walkalong.backend.entity.Stream;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 
 public interface StreamRepository extends JpaRepository<Stream, Long> {
-}
\ No newline at end of file
+    List<Stream> findAllByOrderByIdAsc(Limit limit);
+
+    List<Stream> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    // Skips the tasks cascade; StreamService deletes the children first
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM Stream s WHERE s.id = :id")
+    int deleteByIdInBulk(@Param("id") Long id);
+
+    // One grouped pass over tasks for every stream; streams without tasks come back with zeros
+    @Query("SELECT new com.walkalong.backend.dto.StreamSummary(s.id, s.name, COUNT(t), " +
+           "SUM(CASE WHEN t.status = com.walkalong.backend.entity.TaskStatus.COMPLETED THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN t.status = com.walkalong.backend.entity.TaskStatus.PENDING THEN 1 ELSE 0 END), " +
+           "SUM(CASE WHEN t.status = com.walkalong.backend.entity.TaskStatus.COMPLETED THEN t.points ELSE 0 END), " +
+           "MAX(t.assignedDate), MAX(t.completedDate)) " +
+           "FROM Stream s LEFT JOIN LearningTask t ON t.stream = s GROUP BY s.id, s.name ORDER BY s.id")
+    List<StreamSummary> summarizeAll();
+}
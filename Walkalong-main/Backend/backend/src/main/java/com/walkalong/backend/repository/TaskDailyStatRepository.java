@@ -0,0 +1,18 @@
+package com.walkalong.backend.repository;
+
+import com.walkalong.backend.entity.TaskDailyStat;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+public interface TaskDailyStatRepository extends JpaRepository<TaskDailyStat, Long> {
+
+    @Query("SELECT s FROM TaskDailyStat s WHERE s.userId = :userId AND s.date >= :from AND s.date < :to ORDER BY s.date")
+    List<TaskDailyStat> findRange(@Param("userId") Long userId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    List<TaskDailyStat> findByUserIdInAndDateIn(Collection<Long> userIds, Collection<LocalDate> dates);
+}
@@ -1,13 +1,138 @@
 package com.walkalong.backend.repository;
 
 
+import com.walkalong.backend.dto.DailyTaskCount;
+import com.walkalong.backend.dto.PlanTaskRow;
+import com.walkalong.backend.dto.SearchSource;
+import com.walkalong.backend.dto.TaskRef;
+import com.walkalong.backend.dto.TaskStatusCount;
+import com.walkalong.backend.dto.UserTaskStatusCount;
 import com.walkalong.backend.entity.LearningTask;
 import com.walkalong.backend.entity.TaskType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 public interface TaskRepository extends JpaRepository<LearningTask, Long> {
     List<LearningTask> findByTypeAndAssignedDate(TaskType type, LocalDate date);
-}
\ No newline at end of file
+
+    List<LearningTask> findByUserId(Long userId);
+
+    @Query("SELECT new com.walkalong.backend.dto.TaskRef(t.id, u.id, t.assignedDate, t.completedDate, " +
+           "t.status, t.points) " +
+           "FROM LearningTask t LEFT JOIN t.user u WHERE t.stream.id = :streamId")
+    List<TaskRef> findRefsByStreamId(@Param("streamId") Long streamId);
+
+    // Set-based delete for StreamService; bypasses the persistence context and @PreRemove callbacks
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM LearningTask t WHERE t.stream.id = :streamId")
+    int deleteAllByStreamId(@Param("streamId") Long streamId);
+
+    // A stream's tasks in keyset pages over (assigned_date, id), served by idx_task_stream_date_id.
+    // The dated seeks stay plain row-value ranges; tasks without a date are paged on id alone once
+    // those run out (see Keyset.datedThenUndated)
+    @Query("SELECT t FROM LearningTask t WHERE t.stream.id = :streamId AND t.assignedDate IS NOT NULL " +
+           "ORDER BY t.assignedDate, t.id")
+    List<LearningTask> findStreamPage(@Param("streamId") Long streamId, Limit limit);
+
+    @Query("SELECT t FROM LearningTask t WHERE t.stream.id = :streamId AND (t.assignedDate, t.id) > (:date, :id) " +
+           "ORDER BY t.assignedDate, t.id")
+    List<LearningTask> findStreamPageAfter(@Param("streamId") Long streamId,
+                                           @Param("date") LocalDate date,
+                                           @Param("id") Long id,
+                                           Limit limit);
+
+    @Query("SELECT t FROM LearningTask t WHERE t.stream.id = :streamId AND t.assignedDate IS NULL AND t.id > :id " +
+           "ORDER BY t.id")
+    List<LearningTask> findUndatedStreamPageAfter(@Param("streamId") Long streamId, @Param("id") Long id, Limit limit);
+
+    // Keyset pages over (assigned_date, id), served by idx_task_assigned_id; undated tasks come last
+    @Query("SELECT t FROM LearningTask t WHERE t.assignedDate IS NOT NULL ORDER BY t.assignedDate, t.id")
+    List<LearningTask> findFirstPage(Limit limit);
+
+    @Query("SELECT t FROM LearningTask t WHERE (t.assignedDate, t.id) > (:date, :id) ORDER BY t.assignedDate, t.id")
+    List<LearningTask> findPageAfter(@Param("date") LocalDate date, @Param("id") Long id, Limit limit);
+
+    @Query("SELECT t FROM LearningTask t WHERE t.assignedDate IS NULL AND t.id > :id ORDER BY t.id")
+    List<LearningTask> findUndatedPageAfter(@Param("id") Long id, Limit limit);
+
+    // Half-open [from, to) range so weeks and months don't overlap; served by idx_task_user_type_date
+    @Query("SELECT t FROM LearningTask t WHERE t.user.id = :userId AND t.type = :type " +
+           "AND t.assignedDate >= :from AND t.assignedDate < :to ORDER BY t.assignedDate, t.id")
+    List<LearningTask> findForPlan(@Param("userId") Long userId,
+                                   @Param("type") TaskType type,
+                                   @Param("from") LocalDate from,
+                                   @Param("to") LocalDate to);
+
+    @Query("SELECT t.status AS status, COUNT(t) AS tasks, SUM(t.points) AS points " +
+           "FROM LearningTask t WHERE t.user.id = :userId GROUP BY t.status")
+    List<TaskStatusCount> countByStatus(@Param("userId") Long userId);
+
+    @Query("SELECT t.user.id AS userId, t.status AS status, COUNT(t) AS tasks, SUM(t.points) AS points " +
+           "FROM LearningTask t GROUP BY t.user.id, t.status")
+    List<UserTaskStatusCount> countByUserAndStatus();
+
+    // Days touched since the rollup watermark, on either side of a task's lifecycle
+    @Query("SELECT DISTINCT t.user.id AS userId, t.assignedDate AS day FROM LearningTask t " +
+           "WHERE t.updatedAt > :since AND t.user IS NOT NULL AND t.assignedDate IS NOT NULL")
+    List<DailyTaskCount> findAssignedDaysTouchedSince(@Param("since") LocalDateTime since);
+
+    @Query("SELECT DISTINCT t.user.id AS userId, t.completedDate AS day FROM LearningTask t " +
+           "WHERE t.updatedAt > :since AND t.user IS NOT NULL AND t.completedDate IS NOT NULL")
+    List<DailyTaskCount> findCompletedDaysTouchedSince(@Param("since") LocalDateTime since);
+
+    // Rollup sources; callers keep only the (user, day) pairs they asked for
+    @Query("SELECT t.user.id AS userId, t.assignedDate AS day, COUNT(t) AS tasks FROM LearningTask t " +
+           "WHERE t.user.id IN :userIds AND t.assignedDate IN :days GROUP BY t.user.id, t.assignedDate")
+    List<DailyTaskCount> countAssignedByDay(@Param("userIds") Collection<Long> userIds,
+                                            @Param("days") Collection<LocalDate> days);
+
+    @Query("SELECT t.user.id AS userId, t.completedDate AS day, COUNT(t) AS tasks, " +
+           "SUM(t.points) AS points, SUM(t.duration) AS minutes FROM LearningTask t " +
+           "WHERE t.status = com.walkalong.backend.entity.TaskStatus.COMPLETED " +
+           "AND t.user.id IN :userIds AND t.completedDate IN :days GROUP BY t.user.id, t.completedDate")
+    List<DailyTaskCount> countCompletedByDay(@Param("userIds") Collection<Long> userIds,
+                                             @Param("days") Collection<LocalDate> days);
+
+    @Query("SELECT t.user.id AS userId, t.assignedDate AS day, COUNT(t) AS tasks FROM LearningTask t " +
+           "WHERE t.user IS NOT NULL AND t.assignedDate IS NOT NULL GROUP BY t.user.id, t.assignedDate")
+    List<DailyTaskCount> countAllAssignedByDay();
+
+    @Query("SELECT t.user.id AS userId, t.completedDate AS day, COUNT(t) AS tasks, " +
+           "SUM(t.points) AS points, SUM(t.duration) AS minutes FROM LearningTask t " +
+           "WHERE t.status = com.walkalong.backend.entity.TaskStatus.COMPLETED " +
+           "AND t.user IS NOT NULL AND t.completedDate IS NOT NULL GROUP BY t.user.id, t.completedDate")
+    List<DailyTaskCount> countAllCompletedByDay();
+
+    // Full-history export; the stream is fetched with the task so it isn't loaded row by row
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT t FROM LearningTask t LEFT JOIN FETCH t.stream WHERE t.user.id = :userId ORDER BY t.id")
+    Stream<LearningTask> streamByUserId(@Param("userId") Long userId);
+
+    // Search index rebuild; only the columns it needs, so no stream or user rows are loaded
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.walkalong.backend.dto.SearchSource(t.id, t.title, CAST(NULL AS String)) FROM LearningTask t")
+    Stream<SearchSource> streamSearchSources();
+
+    // Forward-only, date-ordered rows for streaming range views; must be consumed inside a transaction
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new com.walkalong.backend.dto.PlanTaskRow(t.id, t.title, t.type, t.status, t.assignedDate, " +
+           "t.completedDate, t.duration, t.points, s.id, s.name) " +
+           "FROM LearningTask t LEFT JOIN t.stream s WHERE t.user.id = :userId " +
+           "AND t.assignedDate >= :from AND t.assignedDate < :to ORDER BY t.assignedDate, t.id")
+    Stream<PlanTaskRow> streamPlanRows(@Param("userId") Long userId,
+                                       @Param("from") LocalDate from,
+                                       @Param("to") LocalDate to);
+}
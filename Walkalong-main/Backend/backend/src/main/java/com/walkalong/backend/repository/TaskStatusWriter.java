@@ -0,0 +1,77 @@
+package com.walkalong.backend.repository;
+
+import com.walkalong.backend.entity.TaskStatus;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.hibernate.SessionFactory;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Changes one task's status in a single statement that also hands back the row it replaced, so the
+ * caller learns the previous status without reading the task first. PostgreSQL locks the row in a CTE
+ * and returns it from UPDATE ... RETURNING; other databases (H2 in tests) read it from the update's
+ * OLD TABLE. Bulk updates skip @PreUpdate and the version check, so both are done here.
+ */
+@Repository
+public class TaskStatusWriter {
+
+    /** The replaced row: whose task it was and what it looked like before the update. */
+    public record Replaced(Long userId, Integer points, TaskStatus status, LocalDate completedDate, long version) {}
+
+    private static final String SET = "SET status = :status, completed_date = :completedDate, " +
+                                       "updated_at = :updatedAt, version = t.version + 1 ";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final boolean postgres;
+
+    public TaskStatusWriter(EntityManagerFactory entityManagerFactory) {
+        this.postgres = entityManagerFactory.unwrap(SessionFactory.class).unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    }
+
+    /**
+     * Empty if there is no such task or, with an expectedVersion, if the task has moved past it.
+     * Without an expectedVersion the update applies to whatever row is current, and the one returned
+     * is exactly the one it replaced.
+     */
+    public Optional<Replaced> update(Long id, Long expectedVersion, TaskStatus status, LocalDate completedDate,
+                                     LocalDateTime updatedAt) {
+        String guard = expectedVersion != null ? " AND t.version = :version" : "";
+        String sql = postgres
+                ? "WITH old AS (SELECT id, user_id, points, status, completed_date, version FROM learning_task " +
+                  "WHERE id = :id FOR UPDATE) " +
+                  "UPDATE learning_task t " + SET + "FROM old WHERE t.id = old.id" + guard +
+                  " RETURNING old.user_id, old.points, old.status, old.completed_date, old.version"
+                : "SELECT user_id, points, status, completed_date, version FROM OLD TABLE (" +
+                  "UPDATE learning_task t " + SET + "WHERE t.id = :id" + guard + ")";
+        Query query = entityManager.createNativeQuery(sql)
+                .setParameter("id", id)
+                .setParameter("status", status.name())
+                .setParameter("completedDate", completedDate)
+                .setParameter("updatedAt", updatedAt);
+        if (expectedVersion != null) query.setParameter("version", expectedVersion);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.getResultList();
+        if (rows.isEmpty()) return Optional.empty();
+        Object[] row = rows.get(0);
+        return Optional.of(new Replaced(
+                row[0] != null ? ((Number) row[0]).longValue() : null,
+                row[1] != null ? ((Number) row[1]).intValue() : null,
+                row[2] != null ? TaskStatus.valueOf((String) row[2]) : null,
+                row[3] instanceof Date date ? date.toLocalDate() : (LocalDate) row[3],
+                ((Number) row[4]).longValue()));
+    }
+}
@@ -0,0 +1,24 @@
+package com.walkalong.backend.repository;
+
+import com.walkalong.backend.entity.TaskTemplate;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface TaskTemplateRepository extends JpaRepository<TaskTemplate, Long> {
+    List<TaskTemplate> findByUserIdOrderByIdAsc(Long userId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM TaskTemplate t WHERE t.stream.id = :streamId")
+    int deleteAllByStreamId(@Param("streamId") Long streamId);
+
+    // Served by idx_template_due; templates already materialized up to the horizon are never read
+    @Query("SELECT t FROM TaskTemplate t WHERE t.active = true " +
+           "AND (t.materializedThrough IS NULL OR t.materializedThrough < :horizon) ORDER BY t.id")
+    List<TaskTemplate> findDue(@Param("horizon") LocalDate horizon, Limit limit);
+}
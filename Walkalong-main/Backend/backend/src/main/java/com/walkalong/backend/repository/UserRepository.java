@@ -6,4 +6,7 @@ import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    // Same "first user" fallback the controllers use, without loading the whole users table
+    Optional<User> findFirstByOrderByIdAsc();
 }
@@ -1,6 +1,8 @@
 package com.walkalong.backend.service;
 
 
+import com.walkalong.backend.dto.TaskStats;
+import com.walkalong.backend.dto.TaskStatusCount;
 import com.walkalong.backend.entity.TaskStatus;
 import com.walkalong.backend.repository.TaskRepository;
 import org.springframework.stereotype.Service;
@@ -9,26 +11,39 @@ public class AnalyticsService {
 
 
     private final TaskRepository taskRepository;
+    private final TaskCounterStore taskCounterStore;
 
 
-    public AnalyticsService(TaskRepository taskRepository) {
+    public AnalyticsService(TaskRepository taskRepository, TaskCounterStore taskCounterStore) {
         this.taskRepository = taskRepository;
+        this.taskCounterStore = taskCounterStore;
     }
 
 
-    public long getTotalTasks() {
-        return taskRepository.count();
+    public TaskStats getTaskStats(Long userId) {
+        if (taskCounterStore.isReady()) {
+            return taskCounterStore.get(userId);
+        }
+        return aggregateTaskStats(userId);
     }
 
 
-    public long getCompletedTasks() {
-        return taskRepository.findAll().stream()
-                .filter(t -> t.getStatus() == TaskStatus.COMPLETED)
-                .count();
+    // One GROUP BY status query; everything on the dashboard is derived from its few rows
+    public TaskStats aggregateTaskStats(Long userId) {
+        long completed = 0, skipped = 0, pending = 0, totalPoints = 0, earnedPoints = 0;
+        for (TaskStatusCount row : taskRepository.countByStatus(userId)) {
+            long tasks = row.getTasks() != null ? row.getTasks() : 0;
+            long points = row.getPoints() != null ? row.getPoints() : 0;
+            totalPoints += points;
+            if (row.getStatus() == TaskStatus.COMPLETED) {
+                completed += tasks;
+                earnedPoints += points;
+            } else if (row.getStatus() == TaskStatus.SKIPPED) {
+                skipped += tasks;
+            } else {
+                pending += tasks; // PENDING, and legacy rows without a status
+            }
+        }
+        return new TaskStats(completed + skipped + pending, completed, skipped, pending, totalPoints, earnedPoints);
     }
-    public double getLearningRate() {
-        long total = getTotalTasks();
-        if (total == 0) return 0;
-        return (double) getCompletedTasks() / total;
-    }
-}
\ No newline at end of file
+}
@@ -3,7 +3,9 @@ package com.walkalong.backend.service;
 import com.walkalong.backend.entity.*;
 import com.walkalong.backend.repository.*;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 import java.util.List;
 import java.util.Optional;
@@ -15,15 +17,24 @@ public class AnswerService {
     @Autowired private AnswerReviewRepository reviewRepository;
     @Autowired private UserRepository userRepository;
     @Autowired private FileStorageService fileStorageService;
+    @Autowired private SearchService searchService;
 
     public AnswerQuestion createQuestion(AnswerQuestion question) {
-        return questionRepository.save(question);
+        AnswerQuestion saved = questionRepository.save(question);
+        searchService.indexQuestion(saved);
+        return saved;
     }
 
     public List<AnswerQuestion> getAllQuestions() {
         return questionRepository.findAll();
     }
 
+    public List<AnswerQuestion> getQuestionsPage(Long afterId, int limit) {
+        return afterId == null
+                ? questionRepository.findAllByOrderByIdAsc(Limit.of(limit))
+                : questionRepository.findByIdGreaterThanOrderByIdAsc(afterId, Limit.of(limit));
+    }
+
     public AnswerSubmission submitAnswer(Long questionId, Long userId, Integer timeTaken, Long parentSubmissionId, MultipartFile file) {
         AnswerQuestion question = questionRepository.findById(questionId)
                 .orElseThrow(() -> new RuntimeException("Question not found"));
@@ -31,15 +42,44 @@ public class AnswerService {
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         String fileName = fileStorageService.storeFile(file);
+        return saveSubmission(question, user, timeTaken, parentSubmissionId, fileName, file.getOriginalFilename());
+    }
 
+    /** Submission for a file already in storage under digest, holding one reference to it. */
+    public AnswerSubmission submitStoredAnswer(Long questionId, Long userId, Integer timeTaken, Long parentSubmissionId,
+                                               String digest, String originalName) {
+        AnswerQuestion question = questionRepository.findById(questionId).orElse(null);
+        User user = userRepository.findById(userId).orElse(null);
+        if (question == null || user == null) {
+            fileStorageService.release(digest);
+            throw new RuntimeException(question == null ? "Question not found" : "User not found");
+        }
+        return saveSubmission(question, user, timeTaken, parentSubmissionId, digest, originalName);
+    }
+
+    private AnswerSubmission saveSubmission(AnswerQuestion question, User user, Integer timeTaken, Long parentSubmissionId,
+                                            String fileName, String originalName) {
         AnswerSubmission submission = new AnswerSubmission();
         submission.setQuestion(question);
         submission.setUser(user);
         submission.setTimeTakenMinutes(timeTaken);
         submission.setPdfPath(fileName);
+        submission.setOriginalName(uploadedName(originalName));
         submission.setParentSubmissionId(parentSubmissionId);
-        
-        return submissionRepository.save(submission);
+
+        try {
+            return submissionRepository.save(submission);
+        } catch (RuntimeException e) {
+            fileStorageService.release(fileName);
+            throw e;
+        }
+    }
+
+    // Browsers may send a full client path; only the last segment is kept, within the column's length
+    private static String uploadedName(String name) {
+        String base = StringUtils.getFilename(StringUtils.cleanPath(name == null ? "" : name.replace('\\', '/')));
+        if (!StringUtils.hasText(base)) return null;
+        return base.length() > 255 ? base.substring(base.length() - 255) : base;
     }
 
     public List<AnswerSubmission> getMySubmissions(Long userId) {
@@ -53,6 +93,10 @@ public class AnswerService {
                 .orElseThrow(() -> new RuntimeException("Submission not found"));
     }
 
+    public Optional<AnswerSubmission> findSubmission(Long submissionId) {
+        return submissionRepository.findById(submissionId);
+    }
+
     public AnswerReview submitReview(Long submissionId, AnswerReview review) {
         AnswerSubmission submission = getSubmission(submissionId);
         review.setSubmission(submission);
@@ -0,0 +1,335 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.UploadStatus;
+import com.walkalong.backend.entity.AnswerSubmission;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Resumable uploads for large answer scans. A client starts a session with the total size, sends
+ * fixed-size chunks in any order (and in parallel) with PUT, asks which chunks are still missing
+ * after a dropped connection, and completes the session to store the file and save the submission.
+ *
+ * Each chunk is written straight to its offset in a single file in the incoming directory with
+ * positional FileChannel writes, so chunks never need reassembling; a bitmap records which have
+ * arrived. Resending a chunk just rewrites the same bytes. Bodies are read in 64 KB pieces into a
+ * buffer of the request's own, and the session is locked only while a piece is written, so a stalled
+ * client holds up neither other uploads nor the expiry sweep. Sessions live in memory: a restart, or
+ * walkalong.uploads.session-ttl-minutes without a chunk, drops the session and its file.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger log = LoggerFactory.getLogger(ChunkedUploadService.class);
+    private static final int MIN_CHUNK = 64 * 1024;
+    private static final int MAX_CHUNK = 16 * 1024 * 1024;
+    private static final String SUFFIX = ".chunks";
+    private static final int READ_BYTES = 64 * 1024;
+
+    private final FileStorageService storage;
+    private final AnswerService answerService;
+    private final UploadPipeline uploadPipeline;
+    private final int defaultChunkSize;
+    private final int maxSessions;
+    private final Duration ttl;
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+
+    private static final class Session {
+        final String id;
+        final Long questionId;
+        final Long userId;
+        final Integer timeTaken;
+        final Long parentSubmissionId;
+        final String fileName;
+        final long size;
+        final int chunkSize;
+        final int chunkCount;
+        final Path file;
+        final FileChannel channel;
+        final BitSet received = new BitSet(); // guarded by itself
+        // Chunk writes share it; completing takes it exclusively, so no write is in flight once closed
+        final ReadWriteLock lock = new ReentrantReadWriteLock();
+        boolean closed; // guarded by lock
+        volatile long lastActivity = System.currentTimeMillis();
+
+        Session(String id, Long questionId, Long userId, Integer timeTaken, Long parentSubmissionId, String fileName,
+                long size, int chunkSize, Path file, FileChannel channel) {
+            this.id = id;
+            this.questionId = questionId;
+            this.userId = userId;
+            this.timeTaken = timeTaken;
+            this.parentSubmissionId = parentSubmissionId;
+            this.fileName = fileName;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.chunkCount = (int) ((size + chunkSize - 1) / chunkSize);
+            this.file = file;
+            this.channel = channel;
+        }
+
+        int chunkLength(int index) {
+            return (int) Math.min(chunkSize, size - (long) index * chunkSize);
+        }
+    }
+
+    public ChunkedUploadService(FileStorageService storage,
+                                AnswerService answerService,
+                                UploadPipeline uploadPipeline,
+                                @Value("${walkalong.uploads.chunk-bytes:1048576}") int defaultChunkSize,
+                                @Value("${walkalong.uploads.max-sessions:100}") int maxSessions,
+                                @Value("${walkalong.uploads.session-ttl-minutes:60}") long ttlMinutes) {
+        this.storage = storage;
+        this.answerService = answerService;
+        this.uploadPipeline = uploadPipeline;
+        this.defaultChunkSize = defaultChunkSize;
+        this.maxSessions = maxSessions;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+    }
+
+    public UploadStatus start(Long questionId, Long userId, Integer timeTaken, Long parentSubmissionId,
+                              String fileName, long size, Integer chunkSize) {
+        if (size <= 0) throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size must be positive");
+        if (size > storage.maxBytes()) throw storage.tooLarge();
+        int chunk = chunkSize != null ? chunkSize : defaultChunkSize;
+        if (chunk < MIN_CHUNK || chunk > MAX_CHUNK) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "chunkSize must be between " + MIN_CHUNK + " and " + MAX_CHUNK);
+        }
+        if (sessions.size() >= maxSessions) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Too many uploads in progress");
+        }
+        String id = UUID.randomUUID().toString();
+        Path file = storage.incomingFile(id + SUFFIX);
+        try {
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            Session session = new Session(id, questionId, userId, timeTaken, parentSubmissionId, fileName, size, chunk, file, channel);
+            sessions.put(id, session);
+            return status(session);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not start upload", e);
+        }
+    }
+
+    /** Writes chunk index from body at its offset; the body must be exactly that chunk's length. */
+    public UploadStatus putChunk(String id, int index, InputStream body) throws IOException {
+        Session session = session(id);
+        if (index < 0 || index >= session.chunkCount) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Chunk index must be below " + session.chunkCount);
+        }
+        long offset = (long) index * session.chunkSize;
+        int expected = session.chunkLength(index);
+        // The client may send slowly or stall, so reads use a buffer of this request's own, and the
+        // session lock is only held for each write
+        byte[] buffer = new byte[Math.min(expected, READ_BYTES)];
+        long written = 0;
+        boolean overflow = false;
+        while (true) {
+            int filled = body.readNBytes(buffer, 0, buffer.length);
+            if (filled == 0) break;
+            overflow = written + filled > expected;
+            if (overflow) break;
+            if (index == 0 && written == 0 && !FileStorageService.isPdf(ByteBuffer.wrap(buffer, 0, filled))) {
+                throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Only PDF files are accepted");
+            }
+            write(session, ByteBuffer.wrap(buffer, 0, filled), offset + written);
+            written += filled;
+            if (filled < buffer.length) break; // end of the body
+        }
+        if (written != expected || overflow) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Chunk " + index + " must be " + expected + " bytes");
+        }
+        session.lock.readLock().lock();
+        try {
+            if (session.closed) throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload is already complete");
+            synchronized (session.received) {
+                session.received.set(index);
+            }
+            session.lastActivity = System.currentTimeMillis();
+            return status(session);
+        } finally {
+            session.lock.readLock().unlock();
+        }
+    }
+
+    // The read lock keeps the session from being completed, expired or aborted mid-write
+    private static void write(Session session, ByteBuffer data, long position) throws IOException {
+        session.lock.readLock().lock();
+        try {
+            if (session.closed) throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload is already complete");
+            while (data.hasRemaining()) {
+                position += session.channel.write(data, position);
+            }
+        } finally {
+            session.lock.readLock().unlock();
+        }
+    }
+
+    public UploadStatus status(String id) {
+        return status(session(id));
+    }
+
+    /**
+     * Stores the assembled file and saves the submission on the upload pool. Fails with 409 while
+     * chunks are missing; the session then stays open for them.
+     */
+    public CompletableFuture<AnswerSubmission> complete(String id) {
+        Session session = session(id);
+        session.lock.writeLock().lock();
+        try {
+            if (session.closed) throw new ResponseStatusException(HttpStatus.CONFLICT, "Upload is already complete");
+            if (received(session) < session.chunkCount) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Missing chunks " + missing(session));
+            }
+            session.closed = true;
+        } finally {
+            session.lock.writeLock().unlock();
+        }
+        try {
+            return uploadPipeline.run(session.size, () -> {
+                try {
+                    session.channel.force(true);
+                    session.channel.close();
+                    String digest = storage.storeAssembled(session.file);
+                    return answerService.submitStoredAnswer(session.questionId, session.userId,
+                            session.timeTaken, session.parentSubmissionId, digest, session.fileName);
+                } catch (IOException e) {
+                    throw new RuntimeException("Could not store upload", e);
+                } finally {
+                    discard(session);
+                }
+            }, () -> reopen(session));
+        } catch (RejectedExecutionException e) {
+            reopen(session);
+            throw e;
+        }
+    }
+
+    // The client can try completing again
+    private void reopen(Session session) {
+        session.lock.writeLock().lock();
+        try {
+            session.closed = false;
+            session.lastActivity = System.currentTimeMillis();
+        } finally {
+            session.lock.writeLock().unlock();
+        }
+    }
+
+    public void abort(String id) {
+        Session session = sessions.get(id);
+        if (session == null) return;
+        session.lock.writeLock().lock();
+        try {
+            session.closed = true;
+        } finally {
+            session.lock.writeLock().unlock();
+        }
+        discard(session);
+    }
+
+    /** Drops sessions without a chunk for the TTL, and incoming files nothing is writing to anymore. */
+    @Scheduled(initialDelayString = "${walkalong.uploads.session-sweep-ms:60000}",
+               fixedDelayString = "${walkalong.uploads.session-sweep-ms:60000}")
+    public void expire() {
+        expire(System.currentTimeMillis() - ttl.toMillis());
+    }
+
+    void expire(long cutoffMillis) {
+        for (Session session : sessions.values()) {
+            if (session.lastActivity < cutoffMillis) {
+                session.lock.writeLock().lock();
+                try {
+                    if (session.closed) continue; // being completed
+                    session.closed = true;
+                } finally {
+                    session.lock.writeLock().unlock();
+                }
+                discard(session);
+                log.info("Expired upload {} with {}/{} chunks", session.id, received(session), session.chunkCount);
+            }
+        }
+        Path incoming = storage.incomingFile(SUFFIX).getParent();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(incoming, Files::isRegularFile)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SUFFIX) && sessions.containsKey(name.substring(0, name.length() - SUFFIX.length()))) continue;
+                if (Files.getLastModifiedTime(file).toMillis() < cutoffMillis) Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            log.warn("Could not clean up incoming uploads", e);
+        }
+    }
+
+    private Session session(String id) {
+        Session session = sessions.get(id);
+        if (session == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "No upload " + id);
+        return session;
+    }
+
+    private void discard(Session session) {
+        sessions.remove(session.id);
+        try {
+            session.channel.close();
+            Files.deleteIfExists(session.file); // already moved into storage after a completed upload
+        } catch (IOException e) {
+            log.warn("Could not delete upload file {}", session.file, e);
+        }
+    }
+
+    private UploadStatus status(Session session) {
+        LocalDateTime expiresAt = LocalDateTime.ofInstant(
+                Instant.ofEpochMilli(session.lastActivity).plus(ttl), ZoneId.systemDefault());
+        return new UploadStatus(session.id, session.size, session.chunkSize, session.chunkCount,
+                received(session), missing(session), expiresAt);
+    }
+
+    private static int received(Session session) {
+        synchronized (session.received) {
+            return session.received.cardinality();
+        }
+    }
+
+    private static List<UploadStatus.ChunkRange> missing(Session session) {
+        List<UploadStatus.ChunkRange> ranges = new ArrayList<>();
+        synchronized (session.received) {
+            int from = session.received.nextClearBit(0);
+            while (from < session.chunkCount) {
+                int next = session.received.nextSetBit(from);
+                int to = next < 0 || next > session.chunkCount ? session.chunkCount : next;
+                ranges.add(new UploadStatus.ChunkRange(from, to - 1));
+                from = session.received.nextClearBit(to);
+            }
+        }
+        return ranges;
+    }
+}
@@ -0,0 +1,40 @@
+package com.walkalong.backend.service;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A fixed set of direct buffers, allocated once. Borrowers block while all of them are out, so the
+ * off-heap memory used for copying uploads never exceeds count * size however many requests arrive.
+ */
+final class DirectBufferPool {
+
+    private final BlockingQueue<ByteBuffer> free;
+    private final int count;
+
+    DirectBufferPool(int count, int size) {
+        this.count = count;
+        this.free = new ArrayBlockingQueue<>(count);
+        for (int i = 0; i < count; i++) {
+            free.add(ByteBuffer.allocateDirect(size));
+        }
+    }
+
+    ByteBuffer acquire() throws InterruptedException {
+        return free.take();
+    }
+
+    void release(ByteBuffer buffer) {
+        buffer.clear();
+        free.offer(buffer);
+    }
+
+    int available() {
+        return free.size();
+    }
+
+    int count() {
+        return count;
+    }
+}
@@ -0,0 +1,164 @@
+package com.walkalong.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walkalong.backend.entity.AnswerSubmission;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.MoodEntry;
+import com.walkalong.backend.repository.AnswerSubmissionRepository;
+import com.walkalong.backend.repository.MoodRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Writes a user's full history as NDJSON or CSV straight from a forward-only query. Rows are written
+ * as they are read and the persistence context is cleared every FLUSH_EVERY rows, so memory use
+ * doesn't depend on how many rows the user has. Only the listed columns are exported.
+ */
+@Service
+public class ExportService {
+
+    public enum Kind { TASKS, MOODS, SUBMISSIONS }
+
+    public enum Format { NDJSON, CSV }
+
+    static final int FLUSH_EVERY = 500;
+
+    record Column<T>(String name, Function<T, Object> value) {}
+
+    static final List<Column<LearningTask>> TASK_COLUMNS = List.of(
+            new Column<>("id", LearningTask::getId),
+            new Column<>("title", LearningTask::getTitle),
+            new Column<>("type", LearningTask::getType),
+            new Column<>("status", LearningTask::getStatus),
+            new Column<>("assignedDate", LearningTask::getAssignedDate),
+            new Column<>("completedDate", LearningTask::getCompletedDate),
+            new Column<>("duration", LearningTask::getDuration),
+            new Column<>("points", LearningTask::getPoints),
+            new Column<>("streamId", t -> t.getStream() != null ? t.getStream().getId() : null),
+            new Column<>("streamName", t -> t.getStream() != null ? t.getStream().getName() : null));
+
+    static final List<Column<MoodEntry>> MOOD_COLUMNS = List.of(
+            new Column<>("id", MoodEntry::getId),
+            new Column<>("date", MoodEntry::getDate),
+            new Column<>("mood", MoodEntry::getMood),
+            new Column<>("notes", MoodEntry::getNotes));
+
+    static final List<Column<AnswerSubmission>> SUBMISSION_COLUMNS = List.of(
+            new Column<>("id", AnswerSubmission::getId),
+            new Column<>("questionId", s -> s.getQuestion() != null ? s.getQuestion().getId() : null),
+            new Column<>("questionSubject", s -> s.getQuestion() != null ? s.getQuestion().getSubject() : null),
+            new Column<>("questionTopic", s -> s.getQuestion() != null ? s.getQuestion().getTopic() : null),
+            new Column<>("status", AnswerSubmission::getStatus),
+            new Column<>("timeTakenMinutes", AnswerSubmission::getTimeTakenMinutes),
+            new Column<>("submittedAt", AnswerSubmission::getSubmittedAt),
+            new Column<>("parentSubmissionId", AnswerSubmission::getParentSubmissionId),
+            new Column<>("pdfPath", AnswerSubmission::getPdfPath),
+            new Column<>("originalName", AnswerSubmission::getOriginalName));
+
+    private final TaskRepository taskRepository;
+    private final MoodRepository moodRepository;
+    private final AnswerSubmissionRepository submissionRepository;
+    private final ObjectMapper objectMapper;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ExportService(TaskRepository taskRepository,
+                         MoodRepository moodRepository,
+                         AnswerSubmissionRepository submissionRepository,
+                         ObjectMapper objectMapper) {
+        this.taskRepository = taskRepository;
+        this.moodRepository = moodRepository;
+        this.submissionRepository = submissionRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public void export(Kind kind, Format format, Long userId, OutputStream out) throws IOException {
+        switch (kind) {
+            case TASKS -> {
+                try (Stream<LearningTask> rows = taskRepository.streamByUserId(userId)) {
+                    write(rows, TASK_COLUMNS, format, out, entityManager::clear);
+                }
+            }
+            case MOODS -> {
+                try (Stream<MoodEntry> rows = moodRepository.streamByUserId(userId)) {
+                    write(rows, MOOD_COLUMNS, format, out, entityManager::clear);
+                }
+            }
+            case SUBMISSIONS -> {
+                try (Stream<AnswerSubmission> rows = submissionRepository.streamByUserId(userId)) {
+                    write(rows, SUBMISSION_COLUMNS, format, out, entityManager::clear);
+                }
+            }
+        }
+    }
+
+    <T> void write(Stream<T> rows, List<Column<T>> columns, Format format, OutputStream out, Runnable detach) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        JsonGenerator json = format == Format.NDJSON ? objectMapper.getFactory().createGenerator(writer) : null;
+        if (json != null) {
+            json.setRootValueSeparator(null);
+        } else {
+            writeCsvLine(writer, columns.stream().map(Column::name).map(n -> (Object) n).toList());
+        }
+
+        long count = 0;
+        Iterator<T> it = rows.iterator();
+        while (it.hasNext()) {
+            T row = it.next();
+            if (json != null) {
+                json.writeStartObject();
+                for (Column<T> column : columns) {
+                    Object value = column.value().apply(row);
+                    json.writeFieldName(column.name());
+                    if (value == null) json.writeNull();
+                    else if (value instanceof Number n) json.writeNumber(n.longValue());
+                    else json.writeString(value.toString());
+                }
+                json.writeEndObject();
+                json.flush();
+                writer.write('\n');
+            } else {
+                writeCsvLine(writer, columns.stream().map(c -> c.value().apply(row)).toList());
+            }
+            if (++count % FLUSH_EVERY == 0) {
+                detach.run();
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    private static void writeCsvLine(Writer writer, List<Object> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) writer.write(',');
+            Object value = values.get(i);
+            if (value == null) continue;
+            String s = value.toString();
+            if (s.indexOf(',') >= 0 || s.indexOf('"') >= 0 || s.indexOf('\n') >= 0 || s.indexOf('\r') >= 0) {
+                writer.write('"');
+                writer.write(s.replace("\"", "\"\""));
+                writer.write('"');
+            } else {
+                writer.write(s);
+            }
+        }
+        writer.write("\r\n");
+    }
+}
@@ -1,37 +1,466 @@
 package com.walkalong.backend.service;
 
+import com.walkalong.backend.repository.StoredBlobRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
+/**
+ * Content-addressed storage for uploaded answer files. An upload is hashed (SHA-256) while it is
+ * streamed to a temp file, then kept under its digest; a second upload of the same bytes only
+ * bumps the blob's reference count and the temp file is dropped. Submissions store the digest.
+ * Only PDFs up to walkalong.uploads.max-bytes are accepted.
+ *
+ * Counts are bumped before the submission row is written, so a failed save can leave a count too
+ * high; the GC sweep first resets the counts of settled blobs from the submissions table, then
+ * deletes blobs nothing points at. Files stored by name before digests (UUID_name) are served as
+ * before and never collected.
+ *
+ * Files are spread over two levels of directories named after the first four hex digits of their
+ * digest (or of the SHA-256 of their name), which keeps every directory small at millions of files.
+ * Files from the earlier flat layout are found there until UploadLayoutMigration moves them.
+ *
+ * Recently downloaded files up to walkalong.uploads.hot-cache-max-file-bytes are kept in a HotFileCache
+ * bounded by walkalong.uploads.hot-cache-bytes; 0 turns it off. A download that misses the cache is
+ * served from disk as usual, and the file is loaded into the cache in the background for next time.
+ */
 @Service
 public class FileStorageService {
-    private final String uploadDir = "uploads/answers";
 
-    public FileStorageService() {
+    private static final Logger log = LoggerFactory.getLogger(FileStorageService.class);
+    private static final Pattern DIGEST = Pattern.compile("[0-9a-f]{64}");
+    private static final int GC_BATCH = 500;
+    private static final byte[] PDF_MAGIC = {'%', 'P', 'D', 'F', '-'};
+
+    /** What a download needs to know about a stored file without opening it. */
+    public record StoredFile(Path path, String name, long size, long lastModified, String etag) {}
+
+    private final Path uploadDir;
+    private final Path incomingDir;
+    private final StoredBlobRepository blobRepository;
+    private final Duration gcGrace;
+    private final long maxBytes;
+    private final DirectBufferPool buffers;
+    private final HotFileCache hotFiles;
+    // Fills the hot file cache after misses; a full queue just means those files are loaded on a later miss
+    private final ThreadPoolExecutor hotFileLoader = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(16), r -> {
+                Thread thread = new Thread(r, "hot-file-loader");
+                thread.setDaemon(true);
+                return thread;
+            });
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    // Serialises placing a blob's file and counting it against the GC deleting both
+    private final Object[] stripes = new Object[64];
+
+    public FileStorageService(StoredBlobRepository blobRepository,
+                              @Value("${walkalong.uploads.dir:uploads/answers}") String uploadDir,
+                              @Value("${walkalong.uploads.gc-grace-minutes:60}") long gcGraceMinutes,
+                              @Value("${walkalong.uploads.max-bytes:52428800}") long maxBytes,
+                              @Value("${walkalong.uploads.buffers:8}") int bufferCount,
+                              @Value("${walkalong.uploads.buffer-kb:64}") int bufferKb,
+                              @Value("${walkalong.uploads.hot-cache-bytes:67108864}") long hotCacheBytes,
+                              @Value("${walkalong.uploads.hot-cache-max-file-bytes:8388608}") long hotCacheMaxFileBytes) {
+        this.blobRepository = blobRepository;
+        this.maxBytes = maxBytes;
+        this.buffers = new DirectBufferPool(bufferCount, bufferKb * 1024);
+        this.hotFiles = new HotFileCache(hotCacheBytes, hotCacheMaxFileBytes);
+        this.uploadDir = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.incomingDir = this.uploadDir.resolve(".incoming");
+        this.gcGrace = Duration.ofMinutes(gcGraceMinutes);
+        for (int i = 0; i < stripes.length; i++) stripes[i] = new Object();
         try {
-            Files.createDirectories(Paths.get(uploadDir));
+            Files.createDirectories(this.incomingDir);
         } catch (IOException e) {
             throw new RuntimeException("Could not initialize storage", e);
         }
     }
 
+    /**
+     * Stores the upload, or takes another reference to an identical earlier one; returns its digest.
+     * The body is copied through a pooled direct buffer into a temp file, checking the PDF header and
+     * the size limit as it goes, hashed on the way, forced to disk and only then moved into place, so
+     * a submission row written after this returns always points at a complete, durable file.
+     */
     public String storeFile(MultipartFile file) {
+        if (file.getSize() > maxBytes) throw tooLarge();
+        Path temp = null;
+        ByteBuffer buffer = null;
         try {
-            String fileName = UUID.randomUUID().toString() + "_" + file.getOriginalFilename();
-            Path targetLocation = Paths.get(uploadDir).resolve(fileName);
-            Files.copy(file.getInputStream(), targetLocation);
-            return fileName;
+            buffer = buffers.acquire();
+            temp = Files.createTempFile(incomingDir, "upload", ".part");
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            long size = 0;
+            try (ReadableByteChannel in = Channels.newChannel(file.getInputStream());
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                boolean eof = false;
+                while (!eof) {
+                    eof = in.read(buffer) < 0;
+                    if (buffer.hasRemaining() && !eof) continue;
+                    buffer.flip();
+                    if (size == 0 && !isPdf(buffer)) {
+                        throw new ResponseStatusException(HttpStatus.UNSUPPORTED_MEDIA_TYPE, "Only PDF files are accepted");
+                    }
+                    size += buffer.remaining();
+                    if (size > maxBytes) throw tooLarge();
+                    sha256.update(buffer.duplicate());
+                    while (buffer.hasRemaining()) out.write(buffer);
+                    buffer.clear();
+                }
+                out.force(true);
+            }
+            String digest = HexFormat.of().formatHex(sha256.digest());
+            place(temp, digest, size);
+            temp = null;
+            return digest;
         } catch (IOException e) {
             throw new RuntimeException("Could not store file", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while storing file", e);
+        } finally {
+            if (buffer != null) buffers.release(buffer);
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    // left for the next cleanup of the incoming directory
+                }
+            }
+        }
+    }
+
+    /**
+     * Like storeFile for a file already assembled and forced to disk in the incoming directory, e.g.
+     * by ChunkedUploadService; the file is moved into storage or deleted as a duplicate.
+     */
+    String storeAssembled(Path assembled) {
+        ByteBuffer buffer = null;
+        try (FileChannel in = FileChannel.open(assembled, StandardOpenOption.READ)) {
+            long size = in.size();
+            if (size > maxBytes) throw tooLarge();
+            buffer = buffers.acquire();
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            while (in.read(buffer) >= 0) {
+                buffer.flip();
+                sha256.update(buffer);
+                buffer.clear();
+            }
+            String digest = HexFormat.of().formatHex(sha256.digest());
+            place(assembled, digest, size);
+            return digest;
+        } catch (IOException e) {
+            throw new RuntimeException("Could not store file", e);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while storing file", e);
+        } finally {
+            if (buffer != null) buffers.release(buffer);
+        }
+    }
+
+    // Moves a complete temp file into its shard, or drops it if the blob exists, and counts the reference
+    private void place(Path temp, String digest, long size) throws IOException {
+        synchronized (stripe(digest)) {
+            if (Files.exists(getFilePath(digest))) {
+                Files.delete(temp);
+            } else {
+                Path target = shardPath(digest);
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                forceDirectory(target.getParent());
+            }
+            acquire(digest, size);
         }
     }
 
+    /** A path in the incoming directory, on the same file system as storage so it can be moved in. */
+    Path incomingFile(String name) {
+        return incomingDir.resolve(name);
+    }
+
+    long maxBytes() {
+        return maxBytes;
+    }
+
+    /** Drops a reference taken by storeFile, e.g. when the submission using it couldn't be saved. */
+    public void release(String digest) {
+        if (isDigest(digest)) blobRepository.release(digest, LocalDateTime.now());
+    }
+
+    /**
+     * Where a stored file is: its shard directory, or the flat directory for files not yet moved
+     * by UploadLayoutMigration. Names that exist in neither resolve to the shard.
+     */
     public Path getFilePath(String fileName) {
-        return Paths.get(uploadDir).resolve(fileName);
+        Path sharded = shardPath(fileName);
+        if (Files.exists(sharded)) return sharded;
+        Path legacy = uploadDir.resolve(fileName);
+        return Files.exists(legacy) ? legacy : sharded;
+    }
+
+    // uploadDir/ab/cd/name, where abcd starts the digest, or the SHA-256 of a name that isn't one
+    Path shardPath(String fileName) {
+        if (fileName.isEmpty() || fileName.equals(".") || fileName.equals("..")
+                || fileName.indexOf('/') >= 0 || fileName.indexOf('\\') >= 0) {
+            throw new IllegalArgumentException("Invalid file name: " + fileName);
+        }
+        String key = isDigest(fileName) ? fileName : sha256(fileName);
+        return uploadDir.resolve(key.substring(0, 2)).resolve(key.substring(2, 4)).resolve(fileName);
+    }
+
+    /** Regular files still in the flat directory, for UploadLayoutMigration. */
+    DirectoryStream<Path> legacyFiles() throws IOException {
+        return Files.newDirectoryStream(uploadDir, Files::isRegularFile);
+    }
+
+    /**
+     * Moves a file from the flat directory into its shard with an atomic rename, so readers see it
+     * in one place or the other. Returns false if there was nothing to move or the name is taken.
+     */
+    boolean moveToShard(Path legacy) throws IOException {
+        String name = legacy.getFileName().toString();
+        Path target = shardPath(name);
+        Files.createDirectories(target.getParent());
+        // Blobs are also created and collected under their stripe
+        synchronized (isDigest(name) ? stripe(name) : legacy) {
+            if (!Files.isRegularFile(legacy)) return false;
+            if (Files.exists(target)) {
+                if (!isDigest(name)) return false;
+                Files.delete(legacy); // same digest, same bytes
+                return true;
+            }
+            Files.move(legacy, target, StandardCopyOption.ATOMIC_MOVE);
+            return true;
+        }
+    }
+
+    /**
+     * Size, modification time and an ETag for a stored file, or empty if there is none. Blobs are
+     * tagged with their digest; files stored by name are never rewritten in place, so size and
+     * modification time identify them for their lifetime.
+     */
+    public Optional<StoredFile> stat(String fileName) {
+        Path path = getFilePath(fileName);
+        try {
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            } catch (NoSuchFileException e) {
+                // Moved into its shard since we looked
+                path = getFilePath(fileName);
+                attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            }
+            if (!attributes.isRegularFile()) return Optional.empty();
+            long lastModified = attributes.lastModifiedTime().toMillis();
+            String etag = isDigest(fileName)
+                    ? "\"" + fileName + "\""
+                    : "\"" + Long.toHexString(attributes.size()) + "-" + Long.toHexString(lastModified) + "\"";
+            return Optional.of(new StoredFile(path, fileName, attributes.size(), lastModified, etag));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new RuntimeException("Could not read file attributes", e);
+        }
+    }
+
+    /**
+     * Writes count bytes of the file starting at position to target: from the hot file cache on a hit,
+     * and otherwise through FileChannel.transferTo, which lets the kernel move the bytes when target is
+     * a socket or file channel. A miss queues the file to be cached.
+     */
+    public long transfer(StoredFile file, long position, long count, WritableByteChannel target) throws IOException {
+        boolean cacheable = hotFiles.admits(file.size());
+        if (cacheable) {
+            HotFileCache.Entry entry = hotFiles.get(file);
+            if (entry != null) {
+                try {
+                    return hotFiles.write(entry, position, count, target);
+                } finally {
+                    hotFiles.release(entry);
+                }
+            }
+            cacheLater(file);
+        }
+        try (FileChannel channel = open(file)) {
+            long sent = 0;
+            while (sent < count) {
+                long n = channel.transferTo(position + sent, count - sent, target);
+                if (n <= 0) break; // the file was truncated underneath us
+                sent += n;
+            }
+            hotFiles.servedFromDisk(sent);
+            return sent;
+        }
+    }
+
+    /**
+     * Whether transfer would serve this file from memory, in which case there's no point in sendfile.
+     * Otherwise the download counts as a miss, and the file is queued to be cached if it fits.
+     */
+    public boolean servesFromMemory(StoredFile file) {
+        if (!hotFiles.admits(file.size())) return false;
+        if (hotFiles.contains(file)) return true;
+        hotFiles.missed();
+        cacheLater(file);
+        return false;
+    }
+
+    private void cacheLater(StoredFile file) {
+        if (!loading.add(file.name())) return; // already queued
+        try {
+            hotFileLoader.execute(() -> {
+                try (FileChannel channel = open(file)) {
+                    HotFileCache.Entry entry = hotFiles.load(file, channel);
+                    if (entry != null) hotFiles.release(entry);
+                } catch (IOException e) {
+                    log.debug("Could not cache {}", file.name(), e); // e.g. deleted since; the next miss retries
+                } finally {
+                    loading.remove(file.name());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loading.remove(file.name());
+        }
+    }
+
+    private FileChannel open(StoredFile file) throws IOException {
+        try {
+            return FileChannel.open(file.path(), StandardOpenOption.READ);
+        } catch (NoSuchFileException e) {
+            return FileChannel.open(getFilePath(file.name()), StandardOpenOption.READ);
+        }
+    }
+
+    @PreDestroy
+    public void stopCaching() {
+        hotFileLoader.shutdownNow();
+    }
+
+    /** Hit ratio, bytes served and memory use of the hot file cache. */
+    public Map<String, Object> hotFileStats() {
+        return hotFiles.stats();
+    }
+
+    @Scheduled(initialDelayString = "${walkalong.uploads.gc-interval-ms:3600000}",
+               fixedDelayString = "${walkalong.uploads.gc-interval-ms:3600000}")
+    public void collectGarbage() {
+        int deleted = collectGarbage(LocalDateTime.now().minus(gcGrace));
+        if (deleted > 0) log.info("Deleted {} unreferenced upload blobs", deleted);
+    }
+
+    /** Deletes blobs untouched since cutoff that no submission references; returns how many. */
+    int collectGarbage(LocalDateTime cutoff) {
+        blobRepository.reconcile(cutoff);
+        int deleted = 0;
+        List<String> batch;
+        do {
+            batch = blobRepository.findUnreferenced(cutoff, Limit.of(GC_BATCH));
+            for (String digest : batch) {
+                synchronized (stripe(digest)) {
+                    // Conditional, so a blob acquired since the query is kept
+                    if (blobRepository.deleteIfUnreferenced(digest, cutoff) == 0) continue;
+                    try {
+                        Files.deleteIfExists(shardPath(digest));
+                        Files.deleteIfExists(uploadDir.resolve(digest));
+                        hotFiles.invalidate(digest);
+                        deleted++;
+                    } catch (IOException e) {
+                        log.warn("Could not delete blob {}", digest, e);
+                    }
+                }
+            }
+        } while (batch.size() == GC_BATCH);
+        return deleted;
+    }
+
+    private void acquire(String digest, long size) {
+        LocalDateTime now = LocalDateTime.now();
+        if (blobRepository.acquire(digest, now) > 0) return;
+        try {
+            blobRepository.insert(digest, size, now);
+        } catch (DataIntegrityViolationException e) {
+            // Another instance inserted it first
+            blobRepository.acquire(digest, now);
+        }
+    }
+
+    static boolean isPdf(ByteBuffer buffer) {
+        if (buffer.remaining() < PDF_MAGIC.length) return false;
+        for (int i = 0; i < PDF_MAGIC.length; i++) {
+            if (buffer.get(buffer.position() + i) != PDF_MAGIC[i]) return false;
+        }
+        return true;
+    }
+
+    ResponseStatusException tooLarge() {
+        return new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Files are limited to " + maxBytes + " bytes");
+    }
+
+    // Makes the rename itself durable; not every platform can open a directory for this
+    private static void forceDirectory(Path directory) {
+        try (FileChannel dir = FileChannel.open(directory, StandardOpenOption.READ)) {
+            dir.force(true);
+        } catch (IOException ignored) {
+            // best effort
+        }
+    }
+
+    private Object stripe(String digest) {
+        return stripes[Math.floorMod(digest.hashCode(), stripes.length)];
+    }
+
+    private static String sha256(String text) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isDigest(String name) {
+        return name != null && DIGEST.matcher(name).matches();
     }
 }
@@ -0,0 +1,152 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.entity.FocusSession;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.repository.FocusSessionRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Focus sessions with write-behind heartbeats. A heartbeat only moves the session's latest-beat
+ * timestamp forward in memory (a CAS, no lock and no database call); every flush interval the
+ * buffered timestamps are swapped out and written with one JDBC batch, so a session costs at most
+ * one UPDATE per interval however often its client beats. Beats are "latest wins", so one that
+ * races a flush and is dropped is superseded by the next.
+ *
+ * Loss bounds: buffered beats are flushed on graceful shutdown. If the process dies, each open
+ * session loses at most one flush interval of heartbeat progress, and is later closed at its last
+ * persisted beat. Open sessions whose beats stop for longer than the idle timeout are closed the
+ * same way, so an abandoned tab doesn't keep counting.
+ */
+@Service
+public class FocusSessionService {
+
+    static final String FLUSH_SQL = "UPDATE focus_sessions SET last_heartbeat_at = ? " +
+            "WHERE id = ? AND ended_at IS NULL AND last_heartbeat_at < ?";
+
+    private final FocusSessionRepository sessionRepository;
+    private final TaskRepository taskRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration idleTimeout;
+
+    private final Map<Long, AtomicReference<LocalDateTime>> pending = new ConcurrentHashMap<>();
+    // Sessions known to be open, so heartbeats don't have to check the database
+    private final Set<Long> open = ConcurrentHashMap.newKeySet();
+
+    public FocusSessionService(FocusSessionRepository sessionRepository,
+                               TaskRepository taskRepository,
+                               JdbcTemplate jdbcTemplate,
+                               @Value("${walkalong.focus.idle-timeout-seconds:120}") long idleTimeoutSeconds) {
+        this.sessionRepository = sessionRepository;
+        this.taskRepository = taskRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.idleTimeout = Duration.ofSeconds(idleTimeoutSeconds);
+    }
+
+    public FocusSession start(Long taskId) {
+        LearningTask task = taskRepository.findById(taskId).orElseThrow(() -> new RuntimeException("Task not found"));
+        LocalDateTime now = now();
+        FocusSession session = sessionRepository.save(new FocusSession(null, task.getId(),
+                task.getUser() != null ? task.getUser().getId() : null, now, now, null));
+        open.add(session.getId());
+        return session;
+    }
+
+    /** Buffers a heartbeat; false if the session doesn't exist or is already closed. */
+    public boolean heartbeat(Long sessionId) {
+        return heartbeat(sessionId, LocalDateTime.now());
+    }
+
+    boolean heartbeat(Long sessionId, LocalDateTime beatAt) {
+        LocalDateTime at = beatAt.truncatedTo(ChronoUnit.SECONDS);
+        if (!open.contains(sessionId)) {
+            // First beat since a restart, or an unknown id
+            if (!sessionRepository.existsByIdAndEndedAtIsNull(sessionId)) return false;
+            open.add(sessionId);
+        }
+        AtomicReference<LocalDateTime> latest = pending.get(sessionId);
+        if (latest == null) {
+            latest = pending.computeIfAbsent(sessionId, id -> new AtomicReference<>(at));
+        }
+        latest.accumulateAndGet(at, (a, b) -> a.isAfter(b) ? a : b);
+        return true;
+    }
+
+    @Transactional
+    public FocusSession stop(Long sessionId) {
+        FocusSession session = sessionRepository.findById(sessionId)
+                .orElseThrow(() -> new RuntimeException("Focus session not found"));
+        open.remove(sessionId);
+        pending.remove(sessionId);
+        if (session.getEndedAt() == null) {
+            LocalDateTime now = now();
+            session.setLastHeartbeatAt(now);
+            session.setEndedAt(now);
+        }
+        return session;
+    }
+
+    /** Persisted sessions; an open one's time may trail its latest heartbeat by one flush interval. */
+    public List<FocusSession> getSessions(Long taskId) {
+        return sessionRepository.findByTaskIdOrderByStartedAtDesc(taskId);
+    }
+
+    // Whole seconds, so buffered beats compare cleanly with what the database stored
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(initialDelayString = "${walkalong.focus.flush-ms:5000}",
+               fixedDelayString = "${walkalong.focus.flush-ms:5000}")
+    public void flush() {
+        flush(LocalDateTime.now());
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    /** Writes buffered heartbeats in one batch, then closes idle sessions; returns the beats written. */
+    int flush(LocalDateTime now) {
+        List<Object[]> batch = new ArrayList<>();
+        for (Long sessionId : pending.keySet()) {
+            AtomicReference<LocalDateTime> latest = pending.remove(sessionId);
+            if (latest != null) {
+                Timestamp at = Timestamp.valueOf(latest.get());
+                batch.add(new Object[]{at, sessionId, at});
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(FLUSH_SQL, batch);
+        }
+
+        // Runs after the batch so a session whose beats were only buffered isn't closed early
+        List<Long> idle = sessionRepository.findIdleIds(now.minus(idleTimeout));
+        if (!idle.isEmpty()) {
+            sessionRepository.closeAtLastHeartbeat(idle);
+            idle.forEach(open::remove);
+        }
+        return batch.size();
+    }
+}
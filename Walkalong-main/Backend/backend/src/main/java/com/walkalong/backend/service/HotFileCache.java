@@ -0,0 +1,230 @@
+package com.walkalong.backend.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recently downloaded files held in memory, so reopening the same few PDFs during a review doesn't
+ * go back to disk. Files are copied into 64 KB direct buffers taken from a pool that never grows past
+ * budgetBytes; when a new file needs room the least recently served files are evicted and their
+ * buffers reused. Only files up to maxFileBytes are cached, so one large scan can't flush the rest.
+ *
+ * Entries are looked up by stored name and only used while the file's size and modification time
+ * still match, so a file replaced on disk is reloaded rather than served stale. A download pins the
+ * entry it reads from, and pinned entries are not evicted to make room; one that is invalidated or
+ * replaced mid-download hands its buffers back once that download ends.
+ */
+final class HotFileCache {
+
+    static final int SEGMENT = 64 * 1024;
+
+    private final long budgetBytes;
+    private final long maxFileBytes;
+    private final int segmentLimit;
+
+    // Guarded by this; evicted by bytes rather than by count, hence no removeEldestEntry
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final ArrayDeque<ByteBuffer> free = new ArrayDeque<>();
+    private int allocated;
+    private long cachedBytes;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder bytesFromMemory = new LongAdder();
+    private final LongAdder bytesFromDisk = new LongAdder();
+
+    HotFileCache(long budgetBytes, long maxFileBytes) {
+        this.budgetBytes = budgetBytes;
+        this.segmentLimit = (int) Math.min(Integer.MAX_VALUE, budgetBytes / SEGMENT);
+        this.maxFileBytes = Math.min(maxFileBytes, (long) segmentLimit * SEGMENT);
+    }
+
+    /** Whether a file of this size is small enough to be cached at all. */
+    boolean admits(long size) {
+        return size > 0 && size <= maxFileBytes;
+    }
+
+    /** Whether a current copy of file is cached. Unlike get, it doesn't pin the entry or count a hit. */
+    synchronized boolean contains(FileStorageService.StoredFile file) {
+        Entry entry = entries.get(file.name());
+        return entry != null && entry.size == file.size() && entry.lastModified == file.lastModified();
+    }
+
+    /** Counts a miss for a download that didn't go through get. */
+    void missed() {
+        misses.increment();
+    }
+
+    /** The cached copy of file, pinned until release, or null if it isn't cached or is stale. */
+    synchronized Entry get(FileStorageService.StoredFile file) {
+        Entry entry = entries.get(file.name());
+        if (entry != null && entry.size == file.size() && entry.lastModified == file.lastModified()) {
+            hits.increment();
+            entry.pins++;
+            return entry;
+        }
+        if (entry != null) remove(file.name());
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Reads file from channel into pooled buffers and caches it; returns the entry pinned until
+     * release, or null if it's too large or the buffers it needs are still in use by downloads.
+     */
+    Entry load(FileStorageService.StoredFile file, FileChannel channel) throws IOException {
+        if (!admits(file.size())) return null;
+        ByteBuffer[] segments = reserve((int) ((file.size() + SEGMENT - 1) / SEGMENT));
+        if (segments == null) return null;
+        Entry entry = new Entry(file.name(), file.size(), file.lastModified(), segments);
+        try {
+            for (int i = 0; i < segments.length; i++) {
+                ByteBuffer segment = segments[i];
+                segment.limit(entry.length(i));
+                while (segment.hasRemaining()) {
+                    if (channel.read(segment, (long) i * SEGMENT + segment.position()) < 0) {
+                        giveBack(segments); // truncated since it was stat'ed
+                        return null;
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            giveBack(segments);
+            throw e;
+        }
+        synchronized (this) {
+            remove(entry.name);
+            entries.put(entry.name, entry);
+            cachedBytes += entry.size;
+            entry.pins = 2; // the cache's own, and the caller's
+        }
+        return entry;
+    }
+
+    /** Writes count bytes of the cached file starting at position to target. */
+    long write(Entry entry, long position, long count, WritableByteChannel target) throws IOException {
+        long sent = 0;
+        while (sent < count) {
+            long at = position + sent;
+            int index = (int) (at / SEGMENT);
+            int offset = (int) (at % SEGMENT);
+            int end = (int) Math.min(entry.length(index), offset + (count - sent));
+            ByteBuffer slice = entry.segments[index].duplicate().limit(end).position(offset);
+            while (slice.hasRemaining()) {
+                sent += target.write(slice);
+            }
+        }
+        bytesFromMemory.add(sent);
+        return sent;
+    }
+
+    synchronized void release(Entry entry) {
+        unpin(entry);
+    }
+
+    /** Drops the cached copy of a file, e.g. once it's deleted. */
+    synchronized void invalidate(String name) {
+        remove(name);
+    }
+
+    void servedFromDisk(long bytes) {
+        bytesFromDisk.add(bytes);
+    }
+
+    Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        synchronized (this) {
+            stats.put("files", entries.size());
+            stats.put("cachedBytes", cachedBytes);
+            stats.put("allocatedBytes", (long) allocated * SEGMENT);
+        }
+        stats.put("budgetBytes", budgetBytes);
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        stats.put("bytesServedFromMemory", bytesFromMemory.sum());
+        stats.put("bytesServedFromDisk", bytesFromDisk.sum());
+        return stats;
+    }
+
+    // Takes count buffers, evicting least recently used files until enough are free. Files that are
+    // being downloaded are skipped, since evicting them frees nothing until the download ends; if the
+    // idle ones can't make room either, nothing is evicted and the caller serves from disk.
+    private synchronized ByteBuffer[] reserve(int count) {
+        int available = free.size() + (segmentLimit - allocated);
+        if (available < count) {
+            int idle = 0;
+            for (Entry entry : entries.values()) {
+                if (entry.pins == 1) idle += entry.segments.length;
+            }
+            if (available + idle < count) return null;
+        }
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (free.size() + (segmentLimit - allocated) < count) {
+            Entry entry = eldest.next();
+            if (entry.pins > 1) continue;
+            eldest.remove();
+            cachedBytes -= entry.size;
+            evictions.increment();
+            unpin(entry);
+        }
+        ByteBuffer[] segments = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            ByteBuffer segment = free.poll();
+            if (segment == null) {
+                segment = ByteBuffer.allocateDirect(SEGMENT);
+                allocated++;
+            }
+            segments[i] = segment;
+        }
+        return segments;
+    }
+
+    private synchronized void giveBack(ByteBuffer[] segments) {
+        for (ByteBuffer segment : segments) {
+            segment.clear();
+            free.push(segment);
+        }
+    }
+
+    private void remove(String name) {
+        Entry entry = entries.remove(name);
+        if (entry == null) return;
+        cachedBytes -= entry.size;
+        unpin(entry);
+    }
+
+    private void unpin(Entry entry) {
+        if (--entry.pins == 0) giveBack(entry.segments);
+    }
+
+    static final class Entry {
+        private final String name;
+        private final long size;
+        private final long lastModified;
+        private final ByteBuffer[] segments;
+        private int pins; // guarded by the cache
+
+        private Entry(String name, long size, long lastModified, ByteBuffer[] segments) {
+            this.name = name;
+            this.size = size;
+            this.lastModified = lastModified;
+            this.segments = segments;
+        }
+
+        private int length(int index) {
+            return (int) Math.min(SEGMENT, size - (long) index * SEGMENT);
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.SearchHit;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Inverted index with BM25 ranking. Documents get dense numbers in insertion order, so postings are
+ * parallel int arrays kept sorted just by appending. Re-indexing or removing a document only marks
+ * its old number dead; once dead numbers pile up, compact() drops them and renumbers.
+ * Not thread-safe; SearchService guards it with a read/write lock.
+ */
+final class InvertedIndex {
+
+    private static final int MAGIC = 0x57414C4B; // "WALK"
+    private static final int FORMAT = 2;
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;        // title tokens count twice
+    private static final double PREFIX_WEIGHT = 0.7;
+    private static final double FUZZY_WEIGHT = 0.5;
+    private static final int MAX_EXPANSIONS = 50;     // per query token, for prefix and fuzzy matches
+    private static final int MAX_TOKEN_LENGTH = 40;
+    private static final int TITLE_LENGTH = 120;
+    private static final SearchHit.Kind[] KINDS = SearchHit.Kind.values();
+
+    private static final class Postings {
+        int[] docs = new int[2];
+        int[] freqs = new int[2];
+        int size;
+
+        void add(int doc, int freq) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                freqs = Arrays.copyOf(freqs, size * 2);
+            }
+            docs[size] = doc;
+            freqs[size] = freq;
+            size++;
+        }
+    }
+
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Long, Integer> docNumbers = new HashMap<>(); // key(kind, id) -> live doc number
+
+    // Per doc number, including dead ones until the next compaction
+    private byte[] kinds = new byte[16];
+    private long[] ids = new long[16];
+    private int[] lengths = new int[16];
+    private String[] titles = new String[16];
+    private final BitSet dead = new BitSet();
+    private int docCount;
+    private long totalLength;
+    private long savedAt; // epoch millis, only set on an index read from a snapshot
+
+    int size() {
+        return docNumbers.size();
+    }
+
+    /** Adds or replaces a document; one without any tokens still counts towards the fingerprint. */
+    void put(SearchHit.Kind kind, long id, String title, String text) {
+        remove(kind, id);
+        Map<String, Integer> freqs = new HashMap<>();
+        int length = 0;
+        for (String token : tokenize(title)) {
+            freqs.merge(token, TITLE_WEIGHT, Integer::sum);
+            length += TITLE_WEIGHT;
+        }
+        for (String token : tokenize(text)) {
+            freqs.merge(token, 1, Integer::sum);
+            length++;
+        }
+
+        int doc = docCount++;
+        if (doc == ids.length) grow();
+        kinds[doc] = (byte) kind.ordinal();
+        ids[doc] = id;
+        lengths[doc] = length;
+        titles[doc] = excerpt(title != null && !title.isBlank() ? title : text);
+        totalLength += length;
+        docNumbers.put(key(kind, id), doc);
+        for (Map.Entry<String, Integer> e : freqs.entrySet()) {
+            terms.computeIfAbsent(e.getKey(), t -> new Postings()).add(doc, e.getValue());
+        }
+    }
+
+    boolean remove(SearchHit.Kind kind, long id) {
+        Integer doc = docNumbers.remove(key(kind, id));
+        if (doc == null) return false;
+        dead.set(doc);
+        totalLength -= lengths[doc];
+        titles[doc] = null;
+        // Compact once at least a quarter of the numbers are dead
+        if (dead.cardinality() > 1024 && dead.cardinality() * 4L > docCount) {
+            compact();
+        }
+        return true;
+    }
+
+    List<SearchHit> search(String query, int limit) {
+        int live = docNumbers.size();
+        if (live == 0) return List.of();
+        double avgLength = (double) totalLength / live;
+
+        double[] scores = new double[docCount];
+        double[] best = new double[docCount];
+        BitSet matched = new BitSet(docCount);
+        for (String token : new LinkedHashSet<>(tokenize(query))) {
+            // A document scores once per query token, by its best matching expansion
+            BitSet touched = new BitSet(docCount);
+            for (Map.Entry<String, Double> expansion : expand(token).entrySet()) {
+                Postings postings = terms.get(expansion.getKey());
+                int df = 0;
+                for (int i = 0; i < postings.size; i++) {
+                    if (!dead.get(postings.docs[i])) df++;
+                }
+                if (df == 0) continue;
+                double idf = Math.log(1 + (live - df + 0.5) / (df + 0.5));
+                for (int i = 0; i < postings.size; i++) {
+                    int doc = postings.docs[i];
+                    if (dead.get(doc)) continue;
+                    int tf = postings.freqs[i];
+                    double norm = tf + K1 * (1 - B + B * lengths[doc] / avgLength);
+                    double score = expansion.getValue() * idf * tf * (K1 + 1) / norm;
+                    if (score > best[doc]) best[doc] = score;
+                    touched.set(doc);
+                }
+            }
+            for (int doc = touched.nextSetBit(0); doc >= 0; doc = touched.nextSetBit(doc + 1)) {
+                scores[doc] += best[doc];
+                best[doc] = 0;
+            }
+            matched.or(touched);
+        }
+
+        PriorityQueue<Integer> top = new PriorityQueue<>(limit + 1, (a, b) -> Double.compare(scores[a], scores[b]));
+        for (int doc = matched.nextSetBit(0); doc >= 0; doc = matched.nextSetBit(doc + 1)) {
+            top.add(doc);
+            if (top.size() > limit) top.poll();
+        }
+        List<SearchHit> hits = new ArrayList<>(top.size());
+        while (!top.isEmpty()) {
+            int doc = top.poll();
+            hits.add(new SearchHit(KINDS[kinds[doc]], ids[doc], titles[doc], scores[doc]));
+        }
+        hits.sort((a, b) -> Double.compare(b.score(), a.score()));
+        return hits;
+    }
+
+    /** Count and highest id of the live documents of one kind, to tell whether a snapshot is stale. */
+    long[] fingerprint(SearchHit.Kind kind) {
+        long count = 0;
+        long maxId = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (!dead.get(doc) && kinds[doc] == kind.ordinal()) {
+                count++;
+                maxId = Math.max(maxId, ids[doc]);
+            }
+        }
+        return new long[]{count, maxId};
+    }
+
+    /** When the snapshot this index was read from was written, in epoch millis; 0 if it wasn't read. */
+    long savedAt() {
+        return savedAt;
+    }
+
+    /** Drops dead document numbers. Renumbering keeps order, so postings stay sorted. */
+    void compact() {
+        if (dead.isEmpty()) return;
+        int[] renumber = new int[docCount];
+        int next = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (dead.get(doc)) {
+                renumber[doc] = -1;
+                continue;
+            }
+            renumber[doc] = next;
+            kinds[next] = kinds[doc];
+            ids[next] = ids[doc];
+            lengths[next] = lengths[doc];
+            titles[next] = titles[doc];
+            next++;
+        }
+        Arrays.fill(titles, next, docCount, null);
+        docCount = next;
+        dead.clear();
+
+        terms.values().removeIf(postings -> {
+            int kept = 0;
+            for (int i = 0; i < postings.size; i++) {
+                int doc = renumber[postings.docs[i]];
+                if (doc < 0) continue;
+                postings.docs[kept] = doc;
+                postings.freqs[kept] = postings.freqs[i];
+                kept++;
+            }
+            postings.size = kept;
+            return kept == 0;
+        });
+        docNumbers.clear();
+        for (int doc = 0; doc < docCount; doc++) {
+            docNumbers.put(key(KINDS[kinds[doc]], ids[doc]), doc);
+        }
+    }
+
+    /** Writes the index; savedAt is read back by savedAt() to tell edits made since. */
+    void write(DataOutputStream out, long savedAt) throws IOException {
+        compact();
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT);
+        out.writeLong(savedAt);
+        out.writeInt(docCount);
+        for (int doc = 0; doc < docCount; doc++) {
+            out.writeByte(kinds[doc]);
+            out.writeLong(ids[doc]);
+            out.writeInt(lengths[doc]);
+            out.writeUTF(titles[doc] != null ? titles[doc] : "");
+        }
+        out.writeInt(terms.size());
+        for (Map.Entry<String, Postings> e : terms.entrySet()) {
+            Postings postings = e.getValue();
+            out.writeUTF(e.getKey());
+            out.writeInt(postings.size);
+            for (int i = 0; i < postings.size; i++) {
+                out.writeInt(postings.docs[i]);
+                out.writeInt(postings.freqs[i]);
+            }
+        }
+    }
+
+    static InvertedIndex read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != FORMAT) {
+            throw new IOException("Not a search index snapshot");
+        }
+        InvertedIndex index = new InvertedIndex();
+        index.savedAt = in.readLong();
+        int docs = in.readInt();
+        index.kinds = new byte[Math.max(16, docs)];
+        index.ids = new long[index.kinds.length];
+        index.lengths = new int[index.kinds.length];
+        index.titles = new String[index.kinds.length];
+        for (int doc = 0; doc < docs; doc++) {
+            index.kinds[doc] = in.readByte();
+            index.ids[doc] = in.readLong();
+            index.lengths[doc] = in.readInt();
+            index.titles[doc] = in.readUTF();
+            index.totalLength += index.lengths[doc];
+            index.docNumbers.put(key(KINDS[index.kinds[doc]], index.ids[doc]), doc);
+        }
+        index.docCount = docs;
+        int termCount = in.readInt();
+        for (int t = 0; t < termCount; t++) {
+            String term = in.readUTF();
+            int size = in.readInt();
+            Postings postings = new Postings();
+            postings.docs = new int[Math.max(2, size)];
+            postings.freqs = new int[postings.docs.length];
+            for (int i = 0; i < size; i++) {
+                postings.docs[i] = in.readInt();
+                postings.freqs[i] = in.readInt();
+            }
+            postings.size = size;
+            index.terms.put(term, postings);
+        }
+        return index;
+    }
+
+    // Exact term, terms it is a prefix of, and for longer tokens terms one or two edits away
+    private Map<String, Double> expand(String token) {
+        Map<String, Double> expansions = new HashMap<>();
+        if (terms.containsKey(token)) expansions.put(token, 1.0);
+        if (token.length() >= 2) {
+            SortedMap<String, Postings> prefixed = terms.subMap(token, false, token + Character.MAX_VALUE, false);
+            for (String term : prefixed.keySet()) {
+                if (expansions.size() >= MAX_EXPANSIONS) break;
+                expansions.putIfAbsent(term, PREFIX_WEIGHT);
+            }
+        }
+        if (expansions.isEmpty() && token.length() >= 4) {
+            int maxEdits = token.length() >= 8 ? 2 : 1;
+            for (String term : terms.keySet()) {
+                if (Math.abs(term.length() - token.length()) <= maxEdits && withinEdits(token, term, maxEdits)) {
+                    expansions.put(term, FUZZY_WEIGHT);
+                    if (expansions.size() >= MAX_EXPANSIONS) break;
+                }
+            }
+        }
+        return expansions;
+    }
+
+    /** Lowercased runs of letters and digits; single characters are dropped. */
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        String lower = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                if (i - start > 1) tokens.add(lower.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH)));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // Levenshtein distance with an early exit once every cell in a row exceeds the bound
+    static boolean withinEdits(String a, String b, int maxEdits) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > maxEdits) return false;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()] <= maxEdits;
+    }
+
+    private void grow() {
+        int capacity = ids.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+    }
+
+    private static String excerpt(String text) {
+        if (text == null) return "";
+        String flat = text.strip().replaceAll("\\s+", " ");
+        return flat.length() <= TITLE_LENGTH ? flat : flat.substring(0, TITLE_LENGTH) + "…";
+    }
+
+    private static long key(SearchHit.Kind kind, long id) {
+        return id * KINDS.length + kind.ordinal();
+    }
+}
@@ -0,0 +1,136 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.NotePatch;
+import com.walkalong.backend.entity.CompressedTextConverter;
+import com.walkalong.backend.entity.NoteRevision;
+import com.walkalong.backend.entity.StreamNote;
+import com.walkalong.backend.repository.NoteRevisionRepository;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Rebuilds note text from note_revisions. A note's content column holds the text as of its
+ * snapshotVersion; every later version is a DELTA revision of edits against the one before it,
+ * with a full SNAPSHOT revision every few versions so a rebuild never replays a long chain.
+ *
+ * A DELTA is encoded as varints: the edit count, then per edit the gap from the end of the previous
+ * edit, the number of deleted UTF-16 units and the UTF-8 length of the insert, followed by its bytes.
+ */
+@Component
+class NoteHistory {
+
+    private static final CompressedTextConverter TEXT = new CompressedTextConverter();
+
+    private final NoteRevisionRepository revisionRepository;
+
+    NoteHistory(NoteRevisionRepository revisionRepository) {
+        this.revisionRepository = revisionRepository;
+    }
+
+    /** Text of the note's current version. */
+    String latest(StreamNote note) {
+        if (note.getVersion() == note.getSnapshotVersion()) return text(note);
+        return replay(text(note), revisionRepository.findRange(note.getId(), note.getSnapshotVersion(), note.getVersion()));
+    }
+
+    /** Text of an earlier or the current version, empty if the note never had that version. */
+    Optional<String> at(StreamNote note, long version) {
+        if (version < 0 || version > note.getVersion()) return Optional.empty();
+        if (version == note.getSnapshotVersion()) return Optional.of(text(note));
+        Optional<NoteRevision> snapshot = revisionRepository
+                .findFirstByNoteIdAndKindAndVersionLessThanEqualOrderByVersionDesc(note.getId(), NoteRevision.Kind.SNAPSHOT, version);
+        if (snapshot.isEmpty()) {
+            // Nothing has been written to the history yet, so the content column is the only version
+            return version == 0 && note.getSnapshotVersion() == 0 ? Optional.of(text(note)) : Optional.empty();
+        }
+        String base = TEXT.convertToEntityAttribute(snapshot.get().getData());
+        return Optional.of(replay(base, revisionRepository.findRange(note.getId(), snapshot.get().getVersion(), version)));
+    }
+
+    private static String text(StreamNote note) {
+        return note.getContent() != null ? note.getContent() : "";
+    }
+
+    static String replay(String text, List<NoteRevision> revisions) {
+        for (NoteRevision revision : revisions) {
+            text = revision.getKind() == NoteRevision.Kind.SNAPSHOT
+                    ? TEXT.convertToEntityAttribute(revision.getData())
+                    : apply(text, decode(revision.getData()));
+        }
+        return text;
+    }
+
+    static byte[] snapshot(String text) {
+        return TEXT.convertToDatabaseColumn(text);
+    }
+
+    /** Applies ascending, non-overlapping edits; throws IllegalArgumentException for anything else. */
+    static String apply(String text, List<NotePatch.Edit> edits) {
+        StringBuilder out = new StringBuilder(text.length() + 64);
+        int cursor = 0;
+        for (NotePatch.Edit edit : edits) {
+            if (edit.at() < cursor || edit.delete() < 0 || edit.at() + edit.delete() > text.length()) {
+                throw new IllegalArgumentException("Edit at " + edit.at() + " is out of order or out of range");
+            }
+            out.append(text, cursor, edit.at());
+            if (edit.insert() != null) out.append(edit.insert());
+            cursor = edit.at() + edit.delete();
+        }
+        return out.append(text, cursor, text.length()).toString();
+    }
+
+    static byte[] encode(List<NotePatch.Edit> edits) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16);
+        writeVarint(out, edits.size());
+        int cursor = 0;
+        for (NotePatch.Edit edit : edits) {
+            byte[] insert = edit.insert() != null ? edit.insert().getBytes(StandardCharsets.UTF_8) : new byte[0];
+            writeVarint(out, edit.at() - cursor);
+            writeVarint(out, edit.delete());
+            writeVarint(out, insert.length);
+            out.write(insert, 0, insert.length);
+            cursor = edit.at() + edit.delete();
+        }
+        return out.toByteArray();
+    }
+
+    static List<NotePatch.Edit> decode(byte[] data) {
+        ByteBuffer in = ByteBuffer.wrap(data);
+        int count = readVarint(in);
+        List<NotePatch.Edit> edits = new ArrayList<>(count);
+        int cursor = 0;
+        for (int i = 0; i < count; i++) {
+            int at = cursor + readVarint(in);
+            int delete = readVarint(in);
+            byte[] insert = new byte[readVarint(in)];
+            in.get(insert);
+            edits.add(new NotePatch.Edit(at, delete, new String(insert, StandardCharsets.UTF_8)));
+            cursor = at + delete;
+        }
+        return edits;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    private static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+        throw new IllegalStateException("Corrupt note delta");
+    }
+}
@@ -0,0 +1,192 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.NotePatch;
+import com.walkalong.backend.dto.NoteVersion;
+import com.walkalong.backend.dto.SearchHit;
+import com.walkalong.backend.entity.NoteRevision;
+import com.walkalong.backend.entity.StreamNote;
+import com.walkalong.backend.repository.NoteRevisionRepository;
+import com.walkalong.backend.repository.StreamNoteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Stream note writes. Autosaves arrive as edits against the version the editor last saw, and are
+ * stored as a small DELTA revision plus a conditional version bump, so a keystroke-sized change
+ * does not rewrite the whole compressed body. Every snapshotEvery versions the full text is written
+ * back to the note and to a SNAPSHOT revision, which bounds how many deltas a read has to replay.
+ *
+ * The latest text of recently edited notes is kept in a small LRU so consecutive autosaves neither
+ * read the body nor replay deltas.
+ */
+@Service
+public class NoteService {
+
+    private record Latest(long version, String title, String text) {}
+
+    private final StreamNoteRepository noteRepository;
+    private final NoteRevisionRepository revisionRepository;
+    private final NoteHistory history;
+    private final SearchService searchService;
+    private final int snapshotEvery;
+    private final Map<Long, Latest> latest;
+
+    public NoteService(StreamNoteRepository noteRepository,
+                       NoteRevisionRepository revisionRepository,
+                       NoteHistory history,
+                       SearchService searchService,
+                       @Value("${walkalong.notes.snapshot-every:20}") int snapshotEvery,
+                       @Value("${walkalong.notes.cache-size:256}") int cacheSize) {
+        this.noteRepository = noteRepository;
+        this.revisionRepository = revisionRepository;
+        this.history = history;
+        this.searchService = searchService;
+        this.snapshotEvery = snapshotEvery;
+        this.latest = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Latest> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /** The note with its content at the latest version. */
+    @Transactional(readOnly = true)
+    public Optional<StreamNote> get(Long id) {
+        return noteRepository.findById(id).map(note -> {
+            Latest cached = latest.get(id);
+            String text = cached != null && cached.version() == note.getVersion() ? cached.text() : history.latest(note);
+            return copy(note, text);
+        });
+    }
+
+    /** Text of the given version, empty if the note or that version doesn't exist. */
+    @Transactional(readOnly = true)
+    public Optional<String> getVersion(Long id, long version) {
+        return noteRepository.findById(id).flatMap(note -> history.at(note, version));
+    }
+
+    /** Creates a note, or replaces an existing note's title and full text as a new version. */
+    @Transactional
+    public StreamNote save(StreamNote note) {
+        StreamNote existing = note.getId() != null ? noteRepository.findById(note.getId()).orElse(null) : null;
+        if (existing == null) {
+            note.setId(null);
+            note.setVersion(0);
+            note.setSnapshotVersion(0);
+            StreamNote saved = noteRepository.save(note);
+            AfterCommit.run(() -> indexed(saved.getId(), 0, saved));
+            return saved;
+        }
+        String text = note.getContent() != null ? note.getContent() : "";
+        long version = existing.getVersion() + 1;
+        if (existing.getVersion() == 0) recordBase(existing.getId(), existing.getContent() != null ? existing.getContent() : "");
+        revisionRepository.save(revision(existing.getId(), version, NoteRevision.Kind.SNAPSHOT, NoteHistory.snapshot(text)));
+        existing.setTitle(note.getTitle());
+        if (note.getStream() != null) existing.setStream(note.getStream());
+        existing.setContent(text);
+        existing.setVersion(version);
+        existing.setSnapshotVersion(version);
+        StreamNote saved = noteRepository.save(existing);
+        AfterCommit.run(() -> indexed(saved.getId(), version, saved));
+        return saved;
+    }
+
+    /**
+     * Applies an autosave, returning empty if there is no such note. Throws
+     * ObjectOptimisticLockingFailureException when baseVersion is no longer the latest and
+     * IllegalArgumentException for malformed edits.
+     */
+    @Transactional
+    public Optional<NoteVersion> patch(Long id, long baseVersion, List<NotePatch.Edit> edits) {
+        Latest cached = latest.get(id);
+        if (cached != null && cached.version() > baseVersion) throw stale(id);
+
+        String title;
+        String text;
+        if (cached != null && cached.version() == baseVersion) {
+            title = cached.title();
+            text = cached.text();
+        } else {
+            StreamNote note = noteRepository.findById(id).orElse(null);
+            if (note == null) return Optional.empty();
+            if (note.getVersion() != baseVersion) throw stale(id);
+            title = note.getTitle();
+            text = history.latest(note);
+        }
+
+        String updated = NoteHistory.apply(text, edits);
+        long version = baseVersion + 1;
+        int size = updated.getBytes(StandardCharsets.UTF_8).length;
+        LocalDateTime now = LocalDateTime.now();
+        // The version check and bump are one statement, so of two saves from the same base only one wins
+        if (noteRepository.advanceVersion(id, baseVersion, version, size, now) == 0) {
+            if (!noteRepository.existsById(id)) return Optional.empty();
+            throw stale(id);
+        }
+
+        if (baseVersion == 0) recordBase(id, text);
+        if (version % snapshotEvery == 0) {
+            revisionRepository.save(revision(id, version, NoteRevision.Kind.SNAPSHOT, NoteHistory.snapshot(updated)));
+            noteRepository.writeSnapshot(id, updated, version);
+        } else {
+            revisionRepository.save(revision(id, version, NoteRevision.Kind.DELTA, NoteHistory.encode(edits)));
+        }
+
+        StreamNote indexed = new StreamNote(id, title, updated, null);
+        AfterCommit.run(() -> indexed(id, version, indexed));
+        return Optional.of(new NoteVersion(id, version, size, now));
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        revisionRepository.deleteAllByNoteId(id);
+        noteRepository.deleteById(id);
+        AfterCommit.run(() -> {
+            latest.remove(id);
+            searchService.remove(SearchHit.Kind.NOTE, id);
+        });
+    }
+
+    /** Drops cached text for notes removed in bulk, e.g. with their stream. */
+    public void evict(List<Long> ids) {
+        ids.forEach(latest::remove);
+    }
+
+    private void indexed(Long id, long version, StreamNote note) {
+        latest.merge(id, new Latest(version, note.getTitle(), note.getContent() != null ? note.getContent() : ""),
+                (old, fresh) -> old.version() > fresh.version() ? old : fresh);
+        searchService.indexNote(note);
+    }
+
+    // A note changed for the first time has version 0 only in its content column, which is about to move on
+    private void recordBase(Long id, String text) {
+        revisionRepository.save(revision(id, 0, NoteRevision.Kind.SNAPSHOT, NoteHistory.snapshot(text)));
+    }
+
+    private static NoteRevision revision(Long noteId, long version, NoteRevision.Kind kind, byte[] data) {
+        return new NoteRevision(null, noteId, version, kind, data, LocalDateTime.now());
+    }
+
+    private static ObjectOptimisticLockingFailureException stale(Long id) {
+        return new ObjectOptimisticLockingFailureException(StreamNote.class, id);
+    }
+
+    private static StreamNote copy(StreamNote note, String text) {
+        StreamNote copy = new StreamNote(note.getId(), note.getTitle(), text, note.getStream());
+        copy.setContentSize(note.getContentSize());
+        copy.setUpdatedAt(note.getUpdatedAt());
+        copy.setVersion(note.getVersion());
+        return copy;
+    }
+}
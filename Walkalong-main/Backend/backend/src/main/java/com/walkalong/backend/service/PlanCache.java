@@ -0,0 +1,199 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.TaskStatusChange;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskType;
+import com.walkalong.backend.repository.TaskRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-user, day-bucketed view of plan tasks. A user's tasks are loaded once on first access and
+ * then kept current by TaskController through put/remove instead of re-reading the table.
+ * At most maxUsers plans are kept; the least recently used one is evicted first.
+ */
+@Component
+public class PlanCache {
+
+    private final TaskRepository taskRepository;
+    private final Map<Long, UserPlan> plans;
+
+    // Bumped whenever a mutation can't be applied to a cached plan, so a concurrent load
+    // that read the table before that mutation committed won't install a stale plan
+    private final AtomicLong epoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public PlanCache(TaskRepository taskRepository,
+                     @Value("${walkalong.plan-cache.max-users:1000}") int maxUsers) {
+        this.taskRepository = taskRepository;
+        this.plans = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, UserPlan> eldest) {
+                if (size() > maxUsers) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        });
+    }
+
+    /** Tasks of the given type assigned in [from, to), ordered by assigned date then id. */
+    public List<LearningTask> getTasks(Long userId, TaskType type, LocalDate from, LocalDate to) {
+        return planFor(userId).range(type, from, to);
+    }
+
+    public void put(LearningTask task) {
+        if (task.getUser() == null || task.getUser().getId() == null) return;
+        UserPlan plan;
+        synchronized (plans) {
+            plan = plans.get(task.getUser().getId());
+            if (plan == null) epoch.incrementAndGet();
+        }
+        if (plan != null) plan.put(task);
+    }
+
+    /** Applies a status change to the cached copy, if the user's plan is cached and holds the task. */
+    public void apply(Long userId, TaskStatusChange change) {
+        if (userId == null) return;
+        UserPlan plan = plans.get(userId);
+        if (plan != null) plan.apply(change);
+    }
+
+    public void remove(Long taskId) {
+        List<UserPlan> cached;
+        synchronized (plans) {
+            epoch.incrementAndGet();
+            cached = new ArrayList<>(plans.values());
+        }
+        for (UserPlan plan : cached) {
+            plan.remove(taskId);
+        }
+    }
+
+    public void invalidate(Long userId) {
+        synchronized (plans) {
+            epoch.incrementAndGet();
+            plans.remove(userId);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", plans.size());
+        stats.put("hits", h);
+        stats.put("misses", m);
+        stats.put("evictions", evictions.sum());
+        stats.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        return stats;
+    }
+
+    private UserPlan planFor(Long userId) {
+        UserPlan plan = plans.get(userId);
+        if (plan != null) {
+            hits.increment();
+            return plan;
+        }
+        misses.increment();
+        long seen = epoch.get();
+        UserPlan loaded = new UserPlan();
+        for (LearningTask task : taskRepository.findByUserId(userId)) {
+            loaded.put(task);
+        }
+        // Only publish if nothing changed underneath the load; otherwise serve it once uncached
+        synchronized (plans) {
+            if (epoch.get() == seen) {
+                UserPlan existing = plans.putIfAbsent(userId, loaded);
+                if (existing != null) return existing;
+            }
+        }
+        return loaded;
+    }
+
+    /** Readers go lock-free over the concurrent maps; writers serialize on the plan. */
+    static class UserPlan {
+        private final Map<TaskType, ConcurrentSkipListMap<LocalDate, NavigableSet<Long>>> days = new EnumMap<>(TaskType.class);
+        private final Map<Long, LearningTask> tasks = new ConcurrentHashMap<>();
+
+        UserPlan() {
+            for (TaskType type : TaskType.values()) {
+                days.put(type, new ConcurrentSkipListMap<>());
+            }
+        }
+
+        synchronized void put(LearningTask task) {
+            LearningTask previous = tasks.put(task.getId(), task);
+            if (previous != null) unbucket(previous);
+            if (task.getType() != null && task.getAssignedDate() != null) {
+                days.get(task.getType())
+                        .computeIfAbsent(task.getAssignedDate(), d -> new ConcurrentSkipListSet<>())
+                        .add(task.getId());
+            }
+        }
+
+        // Readers may hold the cached instance, so the change goes into a copy that replaces it
+        synchronized void apply(TaskStatusChange change) {
+            LearningTask cached = tasks.get(change.id());
+            if (cached == null) return;
+            LearningTask task = new LearningTask();
+            task.setId(cached.getId());
+            task.setTitle(cached.getTitle());
+            task.setType(cached.getType());
+            task.setStream(cached.getStream());
+            task.setAssignedDate(cached.getAssignedDate());
+            task.setDuration(cached.getDuration());
+            task.setPoints(cached.getPoints());
+            task.setUser(cached.getUser());
+            task.setTemplateId(cached.getTemplateId());
+            task.setStatus(change.status());
+            task.setCompletedDate(change.completedDate());
+            task.setUpdatedAt(change.updatedAt());
+            task.setVersion(change.version());
+            tasks.put(task.getId(), task);
+        }
+
+        synchronized void remove(Long taskId) {
+            LearningTask previous = tasks.remove(taskId);
+            if (previous != null) unbucket(previous);
+        }
+
+        List<LearningTask> range(TaskType type, LocalDate from, LocalDate to) {
+            List<LearningTask> result = new ArrayList<>();
+            for (NavigableSet<Long> ids : days.get(type).subMap(from, true, to, false).values()) {
+                for (Long id : ids) {
+                    LearningTask task = tasks.get(id);
+                    if (task != null) result.add(task);
+                }
+            }
+            return result;
+        }
+
+        private void unbucket(LearningTask task) {
+            if (task.getType() == null || task.getAssignedDate() == null) return;
+            ConcurrentSkipListMap<LocalDate, NavigableSet<Long>> byDay = days.get(task.getType());
+            NavigableSet<Long> ids = byDay.get(task.getAssignedDate());
+            if (ids == null) return;
+            ids.remove(task.getId());
+            if (ids.isEmpty()) byDay.remove(task.getAssignedDate());
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskTemplate;
+import com.walkalong.backend.repository.TaskTemplateRepository;
+import com.walkalong.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Turns recurring TaskTemplates into LearningTask occurrences over a rolling horizon.
+ * Each template records how far it has been materialized; occurrences and the new watermark are
+ * written in the same transaction, so a crash or restart neither skips nor duplicates a day.
+ * Only templates behind the horizon are read, a page at a time, and the task table is never scanned.
+ */
+@Service
+public class RecurringTaskService {
+
+    static final int PAGE_SIZE = 100;
+
+    private final TaskTemplateRepository templateRepository;
+    private final TaskService taskService;
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int horizonDays;
+
+    public RecurringTaskService(TaskTemplateRepository templateRepository,
+                                TaskService taskService,
+                                UserRepository userRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${walkalong.recurring.horizon-days:14}") int horizonDays) {
+        this.templateRepository = templateRepository;
+        this.taskService = taskService;
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.horizonDays = horizonDays;
+    }
+
+    public TaskTemplate create(TaskTemplate template) {
+        // TODO: Get user from authentication context
+        if (template.getUser() == null) template.setUser(userRepository.findFirstByOrderByIdAsc().orElse(null));
+        if (template.getStartDate() == null) template.setStartDate(LocalDate.now());
+        if (template.getPoints() == null) template.setPoints(10);
+        template.setActive(true);
+        template.setMaterializedThrough(null);
+        // Materialize straight away so the first occurrences show up without waiting for the schedule
+        return transactionTemplate.execute(status -> {
+            TaskTemplate saved = templateRepository.save(template);
+            materialize(saved, horizon(LocalDate.now()), LocalDate.now());
+            return saved;
+        });
+    }
+
+    /** Stops future materialization; occurrences already created are left alone. */
+    public void deactivate(Long id) {
+        transactionTemplate.executeWithoutResult(status -> {
+            TaskTemplate template = templateRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Template not found"));
+            template.setActive(false);
+        });
+    }
+
+    @Scheduled(initialDelayString = "${walkalong.recurring.interval-ms:3600000}",
+               fixedDelayString = "${walkalong.recurring.interval-ms:3600000}")
+    public void materializeDue() {
+        materializeDue(LocalDate.now());
+    }
+
+    /** Runs until no active template is behind the horizon; returns the number of tasks created. */
+    public int materializeDue(LocalDate today) {
+        LocalDate horizon = horizon(today);
+        int created = 0;
+        while (true) {
+            // Every template in a page is advanced to the horizon, so the next page starts fresh
+            Integer pageCreated = transactionTemplate.execute(status -> {
+                List<TaskTemplate> due = templateRepository.findDue(horizon, Limit.of(PAGE_SIZE));
+                if (due.isEmpty()) return null;
+                List<LearningTask> tasks = new ArrayList<>();
+                for (TaskTemplate template : due) {
+                    tasks.addAll(materialize(template, horizon, today));
+                }
+                return tasks.size();
+            });
+            if (pageCreated == null) return created;
+            created += pageCreated;
+        }
+    }
+
+    private List<LearningTask> materialize(TaskTemplate template, LocalDate horizon, LocalDate today) {
+        LocalDate from = today;
+        if (template.getMaterializedThrough() != null && !template.getMaterializedThrough().isBefore(from)) {
+            from = template.getMaterializedThrough().plusDays(1);
+        }
+        LocalDate until = horizon;
+        if (template.getEndDate() != null && template.getEndDate().isBefore(until)) {
+            until = template.getEndDate();
+        }
+
+        List<LearningTask> tasks = new ArrayList<>();
+        for (LocalDate day : occurrences(template, from, until)) {
+            LearningTask task = new LearningTask();
+            task.setTitle(template.getTitle());
+            task.setType(template.getType());
+            task.setStream(template.getStream());
+            task.setDuration(template.getDuration());
+            task.setPoints(template.getPoints());
+            task.setUser(template.getUser());
+            task.setAssignedDate(day);
+            task.setTemplateId(template.getId());
+            tasks.add(task);
+        }
+        template.setMaterializedThrough(horizon);
+        // Every occurrence up to the end date exists now; findDue only looks at active templates
+        if (template.getEndDate() != null && !template.getEndDate().isAfter(horizon)) {
+            template.setActive(false);
+        }
+        return tasks.isEmpty() ? tasks : taskService.createAll(tasks);
+    }
+
+    /** Occurrence dates of the template within [from, until]. */
+    static List<LocalDate> occurrences(TaskTemplate template, LocalDate from, LocalDate until) {
+        List<LocalDate> days = new ArrayList<>();
+        LocalDate start = template.getStartDate();
+        if (start == null || template.getType() == null) return days;
+        // Step from the start date by count rather than from the previous occurrence, so
+        // a monthly template on the 31st clamps to shorter months without drifting to the 28th
+        for (long n = firstIndex(template, start, from); ; n++) {
+            LocalDate day = switch (template.getType()) {
+                case DAILY -> start.plusDays(n);
+                case WEEKLY -> start.plusWeeks(n);
+                case MONTHLY -> start.plusMonths(n);
+            };
+            if (day.isAfter(until)) return days;
+            if (!day.isBefore(from)) days.add(day);
+        }
+    }
+
+    // Index of the first occurrence on or after from (or one before it, for the monthly clamp)
+    private static long firstIndex(TaskTemplate template, LocalDate start, LocalDate from) {
+        if (!from.isAfter(start)) return 0;
+        long days = from.toEpochDay() - start.toEpochDay();
+        return switch (template.getType()) {
+            case DAILY -> days;
+            case WEEKLY -> days / 7;
+            case MONTHLY -> Math.max(0, ChronoUnit.MONTHS.between(start, from) - 1);
+        };
+    }
+
+    private LocalDate horizon(LocalDate today) {
+        return today.plusDays(horizonDays);
+    }
+}
@@ -0,0 +1,258 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.SearchHit;
+import com.walkalong.backend.dto.SearchSource;
+import com.walkalong.backend.entity.AnswerQuestion;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.StreamNote;
+import com.walkalong.backend.repository.AnswerQuestionRepository;
+import com.walkalong.backend.repository.StreamNoteRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Full-text search over task titles, stream notes and answer questions, served from an in-memory
+ * InvertedIndex. Writers call the index* and remove methods after their change commits.
+ *
+ * On startup the index is read from the last snapshot when the snapshot's per-kind row count and
+ * highest id still match the database and no task or note was updated after it was written, and
+ * rebuilt from the tables otherwise. Changes made during a
+ * rebuild are replayed onto the new index before it is swapped in. Snapshots are written every few
+ * minutes when something changed, and on shutdown.
+ */
+@Service
+public class SearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(SearchService.class);
+
+    public static final int DEFAULT_LIMIT = 20;
+    public static final int MAX_LIMIT = 100;
+
+    // A change is stamped before its transaction commits but reaches the index only after, so one
+    // stamped just before a snapshot may be missing from it
+    static final Duration WRITE_SKEW = Duration.ofSeconds(10);
+
+    private final TaskRepository taskRepository;
+    private final StreamNoteRepository noteRepository;
+    private final AnswerQuestionRepository questionRepository;
+    private final NoteHistory noteHistory;
+    private final EntityManager entityManager;
+    private final TransactionTemplate readOnly;
+    private final Path snapshotPath;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private InvertedIndex index = new InvertedIndex();
+    // While a rebuild runs, changes also go here to be replayed onto the rebuilt index
+    private Queue<Consumer<InvertedIndex>> replay;
+    private volatile boolean dirty;
+
+    public SearchService(TaskRepository taskRepository,
+                         StreamNoteRepository noteRepository,
+                         AnswerQuestionRepository questionRepository,
+                         NoteHistory noteHistory,
+                         EntityManager entityManager,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${walkalong.search.snapshot-path:data/search-index.bin}") String snapshotPath) {
+        this.taskRepository = taskRepository;
+        this.noteRepository = noteRepository;
+        this.questionRepository = questionRepository;
+        this.noteHistory = noteHistory;
+        this.entityManager = entityManager;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+        this.snapshotPath = Paths.get(snapshotPath);
+    }
+
+    public List<SearchHit> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return index.search(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void indexTask(LearningTask task) {
+        apply(i -> i.put(SearchHit.Kind.TASK, task.getId(), task.getTitle(), null));
+    }
+
+    public void indexNote(StreamNote note) {
+        apply(i -> i.put(SearchHit.Kind.NOTE, note.getId(), note.getTitle(), note.getContent()));
+    }
+
+    public void indexQuestion(AnswerQuestion question) {
+        apply(i -> i.put(SearchHit.Kind.QUESTION, question.getId(), null, question.getQuestionText()));
+    }
+
+    public void remove(SearchHit.Kind kind, Long id) {
+        apply(i -> i.remove(kind, id));
+    }
+
+    private void apply(Consumer<InvertedIndex> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(index);
+            if (replay != null) replay.add(change);
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        InvertedIndex snapshot = readSnapshot();
+        if (snapshot != null && matchesDatabase(snapshot)) {
+            lock.writeLock().lock();
+            try {
+                // Nothing has been written through this instance yet unless requests beat the ready event
+                if (!dirty) {
+                    index = snapshot;
+                    log.info("Loaded search index snapshot with {} documents", snapshot.size());
+                    return;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        rebuild();
+    }
+
+    /** Rebuilds the index from the database without blocking searches or writes meanwhile. */
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            replay = new ConcurrentLinkedQueue<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        InvertedIndex fresh = new InvertedIndex();
+        try {
+            readOnly.executeWithoutResult(status -> {
+                addAll(fresh, SearchHit.Kind.TASK, taskRepository.streamSearchSources());
+                addAll(fresh, SearchHit.Kind.NOTE, noteRepository.streamSearchSources());
+                // The content column of an autosaved note lags its latest version by up to a snapshot interval
+                for (StreamNote note : noteRepository.findWithPendingDeltas()) {
+                    fresh.put(SearchHit.Kind.NOTE, note.getId(), note.getTitle(), noteHistory.latest(note));
+                }
+                addAll(fresh, SearchHit.Kind.QUESTION, questionRepository.streamSearchSources());
+            });
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                replay = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw e;
+        }
+        lock.writeLock().lock();
+        try {
+            replay.forEach(change -> change.accept(fresh));
+            replay = null;
+            index = fresh;
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Rebuilt search index with {} documents", fresh.size());
+    }
+
+    private void addAll(InvertedIndex target, SearchHit.Kind kind, Stream<SearchSource> rows) {
+        try (rows) {
+            rows.forEach(row -> target.put(kind, row.id(), row.title(), row.text()));
+        }
+    }
+
+    @Scheduled(initialDelayString = "${walkalong.search.snapshot-interval-ms:300000}",
+               fixedDelayString = "${walkalong.search.snapshot-interval-ms:300000}")
+    public void saveSnapshotIfChanged() {
+        if (dirty) saveSnapshot();
+    }
+
+    @PreDestroy
+    public void saveSnapshot() {
+        Path temp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        // A read lock isn't enough: write() compacts the index first
+        lock.writeLock().lock();
+        try {
+            if (snapshotPath.getParent() != null) Files.createDirectories(snapshotPath.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                index.write(out, System.currentTimeMillis());
+            }
+            Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException e) {
+            log.warn("Could not write search index snapshot to {}", snapshotPath, e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private InvertedIndex readSnapshot() {
+        if (!Files.isRegularFile(snapshotPath)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            return InvertedIndex.read(in);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable search index snapshot {}", snapshotPath, e);
+            return null;
+        }
+    }
+
+    private boolean matchesDatabase(InvertedIndex snapshot) {
+        List<long[]> actual = new ArrayList<>();
+        for (String entity : List.of("LearningTask", "StreamNote", "AnswerQuestion")) {
+            Object[] row = (Object[]) entityManager
+                    .createQuery("SELECT COUNT(e), COALESCE(MAX(e.id), 0) FROM " + entity + " e")
+                    .getSingleResult();
+            actual.add(new long[]{((Number) row[0]).longValue(), ((Number) row[1]).longValue()});
+        }
+        SearchHit.Kind[] kinds = {SearchHit.Kind.TASK, SearchHit.Kind.NOTE, SearchHit.Kind.QUESTION};
+        for (int i = 0; i < kinds.length; i++) {
+            long[] indexed = snapshot.fingerprint(kinds[i]);
+            if (indexed[0] != actual.get(i)[0] || indexed[1] != actual.get(i)[1]) return false;
+        }
+        // Edits keep the count and ids, so also look for rows updated since the snapshot. Questions
+        // are never edited.
+        LocalDateTime savedAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(snapshot.savedAt()), ZoneId.systemDefault());
+        for (String entity : List.of("LearningTask", "StreamNote")) {
+            LocalDateTime lastWrite = entityManager
+                    .createQuery("SELECT MAX(e.updatedAt) FROM " + entity + " e", LocalDateTime.class)
+                    .getSingleResult();
+            if (lastWrite != null && !lastWrite.isBefore(savedAt.minus(WRITE_SKEW))) return false;
+        }
+        return true;
+    }
+}
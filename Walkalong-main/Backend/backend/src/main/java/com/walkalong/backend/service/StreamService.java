@@ -0,0 +1,82 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.SearchHit;
+import com.walkalong.backend.dto.TaskRef;
+import com.walkalong.backend.repository.NoteRevisionRepository;
+import com.walkalong.backend.repository.StreamNoteRepository;
+import com.walkalong.backend.repository.StreamRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.repository.TaskTemplateRepository;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Deletes a stream with everything that hangs off it in a fixed number of set-based statements,
+ * instead of the entity cascade that loads each task and deletes it row by row.
+ */
+@Service
+public class StreamService {
+
+    private final StreamRepository streamRepository;
+    private final TaskRepository taskRepository;
+    private final StreamNoteRepository noteRepository;
+    private final NoteRevisionRepository revisionRepository;
+    private final TaskTemplateRepository templateRepository;
+    private final PlanCache planCache;
+    private final TaskCounterStore taskCounterStore;
+    private final TaskRollupService taskRollupService;
+    private final SearchService searchService;
+    private final NoteService noteService;
+
+    public StreamService(StreamRepository streamRepository,
+                         TaskRepository taskRepository,
+                         StreamNoteRepository noteRepository,
+                         NoteRevisionRepository revisionRepository,
+                         TaskTemplateRepository templateRepository,
+                         PlanCache planCache,
+                         TaskCounterStore taskCounterStore,
+                         TaskRollupService taskRollupService,
+                         SearchService searchService,
+                         NoteService noteService) {
+        this.streamRepository = streamRepository;
+        this.taskRepository = taskRepository;
+        this.noteRepository = noteRepository;
+        this.revisionRepository = revisionRepository;
+        this.templateRepository = templateRepository;
+        this.planCache = planCache;
+        this.taskCounterStore = taskCounterStore;
+        this.taskRollupService = taskRollupService;
+        this.searchService = searchService;
+        this.noteService = noteService;
+    }
+
+    /** Returns false if there was no such stream. */
+    @Transactional
+    public boolean delete(Long id) {
+        if (!streamRepository.existsById(id)) return false;
+
+        // Read just enough to update the in-memory views once the deletes commit
+        List<TaskRef> tasks = taskRepository.findRefsByStreamId(id);
+        List<Long> noteIds = noteRepository.findIdsByStreamId(id);
+
+        revisionRepository.deleteAllByStreamId(id);
+        noteRepository.deleteAllByStreamId(id);
+        templateRepository.deleteAllByStreamId(id);
+        taskRepository.deleteAllByStreamId(id);
+        streamRepository.deleteByIdInBulk(id);
+
+        AfterCommit.run(() -> {
+            for (TaskRef task : tasks) {
+                planCache.remove(task.id());
+                searchService.remove(SearchHit.Kind.TASK, task.id());
+                taskRollupService.markDirty(task.userId(), task.assignedDate(), task.completedDate());
+            }
+            noteIds.forEach(noteId -> searchService.remove(SearchHit.Kind.NOTE, noteId));
+            noteService.evict(noteIds);
+        });
+        taskCounterStore.tasksDeleted(tasks);
+        return true;
+    }
+}
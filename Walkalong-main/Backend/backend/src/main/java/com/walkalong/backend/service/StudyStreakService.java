@@ -0,0 +1,130 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.entity.CalendarEntry;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.CalendarRepository;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.Year;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Studied days per user as one BitSet per year (bit = dayOfYear - 1), loaded from CalendarRepository
+ * on first use and kept current by markStudied. Streaks are walked with nextSetBit/nextClearBit, so
+ * they cost a handful of word operations per year rather than a pass over calendar rows.
+ */
+@Service
+public class StudyStreakService {
+
+    private final CalendarRepository calendarRepository;
+    private final Map<Long, StudiedDays> users = new ConcurrentHashMap<>();
+
+    public StudyStreakService(CalendarRepository calendarRepository) {
+        this.calendarRepository = calendarRepository;
+    }
+
+    public void markStudied(User user, LocalDate date) {
+        // Only touches users already loaded; a concurrent first load blocks this until it has finished
+        users.computeIfPresent(user.getId(), (id, days) -> {
+            days.set(date);
+            return days;
+        });
+    }
+
+    /** Consecutive studied days ending today, or ending yesterday if today isn't marked yet. */
+    public int currentStreak(User user, LocalDate today) {
+        StudiedDays days = load(user);
+        LocalDate end = days.isSet(today) ? today : today.minusDays(1);
+        return days.runEndingAt(end);
+    }
+
+    public int longestStreak(User user) {
+        return load(user).longestRun();
+    }
+
+    /** One entry per day of the year, 1 if studied. */
+    public int[] heatmap(User user, int year) {
+        BitSet bits = load(user).year(year);
+        int[] cells = new int[Year.of(year).length()];
+        if (bits != null) {
+            for (int i = bits.nextSetBit(0); i >= 0 && i < cells.length; i = bits.nextSetBit(i + 1)) {
+                cells[i] = 1;
+            }
+        }
+        return cells;
+    }
+
+    private StudiedDays load(User user) {
+        return users.computeIfAbsent(user.getId(), id -> {
+            StudiedDays days = new StudiedDays();
+            for (CalendarEntry entry : calendarRepository.findByUserAndStudiedTrue(user)) {
+                if (entry.getDate() != null) days.set(entry.getDate());
+            }
+            return days;
+        });
+    }
+
+    static final class StudiedDays {
+        private final TreeMap<Integer, BitSet> years = new TreeMap<>();
+
+        synchronized void set(LocalDate date) {
+            years.computeIfAbsent(date.getYear(), y -> new BitSet(366)).set(date.getDayOfYear() - 1);
+        }
+
+        synchronized boolean isSet(LocalDate date) {
+            BitSet bits = years.get(date.getYear());
+            return bits != null && bits.get(date.getDayOfYear() - 1);
+        }
+
+        synchronized BitSet year(int year) {
+            BitSet bits = years.get(year);
+            return bits != null ? (BitSet) bits.clone() : null;
+        }
+
+        synchronized int runEndingAt(LocalDate end) {
+            int run = 0;
+            int year = end.getYear();
+            int index = end.getDayOfYear() - 1;
+            while (true) {
+                BitSet bits = years.get(year);
+                if (bits == null || !bits.get(index)) return run;
+                int start = bits.previousClearBit(index) + 1;
+                run += index - start + 1;
+                if (start > 0) return run;
+                // Run reaches Jan 1; continue from Dec 31 of the previous year
+                year--;
+                index = Year.of(year).length() - 1;
+            }
+        }
+
+        synchronized int longestRun() {
+            int longest = 0;
+            int carried = 0; // length of a run that reached Dec 31 of the previous year
+            Integer previousYear = null;
+            for (Map.Entry<Integer, BitSet> e : years.entrySet()) {
+                int year = e.getKey();
+                BitSet bits = e.getValue();
+                int length = Year.of(year).length();
+                if (previousYear == null || previousYear != year - 1) carried = 0;
+
+                int i = bits.nextSetBit(0);
+                while (i >= 0 && i < length) {
+                    int end = Math.min(bits.nextClearBit(i), length);
+                    int run = end - i;
+                    if (i == 0) run += carried;
+                    longest = Math.max(longest, run);
+                    carried = end == length ? run : 0;
+                    if (end == length) break;
+                    i = bits.nextSetBit(end);
+                }
+                if (!bits.get(length - 1)) carried = 0;
+                previousYear = year;
+            }
+            return longest;
+        }
+    }
+}
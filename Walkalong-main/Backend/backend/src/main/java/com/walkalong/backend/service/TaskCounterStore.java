@@ -0,0 +1,215 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.TaskRef;
+import com.walkalong.backend.dto.TaskStats;
+import com.walkalong.backend.dto.UserTaskStatusCount;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskStatus;
+import com.walkalong.backend.repository.TaskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process task and point counters per user and status, so the dashboard doesn't query on every poll.
+ * Seeded from one aggregate query at startup, kept current by TaskController and StreamService after each commit and
+ * periodically compared against the database. Until the first rebuild succeeds, isReady() is false
+ * and callers should go to the database instead.
+ */
+@Component
+public class TaskCounterStore {
+
+    private static final Logger log = LoggerFactory.getLogger(TaskCounterStore.class);
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final int MAX_REBUILD_ATTEMPTS = 5;
+    private static final TaskStats EMPTY = new TaskStats(0, 0, 0, 0, 0, 0);
+
+    private final TaskRepository taskRepository;
+    private volatile Map<Long, Counters> counters = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    // Bumped on every applied change; a rebuild or verify that saw it move discards its snapshot
+    private final AtomicLong modifications = new AtomicLong();
+
+    public TaskCounterStore(TaskRepository taskRepository) {
+        this.taskRepository = taskRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public TaskStats get(Long userId) {
+        Counters c = counters.get(userId);
+        return c != null ? c.snapshot() : EMPTY;
+    }
+
+    public void taskCreated(LearningTask task) {
+        AfterCommit.run(() -> apply(task, task.getStatus(), 1));
+    }
+
+    public void taskDeleted(LearningTask task) {
+        AfterCommit.run(() -> apply(task, task.getStatus(), -1));
+    }
+
+    /**
+     * Bulk deletes have no entities to hand over; the refs read before the delete carry user, status
+     * and points. They are summed per user here so the commit hook only does one add per status.
+     */
+    public void tasksDeleted(Collection<TaskRef> tasks) {
+        Map<Long, Counters> removed = new HashMap<>();
+        for (TaskRef task : tasks) {
+            if (task.userId() == null) continue;
+            removed.computeIfAbsent(task.userId(), id -> new Counters())
+                    .add(task.status(), 1, task.points() != null ? task.points() : 0);
+        }
+        if (removed.isEmpty()) return;
+        AfterCommit.run(() -> {
+            synchronized (this) {
+                modifications.incrementAndGet();
+                for (Map.Entry<Long, Counters> e : removed.entrySet()) {
+                    Counters c = counters.computeIfAbsent(e.getKey(), id -> new Counters());
+                    c.subtract(e.getValue());
+                    if (c.snapshot().equals(EMPTY)) counters.remove(e.getKey());
+                }
+            }
+        });
+    }
+
+    public void statusChanged(LearningTask task, TaskStatus previous) {
+        statusChanged(task.getUser() != null ? task.getUser().getId() : null, task.getPoints(), previous, task.getStatus());
+    }
+
+    /** For writes that never load the task; the caller knows whose it is and what it was worth. */
+    public void statusChanged(Long userId, Integer points, TaskStatus previous, TaskStatus status) {
+        if (previous == status) return;
+        AfterCommit.run(() -> {
+            apply(userId, points, previous, -1);
+            apply(userId, points, status, 1);
+        });
+    }
+
+    int trackedUsers() {
+        return counters.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        for (int attempt = 0; attempt < MAX_REBUILD_ATTEMPTS; attempt++) {
+            long seen = modifications.get();
+            Map<Long, Counters> fresh = load();
+            synchronized (this) {
+                if (modifications.get() == seen) {
+                    counters = fresh;
+                    ready = true;
+                    return;
+                }
+            }
+        }
+        log.warn("Task counters kept changing during rebuild; dashboard stays on database queries until next verify");
+    }
+
+    @Scheduled(initialDelayString = "${walkalong.task-counters.verify-interval-ms:300000}",
+               fixedDelayString = "${walkalong.task-counters.verify-interval-ms:300000}")
+    public void verify() {
+        if (!ready) {
+            rebuild();
+            return;
+        }
+        long seen = modifications.get();
+        Map<Long, Counters> actual = load();
+        synchronized (this) {
+            if (modifications.get() != seen) return; // tasks changed mid-check; try again next round
+            // Users without tasks have no row; counters that went back to zero for them are not drift
+            boolean drifted = false;
+            for (Map.Entry<Long, Counters> e : counters.entrySet()) {
+                if (!actual.containsKey(e.getKey()) && !e.getValue().snapshot().equals(EMPTY)) {
+                    drifted = true;
+                    break;
+                }
+            }
+            for (Map.Entry<Long, Counters> e : actual.entrySet()) {
+                Counters current = counters.get(e.getKey());
+                if (current == null || !current.snapshot().equals(e.getValue().snapshot())) {
+                    drifted = true;
+                    break;
+                }
+            }
+            if (drifted) {
+                log.warn("Task counters drifted from the database; replacing them");
+                counters = actual;
+            }
+        }
+    }
+
+    private Map<Long, Counters> load() {
+        Map<Long, Counters> result = new HashMap<>();
+        for (UserTaskStatusCount row : taskRepository.countByUserAndStatus()) {
+            if (row.getUserId() == null) continue;
+            Counters c = result.computeIfAbsent(row.getUserId(), id -> new Counters());
+            c.add(row.getStatus(), row.getTasks() != null ? row.getTasks() : 0, row.getPoints() != null ? row.getPoints() : 0);
+        }
+        return new ConcurrentHashMap<>(result);
+    }
+
+    private void apply(LearningTask task, TaskStatus status, int sign) {
+        apply(task.getUser() != null ? task.getUser().getId() : null, task.getPoints(), status, sign);
+    }
+
+    private void apply(Long userId, Integer taskPoints, TaskStatus status, int sign) {
+        if (userId == null) return;
+        long points = taskPoints != null ? taskPoints : 0;
+        synchronized (this) {
+            modifications.incrementAndGet();
+            Counters c = counters.computeIfAbsent(userId, id -> new Counters());
+            c.add(status, sign, sign * points);
+            if (sign < 0 && c.snapshot().equals(EMPTY)) counters.remove(userId);
+        }
+    }
+
+    static final class Counters {
+        private final LongAdder[] tasks = new LongAdder[STATUSES.length];
+        private final LongAdder[] points = new LongAdder[STATUSES.length];
+
+        Counters() {
+            for (int i = 0; i < STATUSES.length; i++) {
+                tasks[i] = new LongAdder();
+                points[i] = new LongAdder();
+            }
+        }
+
+        void add(TaskStatus status, long taskDelta, long pointDelta) {
+            // Rows without a status count as pending, same as AnalyticsService
+            int i = (status != null ? status : TaskStatus.PENDING).ordinal();
+            tasks[i].add(taskDelta);
+            points[i].add(pointDelta);
+        }
+
+        void subtract(Counters other) {
+            for (int i = 0; i < STATUSES.length; i++) {
+                tasks[i].add(-other.tasks[i].sum());
+                points[i].add(-other.points[i].sum());
+            }
+        }
+
+        TaskStats snapshot() {
+            long completed = tasks[TaskStatus.COMPLETED.ordinal()].sum();
+            long skipped = tasks[TaskStatus.SKIPPED.ordinal()].sum();
+            long pending = tasks[TaskStatus.PENDING.ordinal()].sum();
+            long totalPoints = 0;
+            for (LongAdder p : points) totalPoints += p.sum();
+            return new TaskStats(completed + skipped + pending, completed, skipped, pending,
+                    totalPoints, points[TaskStatus.COMPLETED.ordinal()].sum());
+        }
+    }
+}
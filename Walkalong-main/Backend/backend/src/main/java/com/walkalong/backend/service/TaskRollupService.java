@@ -0,0 +1,184 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.DailyTaskCount;
+import com.walkalong.backend.entity.JobWatermark;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskDailyStat;
+import com.walkalong.backend.repository.JobWatermarkRepository;
+import com.walkalong.backend.repository.TaskDailyStatRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Maintains the task_daily_stats rollup. Each run recomputes only the (user, day) pairs touched since
+ * the stored watermark: days of tasks whose updatedAt moved past it, plus days TaskController reports
+ * through markDirty() for changes updatedAt can't see (deleted tasks, a cleared completedDate).
+ * Those in-memory marks are lost on restart; until the affected day is touched again its row may
+ * overcount, which rebuildAll() fixes.
+ */
+@Service
+public class TaskRollupService {
+
+    static final String WATERMARK = "task_daily_stats";
+
+    // Re-scan a little before the watermark so rows committed by slow transactions aren't skipped
+    private static final Duration OVERLAP = Duration.ofMinutes(1);
+
+    public record DayKey(Long userId, LocalDate day) {}
+
+    private final TaskRepository taskRepository;
+    private final TaskDailyStatRepository statRepository;
+    private final JobWatermarkRepository watermarkRepository;
+    private final Set<DayKey> pending = ConcurrentHashMap.newKeySet();
+
+    public TaskRollupService(TaskRepository taskRepository,
+                             TaskDailyStatRepository statRepository,
+                             JobWatermarkRepository watermarkRepository) {
+        this.taskRepository = taskRepository;
+        this.statRepository = statRepository;
+        this.watermarkRepository = watermarkRepository;
+    }
+
+    /** Call after a committed write for days the task no longer counts towards (deleted, un-completed). */
+    public void markDirty(LearningTask task, LocalDate... days) {
+        if (task.getUser() != null) markDirty(task.getUser().getId(), days);
+    }
+
+    public void markDirty(Long userId, LocalDate... days) {
+        if (userId == null) return;
+        for (LocalDate day : days) {
+            if (day != null) pending.add(new DayKey(userId, day));
+        }
+    }
+
+    public List<TaskDailyStat> getTrend(Long userId, LocalDate from, LocalDate to) {
+        return statRepository.findRange(userId, from, to);
+    }
+
+    @Scheduled(initialDelayString = "${walkalong.rollup.interval-ms:60000}",
+               fixedDelayString = "${walkalong.rollup.interval-ms:60000}")
+    @Transactional
+    public void refresh() {
+        LocalDateTime runStart = LocalDateTime.now();
+        JobWatermark watermark = watermarkRepository.findById(WATERMARK).orElse(null);
+        if (watermark == null) {
+            rebuildAll();
+            return;
+        }
+
+        Set<DayKey> dirty = new HashSet<>();
+        for (DayKey key : new ArrayList<>(pending)) {
+            pending.remove(key);
+            dirty.add(key);
+        }
+        LocalDateTime since = watermark.getProcessedUpTo().minus(OVERLAP);
+        for (DailyTaskCount row : taskRepository.findAssignedDaysTouchedSince(since)) {
+            dirty.add(new DayKey(row.getUserId(), row.getDay()));
+        }
+        for (DailyTaskCount row : taskRepository.findCompletedDaysTouchedSince(since)) {
+            dirty.add(new DayKey(row.getUserId(), row.getDay()));
+        }
+
+        if (!dirty.isEmpty()) {
+            recompute(dirty);
+        }
+        watermark.setProcessedUpTo(runStart);
+        watermarkRepository.save(watermark);
+    }
+
+    /** Recomputes the whole rollup from LearningTask; used on first run and to repair drift. */
+    @Transactional
+    public void rebuildAll() {
+        LocalDateTime runStart = LocalDateTime.now();
+        pending.clear();
+        Map<DayKey, TaskDailyStat> stats = new HashMap<>();
+        for (DailyTaskCount row : taskRepository.countAllAssignedByDay()) {
+            statFor(stats, row).setAssignedTasks(count(row.getTasks()));
+        }
+        for (DailyTaskCount row : taskRepository.countAllCompletedByDay()) {
+            applyCompleted(statFor(stats, row), row);
+        }
+        statRepository.deleteAllInBatch();
+        statRepository.saveAll(stats.values());
+        watermarkRepository.save(new JobWatermark(WATERMARK, runStart));
+    }
+
+    private void recompute(Set<DayKey> dirty) {
+        Set<Long> userIds = new HashSet<>();
+        Set<LocalDate> days = new HashSet<>();
+        for (DayKey key : dirty) {
+            userIds.add(key.userId());
+            days.add(key.day());
+        }
+
+        Map<DayKey, TaskDailyStat> existing = new HashMap<>();
+        for (TaskDailyStat stat : statRepository.findByUserIdInAndDateIn(userIds, days)) {
+            existing.put(new DayKey(stat.getUserId(), stat.getDate()), stat);
+        }
+
+        // The IN lists cover the cross product of users and days; anything outside `dirty` is ignored
+        Map<DayKey, TaskDailyStat> fresh = new HashMap<>();
+        for (DailyTaskCount row : taskRepository.countAssignedByDay(userIds, days)) {
+            if (dirty.contains(key(row))) statFor(fresh, row).setAssignedTasks(count(row.getTasks()));
+        }
+        for (DailyTaskCount row : taskRepository.countCompletedByDay(userIds, days)) {
+            if (dirty.contains(key(row))) applyCompleted(statFor(fresh, row), row);
+        }
+
+        List<TaskDailyStat> toSave = new ArrayList<>();
+        List<TaskDailyStat> toDelete = new ArrayList<>();
+        for (DayKey key : dirty) {
+            TaskDailyStat current = existing.get(key);
+            TaskDailyStat computed = fresh.get(key);
+            if (computed == null) {
+                if (current != null) toDelete.add(current);
+            } else if (current == null) {
+                toSave.add(computed);
+            } else {
+                current.setAssignedTasks(computed.getAssignedTasks());
+                current.setCompletedTasks(computed.getCompletedTasks());
+                current.setPointsEarned(computed.getPointsEarned());
+                current.setMinutesStudied(computed.getMinutesStudied());
+                toSave.add(current);
+            }
+        }
+        statRepository.deleteAllInBatch(toDelete);
+        statRepository.saveAll(toSave);
+    }
+
+    private static DayKey key(DailyTaskCount row) {
+        return new DayKey(row.getUserId(), row.getDay());
+    }
+
+    private static TaskDailyStat statFor(Map<DayKey, TaskDailyStat> stats, DailyTaskCount row) {
+        return stats.computeIfAbsent(key(row), k -> {
+            TaskDailyStat stat = new TaskDailyStat();
+            stat.setUserId(k.userId());
+            stat.setDate(k.day());
+            return stat;
+        });
+    }
+
+    private static void applyCompleted(TaskDailyStat stat, DailyTaskCount row) {
+        stat.setCompletedTasks(count(row.getTasks()));
+        stat.setPointsEarned(count(row.getPoints()));
+        stat.setMinutesStudied(count(row.getMinutes()));
+    }
+
+    private static long count(Long value) {
+        return value != null ? value : 0;
+    }
+}
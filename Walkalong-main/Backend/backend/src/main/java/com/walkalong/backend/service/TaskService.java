@@ -0,0 +1,154 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.SearchHit;
+import com.walkalong.backend.dto.TaskStatusChange;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskStatus;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.repository.TaskStatusWriter;
+import com.walkalong.backend.repository.UserRepository;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Task writes and the in-memory views that follow them (plan cache, dashboard counters, daily rollup,
+ * search index).
+ * Side effects are applied after commit so a rolled-back batch leaves them untouched.
+ */
+@Service
+public class TaskService {
+
+    public static final int MAX_BATCH_SIZE = 1000;
+
+    private final TaskRepository taskRepository;
+    private final TaskStatusWriter taskStatusWriter;
+    private final UserRepository userRepository;
+    private final PlanCache planCache;
+    private final TaskCounterStore taskCounterStore;
+    private final TaskRollupService taskRollupService;
+    private final SearchService searchService;
+
+    public TaskService(TaskRepository taskRepository,
+                       TaskStatusWriter taskStatusWriter,
+                       UserRepository userRepository,
+                       PlanCache planCache,
+                       TaskCounterStore taskCounterStore,
+                       TaskRollupService taskRollupService,
+                       SearchService searchService) {
+        this.taskRepository = taskRepository;
+        this.taskStatusWriter = taskStatusWriter;
+        this.userRepository = userRepository;
+        this.planCache = planCache;
+        this.taskCounterStore = taskCounterStore;
+        this.taskRollupService = taskRollupService;
+        this.searchService = searchService;
+    }
+
+    public LearningTask create(LearningTask task) {
+        task.setAssignedDate(LocalDate.now());
+        return createAll(List.of(task)).get(0);
+    }
+
+    /** Inserts all tasks in one transaction; with the pooled sequence these go out as JDBC batches. */
+    @Transactional
+    public List<LearningTask> createAll(List<LearningTask> tasks) {
+        // TODO: Get user from authentication context
+        User user = null;
+        for (LearningTask task : tasks) {
+            if (task.getStatus() == null) task.setStatus(TaskStatus.PENDING);
+            if (task.getPoints() == null) task.setPoints(10); // Default if not sent
+            if (task.getAssignedDate() == null) task.setAssignedDate(LocalDate.now());
+            if (task.getUser() == null) {
+                if (user == null) user = userRepository.findFirstByOrderByIdAsc().orElse(null);
+                task.setUser(user);
+            }
+        }
+        List<LearningTask> saved = taskRepository.saveAll(tasks);
+        for (LearningTask task : saved) {
+            taskCounterStore.taskCreated(task);
+        }
+        AfterCommit.run(() -> saved.forEach(task -> {
+            planCache.put(task);
+            searchService.indexTask(task);
+        }));
+        return saved;
+    }
+
+    /**
+     * Changes one task's status in one round trip: the version-guarded UPDATE also returns the row it
+     * replaced, which is where the previous status for the counters and rollup comes from. With an
+     * expectedVersion the caller's view must still be current; without one the change applies to the
+     * current row. Only the changed fields come back, so the task itself is never loaded.
+     */
+    @Transactional
+    public TaskStatusChange updateStatus(Long id, TaskStatus status, Long expectedVersion) {
+        LocalDate completedDate = status == TaskStatus.COMPLETED ? LocalDate.now() : null;
+        LocalDateTime now = LocalDateTime.now();
+        TaskStatusWriter.Replaced previous = taskStatusWriter.update(id, expectedVersion, status, completedDate, now)
+                .orElseThrow(() -> expectedVersion != null && taskRepository.existsById(id)
+                        ? new ObjectOptimisticLockingFailureException(LearningTask.class, id)
+                        : new RuntimeException("Task not found"));
+        TaskStatusChange change = new TaskStatusChange(id, status, completedDate, now, previous.version() + 1);
+
+        taskCounterStore.statusChanged(previous.userId(), previous.points(), previous.status(), status);
+        AfterCommit.run(() -> {
+            planCache.apply(previous.userId(), change);
+            taskRollupService.markDirty(previous.userId(), previous.completedDate());
+        });
+        return change;
+    }
+
+    @Transactional
+    public List<LearningTask> updateStatuses(Map<Long, TaskStatus> changes) {
+        List<LearningTask> tasks = taskRepository.findAllById(changes.keySet());
+        if (tasks.size() != changes.size()) {
+            throw new RuntimeException("Task not found");
+        }
+        List<LocalDate> previousCompletedDates = new ArrayList<>();
+        for (LearningTask task : tasks) {
+            TaskStatus status = changes.get(task.getId());
+            TaskStatus previous = task.getStatus();
+            previousCompletedDates.add(task.getCompletedDate());
+
+            // Logic for deductions can go here if we were updating a User entity immediately
+            // For now, we rely on the state of the task to calculate total points on the frontend/dashboard
+
+            task.setStatus(status);
+            if (status == TaskStatus.COMPLETED) {
+                task.setCompletedDate(LocalDate.now());
+            } else {
+                task.setCompletedDate(null); // Reset if moved back to Pending/Skipped
+            }
+            taskCounterStore.statusChanged(task, previous);
+        }
+        List<LearningTask> saved = taskRepository.saveAll(tasks);
+        AfterCommit.run(() -> {
+            for (int i = 0; i < saved.size(); i++) {
+                planCache.put(saved.get(i));
+                taskRollupService.markDirty(saved.get(i), previousCompletedDates.get(i));
+            }
+        });
+        return saved;
+    }
+
+    @Transactional
+    public void delete(Long id) {
+        taskRepository.findById(id).ifPresent(task -> {
+            taskRepository.delete(task);
+            taskCounterStore.taskDeleted(task);
+            AfterCommit.run(() -> {
+                planCache.remove(id);
+                searchService.remove(SearchHit.Kind.TASK, id);
+                taskRollupService.markDirty(task, task.getAssignedDate(), task.getCompletedDate());
+            });
+        });
+    }
+}
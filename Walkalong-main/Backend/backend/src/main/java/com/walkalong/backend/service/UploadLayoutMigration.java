@@ -0,0 +1,135 @@
+package com.walkalong.backend.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Moves uploads from the old flat directory into FileStorageService's shard directories while the
+ * application keeps serving them: each file is renamed atomically, and lookups check the flat
+ * directory for anything not moved yet. Runs in the background on startup when flat files may be
+ * left (walkalong.uploads.migrate-on-startup), or on request; it is safe to run again.
+ */
+@Service
+public class UploadLayoutMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadLayoutMigration.class);
+
+    private final FileStorageService storage;
+    private final int threads;
+    private final boolean onStartup;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final LongAdder moved = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile LocalDateTime startedAt;
+    private volatile LocalDateTime finishedAt;
+
+    public UploadLayoutMigration(FileStorageService storage,
+                                 @Value("${walkalong.uploads.migration-threads:4}") int threads,
+                                 @Value("${walkalong.uploads.migrate-on-startup:true}") boolean onStartup) {
+        this.storage = storage;
+        this.threads = threads;
+        this.onStartup = onStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (onStartup) start();
+    }
+
+    /** Starts a migration in the background; false if one is already running. */
+    public boolean start() {
+        if (!running.compareAndSet(false, true)) return false;
+        Thread thread = new Thread(() -> {
+            try {
+                run();
+            } finally {
+                running.set(false);
+            }
+        }, "upload-migration");
+        thread.setDaemon(true);
+        thread.start();
+        return true;
+    }
+
+    /** Runs a migration on the calling thread; false if one is already running. */
+    boolean runNow() {
+        if (!running.compareAndSet(false, true)) return false;
+        try {
+            run();
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void run() {
+        moved.reset();
+        skipped.reset();
+        failed.reset();
+        startedAt = LocalDateTime.now();
+        finishedAt = null;
+        // A short queue and caller-runs keep the directory listing from racing ahead of the moves
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 16), new ThreadPoolExecutor.CallerRunsPolicy());
+        try (DirectoryStream<Path> files = storage.legacyFiles()) {
+            for (Path file : files) {
+                pool.execute(() -> move(file));
+            }
+        } catch (IOException e) {
+            log.warn("Could not list legacy uploads", e);
+        } finally {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        finishedAt = LocalDateTime.now();
+        if (moved.sum() + failed.sum() > 0) {
+            log.info("Moved {} uploads into shard directories ({} skipped, {} failed)", moved.sum(), skipped.sum(), failed.sum());
+        }
+    }
+
+    private void move(Path file) {
+        try {
+            if (storage.moveToShard(file)) {
+                moved.increment();
+            } else {
+                skipped.increment();
+            }
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            log.warn("Could not move {} into its shard", file, e);
+        }
+    }
+
+    public Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", running.get());
+        status.put("moved", moved.sum());
+        status.put("skipped", skipped.sum());
+        status.put("failed", failed.sum());
+        status.put("startedAt", startedAt);
+        status.put("finishedAt", finishedAt);
+        return status;
+    }
+}
@@ -0,0 +1,126 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.entity.AnswerSubmission;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Runs answer submissions on a small worker pool instead of the request thread. The container has
+ * already spooled the multipart body to its own temp file; copying that into storage (hash, fsync,
+ * move) and writing the submission row happen here while the request waits asynchronously. The
+ * queue is bounded: when it is full, submit throws RejectedExecutionException and the caller should
+ * answer 503 so clients back off, rather than piling up disk work. Cancelling the returned future
+ * before a worker takes the job (e.g. when the request times out) means it never runs.
+ */
+@Service
+public class UploadPipeline {
+
+    private final AnswerService answerService;
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder busyNanos = new LongAdder();
+    private final LongAccumulator peakQueueDepth = new LongAccumulator(Math::max, 0);
+
+    public UploadPipeline(AnswerService answerService,
+                          @Value("${walkalong.uploads.workers:4}") int workers,
+                          @Value("${walkalong.uploads.queue:32}") int queueCapacity) {
+        this.answerService = answerService;
+        this.queueCapacity = queueCapacity;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), r -> {
+                    Thread thread = new Thread(r, "upload-" + threads.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public CompletableFuture<AnswerSubmission> submit(Long questionId, Long userId, Integer timeTaken,
+                                                      Long parentSubmissionId, MultipartFile file) {
+        return run(file.getSize(), () -> answerService.submitAnswer(questionId, userId, timeTaken, parentSubmissionId, file),
+                () -> { });
+    }
+
+    /**
+     * Queues a job that stores bytes of upload and saves its submission. If the result is cancelled
+     * before the job starts, the job is skipped and ifCancelled runs instead.
+     */
+    public CompletableFuture<AnswerSubmission> run(long bytes, Supplier<AnswerSubmission> job, Runnable ifCancelled) {
+        // Decides between the worker and a cancel that races it; exactly one of the two goes ahead
+        AtomicBoolean claimed = new AtomicBoolean();
+        try {
+            CompletableFuture<AnswerSubmission> result = CompletableFuture.supplyAsync(() -> {
+                if (!claimed.compareAndSet(false, true)) return null; // cancelled; the result is discarded
+                long start = System.nanoTime();
+                try {
+                    AnswerSubmission submission = job.get();
+                    completed.increment();
+                    this.bytes.add(bytes);
+                    return submission;
+                } catch (RuntimeException e) {
+                    failed.increment();
+                    throw e;
+                } finally {
+                    busyNanos.add(System.nanoTime() - start);
+                }
+            }, executor);
+            result.whenComplete((submission, error) -> {
+                if (result.isCancelled() && claimed.compareAndSet(false, true)) {
+                    cancelled.increment();
+                    ifCancelled.run();
+                }
+            });
+            peakQueueDepth.accumulate(executor.getQueue().size());
+            return result;
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw e;
+        }
+    }
+
+    public Map<String, Object> stats() {
+        long b = bytes.sum();
+        long nanos = busyNanos.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("workers", executor.getMaximumPoolSize());
+        stats.put("active", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("peakQueueDepth", peakQueueDepth.get());
+        stats.put("completed", completed.sum());
+        stats.put("failed", failed.sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("cancelled", cancelled.sum());
+        stats.put("bytes", b);
+        // Per worker: bytes stored over the time workers spent storing them
+        stats.put("megabytesPerSecond", nanos == 0 ? 0.0 : b / 1e6 / (nanos / 1e9));
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -1,48 +1,136 @@
 package com.walkalong.backend.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walkalong.backend.dto.PlanTaskRow;
 import com.walkalong.backend.entity.LearningTask;
 import com.walkalong.backend.entity.TaskType;
 import com.walkalong.backend.repository.TaskRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
 import java.time.temporal.WeekFields;
 import java.util.List;
+import java.util.Iterator;
 import java.util.Locale;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ViewPlanService {
 
 
+    public enum Granularity {
+        DAY, WEEK, MONTH;
+
+        LocalDate bucketStart(LocalDate date) {
+            switch (this) {
+                case WEEK: return startOfWeek(date);
+                case MONTH: return date.withDayOfMonth(1);
+                default: return date;
+            }
+        }
+    }
+
+
+    private final PlanCache planCache;
     private final TaskRepository taskRepository;
+    private final ObjectMapper objectMapper;
 
 
-    public ViewPlanService(TaskRepository taskRepository) {
+    public ViewPlanService(PlanCache planCache, TaskRepository taskRepository, ObjectMapper objectMapper) {
+        this.planCache = planCache;
         this.taskRepository = taskRepository;
+        this.objectMapper = objectMapper;
     }
 
 
-    public List<LearningTask> getDailyTasks(LocalDate date) {
-        return taskRepository.findAll().stream()
-                .filter(t -> t.getType() == TaskType.DAILY)
-                .filter(t -> t.getAssignedDate() != null && t.getAssignedDate().equals(date))
-                .collect(Collectors.toList());
+    public List<LearningTask> getDailyTasks(Long userId, LocalDate date) {
+        return planCache.getTasks(userId, TaskType.DAILY, date, date.plusDays(1));
     }
 
-    public List<LearningTask> getWeeklyTasks(LocalDate date) {
-        int targetWeek = date.get(WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear());
-        return taskRepository.findAll().stream()
-                .filter(t -> t.getType() == TaskType.WEEKLY)
-                .filter(t -> t.getAssignedDate() != null && t.getAssignedDate().get(WeekFields.of(Locale.getDefault()).weekOfWeekBasedYear()) == targetWeek)
-                .collect(Collectors.toList());
+    public List<LearningTask> getWeeklyTasks(Long userId, LocalDate date) {
+        LocalDate start = startOfWeek(date);
+        return planCache.getTasks(userId, TaskType.WEEKLY, start, start.plusWeeks(1));
     }
     
-    public List<LearningTask> getMonthlyTasks(LocalDate date) {
-        int targetMonth = date.getMonthValue();
-        return taskRepository.findAll().stream()
-                .filter(t -> t.getType() == TaskType.MONTHLY)
-                .filter(t -> t.getAssignedDate() != null && t.getAssignedDate().getMonthValue() == targetMonth)
-                .collect(Collectors.toList());
-    }
-}
\ No newline at end of file
+    public List<LearningTask> getMonthlyTasks(Long userId, LocalDate date) {
+        LocalDate start = date.withDayOfMonth(1);
+        return planCache.getTasks(userId, TaskType.MONTHLY, start, start.plusMonths(1));
+    }
+
+    // Week boundaries follow the same locale rules the old weekOfWeekBasedYear comparison used
+    static LocalDate startOfWeek(LocalDate date) {
+        DayOfWeek firstDay = WeekFields.of(Locale.getDefault()).getFirstDayOfWeek();
+        return date.with(TemporalAdjusters.previousOrSame(firstDay));
+    }
+
+    /**
+     * Writes every task of the user assigned in [from, to) as JSON, grouped into day/week/month buckets.
+     * Rows come off one date-ordered cursor and are written as they arrive, so a bucket is closed as soon
+     * as the next row falls outside it and nothing beyond the current row is held in memory.
+     */
+    @Transactional(readOnly = true)
+    public void writeRange(Long userId, LocalDate from, LocalDate to, Granularity granularity, OutputStream out) throws IOException {
+        try (JsonGenerator json = objectMapper.getFactory().createGenerator(out);
+             Stream<PlanTaskRow> rows = taskRepository.streamPlanRows(userId, from, to)) {
+            json.writeStartObject();
+            json.writeStringField("from", from.toString());
+            json.writeStringField("to", to.toString());
+            json.writeStringField("granularity", granularity.name());
+            json.writeArrayFieldStart("buckets");
+
+            LocalDate current = null;
+            Iterator<PlanTaskRow> it = rows.iterator();
+            while (it.hasNext()) {
+                PlanTaskRow row = it.next();
+                LocalDate bucket = granularity.bucketStart(row.assignedDate());
+                if (!bucket.equals(current)) {
+                    if (current != null) {
+                        json.writeEndArray();
+                        json.writeEndObject();
+                    }
+                    current = bucket;
+                    json.writeStartObject();
+                    json.writeStringField("start", bucket.toString());
+                    json.writeArrayFieldStart("tasks");
+                }
+                writeRow(json, row);
+            }
+            if (current != null) {
+                json.writeEndArray();
+                json.writeEndObject();
+            }
+
+            json.writeEndArray();
+            json.writeEndObject();
+        }
+    }
+
+    private static void writeRow(JsonGenerator json, PlanTaskRow row) throws IOException {
+        json.writeStartObject();
+        json.writeNumberField("id", row.id());
+        json.writeStringField("title", row.title());
+        json.writeStringField("type", row.type() != null ? row.type().name() : null);
+        json.writeStringField("status", row.status() != null ? row.status().name() : null);
+        json.writeStringField("assignedDate", row.assignedDate().toString());
+        json.writeStringField("completedDate", row.completedDate() != null ? row.completedDate().toString() : null);
+        if (row.duration() != null) json.writeNumberField("duration", row.duration());
+        else json.writeNullField("duration");
+        if (row.points() != null) json.writeNumberField("points", row.points());
+        else json.writeNullField("points");
+        if (row.streamId() != null) {
+            json.writeObjectFieldStart("stream");
+            json.writeNumberField("id", row.streamId());
+            json.writeStringField("name", row.streamName());
+            json.writeEndObject();
+        } else {
+            json.writeNullField("stream");
+        }
+        json.writeEndObject();
+    }
+}
@@ -0,0 +1,144 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.service.FileStorageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class AnswerDownloadTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private FileStorageService fileStorageService;
+
+    private final byte[] pdf = new byte[100_000];
+    private String name;
+    private String url;
+
+    @BeforeEach
+    void storeFile() throws Exception {
+        Arrays.fill(pdf, (byte) 'x');
+        for (int i = 0; i < pdf.length; i += 1000) pdf[i] = (byte) (i / 1000);
+        name = UUID.randomUUID() + "_scan.pdf";
+        url = "/api/answers/download/" + name;
+        Path path = fileStorageService.getFilePath(name);
+        Files.createDirectories(path.getParent());
+        Files.write(path, pdf);
+    }
+
+    @AfterEach
+    void deleteFile() throws Exception {
+        Files.deleteIfExists(fileStorageService.getFilePath(name));
+    }
+
+    @Test
+    void servesWholeFileWithValidators() throws Exception {
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/pdf"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "100000"))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, FileDownloads.CACHE_CONTROL))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        assertArrayEquals(pdf, result.getResponse().getContentAsByteArray());
+        String etag = result.getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, "\"other\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void sendsMissesToSendfileAndLaterHitsFromMemory() throws Exception {
+        long hits = (Long) fileStorageService.hotFileStats().get("hits");
+        long misses = (Long) fileStorageService.hotFileStats().get("misses");
+        long fromMemory = (Long) fileStorageService.hotFileStats().get("bytesServedFromMemory");
+        MvcResult miss = mockMvc.perform(get(url).requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertEquals(fileStorageService.getFilePath(name).toString(),
+                miss.getRequest().getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(misses + 1, fileStorageService.hotFileStats().get("misses"));
+
+        // The miss queued the file to be cached in the background
+        FileStorageService.StoredFile file = fileStorageService.stat(name).orElseThrow();
+        for (int i = 0; i < 100 && !fileStorageService.servesFromMemory(file); i++) Thread.sleep(50);
+        assertTrue(fileStorageService.servesFromMemory(file));
+
+        MvcResult hit = mockMvc.perform(get(url)
+                        .header(HttpHeaders.RANGE, "bytes=99000-")
+                        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+        assertArrayEquals(Arrays.copyOfRange(pdf, 99_000, 100_000), hit.getResponse().getContentAsByteArray());
+        assertNull(hit.getRequest().getAttribute("org.apache.tomcat.sendfile.filename"));
+        mockMvc.perform(get("/api/answers/download-cache-stats"))
+                .andExpect(jsonPath("$.hits").value(hits + 1))
+                .andExpect(jsonPath("$.bytesServedFromMemory").value(fromMemory + 1000));
+    }
+
+    @Test
+    void servesSingleRanges() throws Exception {
+        MvcResult middle = mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=1000-1999"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 1000-1999/100000"))
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "1000"))
+                .andReturn();
+        assertArrayEquals(Arrays.copyOfRange(pdf, 1000, 2000), middle.getResponse().getContentAsByteArray());
+
+        MvcResult suffix = mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=-500"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 99500-99999/100000"))
+                .andReturn();
+        assertArrayEquals(Arrays.copyOfRange(pdf, 99_500, 100_000), suffix.getResponse().getContentAsByteArray());
+
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=200000-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */100000"));
+        // A stale If-Range means the client's partial copy is of something else: send everything
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=0-9").header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_LENGTH, "100000"));
+        mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=0-9,20-29"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void handsBodyToSendfileWhenTheConnectorSupportsIt() throws Exception {
+        MvcResult result = mockMvc.perform(get(url).header(HttpHeaders.RANGE, "bytes=10-19")
+                        .requestAttr("org.apache.tomcat.sendfile.support", Boolean.TRUE))
+                .andExpect(status().isPartialContent())
+                .andReturn();
+        assertEquals(0, result.getResponse().getContentAsByteArray().length);
+        assertEquals(fileStorageService.getFilePath(name).toString(),
+                result.getRequest().getAttribute("org.apache.tomcat.sendfile.filename"));
+        assertEquals(10L, result.getRequest().getAttribute("org.apache.tomcat.sendfile.start"));
+        assertEquals(20L, result.getRequest().getAttribute("org.apache.tomcat.sendfile.end"));
+    }
+
+    @Test
+    void rejectsMissingFilesAndPathsOutsideTheUploadDirectory() throws Exception {
+        mockMvc.perform(get("/api/answers/download/missing.pdf")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/answers/download/..%2F..%2Fpom.xml")).andExpect(status().is4xxClientError());
+    }
+}
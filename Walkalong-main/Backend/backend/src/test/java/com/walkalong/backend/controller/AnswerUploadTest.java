@@ -0,0 +1,178 @@
+package com.walkalong.backend.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import com.walkalong.backend.entity.AnswerQuestion;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.AnswerQuestionRepository;
+import com.walkalong.backend.repository.AnswerSubmissionRepository;
+import com.walkalong.backend.repository.StoredBlobRepository;
+import com.walkalong.backend.repository.UserRepository;
+import com.walkalong.backend.service.FileStorageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMultipartHttpServletRequestBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Not transactional: submissions are saved on the upload pool, outside the test's thread
+@SpringBootTest(properties = "walkalong.uploads.max-bytes=300000")
+@AutoConfigureMockMvc
+class AnswerUploadTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private UserRepository userRepository;
+    @Autowired private AnswerQuestionRepository questionRepository;
+    @Autowired private AnswerSubmissionRepository submissionRepository;
+    @Autowired private StoredBlobRepository blobRepository;
+    @Autowired private FileStorageService fileStorageService;
+
+    private User user;
+    private AnswerQuestion question;
+
+    @BeforeEach
+    void createQuestion() {
+        user = userRepository.save(new User(null, "uploader", "pw", "uploader@example.com"));
+        question = new AnswerQuestion();
+        question.setQuestionText("Derive the ideal gas law");
+        question = questionRepository.save(question);
+    }
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        submissionRepository.findAll().forEach(s -> {
+            try {
+                Files.deleteIfExists(fileStorageService.getFilePath(s.getPdfPath()));
+            } catch (Exception ignored) {
+            }
+        });
+        submissionRepository.deleteAll();
+        blobRepository.deleteAll();
+        questionRepository.delete(question);
+        userRepository.delete(user);
+    }
+
+    @Test
+    void storesPdfOffTheRequestThread() throws Exception {
+        byte[] pdf = "%PDF-1.7\n1 0 obj << >> endobj\n%%EOF".getBytes(StandardCharsets.UTF_8);
+        MvcResult started = mockMvc.perform(upload(pdf))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MvcResult done = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.pdfPath").isString())
+                .andExpect(jsonPath("$.originalName").value("answer.pdf"))
+                .andReturn();
+
+        String digest = JsonPath.read(done.getResponse().getContentAsString(), "$.pdfPath");
+        assertArrayEquals(pdf, Files.readAllBytes(fileStorageService.getFilePath(digest)));
+        // Downloads by digest still end in .pdf; by submission they keep the uploaded name
+        mockMvc.perform(get("/api/answers/download/" + digest))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + digest + ".pdf\""));
+        Integer id = JsonPath.read(done.getResponse().getContentAsString(), "$.id");
+        mockMvc.perform(get("/api/answers/submission/" + id + "/file"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"answer.pdf\""))
+                .andExpect(content().bytes(pdf));
+        mockMvc.perform(get("/api/answers/submission/" + (id + 1000) + "/file")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/answers/upload-stats"))
+                .andExpect(jsonPath("$.completed").value(greaterThanOrEqualTo(1)))
+                .andExpect(jsonPath("$.queueDepth").value(0));
+    }
+
+    @Test
+    void rejectsNonPdfAndOversizedFilesWithoutSavingASubmission() throws Exception {
+        MvcResult notPdf = mockMvc.perform(upload("PK\u0003\u0004 a zip".getBytes(StandardCharsets.ISO_8859_1)))
+                .andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(notPdf)).andExpect(status().isUnsupportedMediaType());
+
+        byte[] large = new byte[300_001];
+        Arrays.fill(large, (byte) ' ');
+        System.arraycopy("%PDF-".getBytes(StandardCharsets.US_ASCII), 0, large, 0, 5);
+        MvcResult tooLarge = mockMvc.perform(upload(large)).andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(tooLarge)).andExpect(status().isPayloadTooLarge());
+
+        assertEquals(0, submissionRepository.count());
+        try (var incoming = Files.list(fileStorageService.getFilePath(".incoming"))) {
+            assertEquals(0, incoming.count());
+        }
+    }
+
+    @Test
+    void resumesChunkedUploadsSentOutOfOrder() throws Exception {
+        byte[] pdf = new byte[200_000]; // four 64 KB chunks, the last one short
+        new Random(3).nextBytes(pdf);
+        System.arraycopy("%PDF-1.5".getBytes(StandardCharsets.US_ASCII), 0, pdf, 0, 8);
+        int chunk = 64 * 1024;
+
+        MvcResult started = mockMvc.perform(post("/api/answers/uploads").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"questionId\":" + question.getId() + ",\"timeTaken\":45,\"size\":200000,\"chunkSize\":" + chunk
+                                + ",\"fileName\":\"scans/Essay (final).pdf\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.chunkCount").value(4))
+                .andReturn();
+        String id = JsonPath.read(started.getResponse().getContentAsString(), "$.id");
+        String chunks = "/api/answers/uploads/" + id + "/chunks/";
+
+        mockMvc.perform(put(chunks + 3).content(Arrays.copyOfRange(pdf, 3 * chunk, pdf.length)))
+                .andExpect(status().isOk());
+        mockMvc.perform(put(chunks + 1).content(Arrays.copyOfRange(pdf, chunk, 2 * chunk)))
+                .andExpect(status().isOk());
+        mockMvc.perform(put(chunks + 2).content(new byte[10])).andExpect(status().isBadRequest());
+
+        // After a dropped connection the client asks what is left
+        mockMvc.perform(get("/api/answers/uploads/" + id))
+                .andExpect(jsonPath("$.received").value(2))
+                .andExpect(jsonPath("$.missing[0].from").value(0))
+                .andExpect(jsonPath("$.missing[0].to").value(0))
+                .andExpect(jsonPath("$.missing[1].from").value(2));
+        mockMvc.perform(post("/api/answers/uploads/" + id + "/complete")).andExpect(status().isConflict());
+
+        mockMvc.perform(put(chunks + 2).content(Arrays.copyOfRange(pdf, 2 * chunk, 3 * chunk))).andExpect(status().isOk());
+        mockMvc.perform(put(chunks + 0).content(Arrays.copyOfRange(pdf, 0, chunk))).andExpect(status().isOk());
+        mockMvc.perform(put(chunks + 1).content(Arrays.copyOfRange(pdf, chunk, 2 * chunk)))
+                .andExpect(jsonPath("$.missing.length()").value(0));
+
+        MvcResult completing = mockMvc.perform(post("/api/answers/uploads/" + id + "/complete"))
+                .andExpect(request().asyncStarted()).andReturn();
+        MvcResult done = mockMvc.perform(asyncDispatch(completing))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.timeTakenMinutes").value(45))
+                .andExpect(jsonPath("$.originalName").value("Essay (final).pdf"))
+                .andReturn();
+        String digest = JsonPath.read(done.getResponse().getContentAsString(), "$.pdfPath");
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(pdf)), digest);
+        assertArrayEquals(pdf, Files.readAllBytes(fileStorageService.getFilePath(digest)));
+        mockMvc.perform(get("/api/answers/uploads/" + id)).andExpect(status().isNotFound());
+    }
+
+    private MockMultipartHttpServletRequestBuilder upload(byte[] content) {
+        MockMultipartHttpServletRequestBuilder builder = multipart("/api/answers/submit");
+        builder.file(new MockMultipartFile("file", "answer.pdf", "application/pdf", content))
+                .param("questionId", question.getId().toString())
+                .param("timeTaken", "30");
+        return builder;
+    }
+}
@@ -0,0 +1,123 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.service.FileStorageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Concurrent download throughput against a real server. Not picked up by a plain mvn test; run it
+ * with mvn test -Dtest=DownloadThroughputBenchmark. Each scenario runs twice and the second,
+ * warm round is the one to compare.
+ */
+@Tag("benchmark")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class DownloadThroughputBenchmark {
+
+    private static final int CLIENTS = 32;
+    private static final int REQUESTS_PER_CLIENT = 10;
+    private static final int FILE_BYTES = 8 * 1024 * 1024;
+    private static final int RANGE_BYTES = 1024 * 1024;
+
+    @LocalServerPort private int port;
+    @Autowired private FileStorageService fileStorageService;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private String name;
+    private URI uri;
+
+    @BeforeEach
+    void storeFile() throws Exception {
+        byte[] pdf = new byte[FILE_BYTES];
+        ThreadLocalRandom.current().nextBytes(pdf);
+        name = UUID.randomUUID() + "_benchmark.pdf";
+        uri = URI.create("http://localhost:" + port + "/api/answers/download/" + name);
+        Path path = fileStorageService.getFilePath(name);
+        Files.createDirectories(path.getParent());
+        Files.write(path, pdf);
+    }
+
+    @AfterEach
+    void deleteFile() throws Exception {
+        Files.deleteIfExists(fileStorageService.getFilePath(name));
+    }
+
+    @Test
+    void wholeFiles() throws Exception {
+        for (int round = 1; round <= 2; round++) {
+            run("whole file, round " + round, i -> HttpRequest.newBuilder(uri).build(), 200, FILE_BYTES);
+        }
+    }
+
+    @Test
+    void oneMegabyteRanges() throws Exception {
+        for (int round = 1; round <= 2; round++) {
+            run("1 MB ranges, round " + round, i -> {
+                long start = (long) (i % (FILE_BYTES / RANGE_BYTES)) * RANGE_BYTES;
+                return HttpRequest.newBuilder(uri)
+                        .header("Range", "bytes=" + start + "-" + (start + RANGE_BYTES - 1))
+                        .build();
+            }, 206, RANGE_BYTES);
+        }
+    }
+
+    @Test
+    void revalidation() throws Exception {
+        String etag = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.discarding())
+                .headers().firstValue("ETag").orElseThrow();
+        for (int round = 1; round <= 2; round++) {
+            run("revalidation, round " + round, i -> HttpRequest.newBuilder(uri).header("If-None-Match", etag).build(), 304, 0);
+        }
+    }
+
+    private void run(String label, Function<Integer, HttpRequest> request, int expectedStatus, long expectedBytes) throws Exception {
+        ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long started = System.nanoTime();
+            List<Future<Long>> results = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                int clientIndex = c;
+                results.add(clients.submit(() -> {
+                    long bytes = 0;
+                    for (int r = 0; r < REQUESTS_PER_CLIENT; r++) {
+                        HttpResponse<byte[]> response = client.send(request.apply(clientIndex * REQUESTS_PER_CLIENT + r),
+                                HttpResponse.BodyHandlers.ofByteArray());
+                        assertEquals(expectedStatus, response.statusCode());
+                        assertEquals(expectedBytes, response.body().length);
+                        bytes += response.body().length;
+                    }
+                    return bytes;
+                }));
+            }
+            long bytes = 0;
+            for (Future<Long> result : results) bytes += result.get();
+            double seconds = (System.nanoTime() - started) / 1e9;
+            int requests = CLIENTS * REQUESTS_PER_CLIENT;
+            System.out.printf("%-24s %8.1f MB/s %8.1f req/s %8.2f ms/req%n",
+                    label, bytes / seconds / (1024 * 1024), requests / seconds, seconds * 1000 * CLIENTS / requests);
+        } finally {
+            clients.shutdown();
+        }
+    }
+}
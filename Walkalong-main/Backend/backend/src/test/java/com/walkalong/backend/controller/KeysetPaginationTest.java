@@ -0,0 +1,202 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.MoodEntry;
+import com.walkalong.backend.entity.Stream;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.MoodRepository;
+import com.walkalong.backend.repository.StreamRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.reflect.Method;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class KeysetPaginationTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 4, 1);
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private MoodRepository moodRepository;
+    @Autowired private StreamRepository streamRepository;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void walksTasksByAssignedDateThenId() throws Exception {
+        // Two tasks share a date so the id tie-breaker matters
+        save("c", DAY.plusDays(1));
+        save("a", DAY);
+        save("b", DAY);
+
+        MvcResult first = mockMvc.perform(get("/api/tasks").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("a"))
+                .andExpect(jsonPath("$[1].title").value("b"))
+                .andExpect(header().exists(Keyset.NEXT_CURSOR))
+                .andReturn();
+
+        MvcResult second = mockMvc.perform(get("/api/tasks").param("limit", "2")
+                        .param("cursor", first.getResponse().getHeader(Keyset.NEXT_CURSOR)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("c"))
+                .andReturn();
+        assertNull(second.getResponse().getHeader(Keyset.NEXT_CURSOR));
+    }
+
+    @Test
+    void pagesSparseFieldsWithoutLeakingKeys() throws Exception {
+        save("a", DAY);
+        save("b", DAY.plusDays(1));
+
+        MvcResult first = mockMvc.perform(get("/api/tasks").param("limit", "1").param("fields", "title"))
+                .andExpect(jsonPath("$[0].title").value("a"))
+                .andExpect(jsonPath("$[0].id").doesNotExist())
+                .andExpect(jsonPath("$[0].assignedDate").doesNotExist())
+                .andReturn();
+
+        mockMvc.perform(get("/api/tasks").param("limit", "1").param("fields", "title")
+                        .param("cursor", first.getResponse().getHeader(Keyset.NEXT_CURSOR)))
+                .andExpect(jsonPath("$[0].title").value("b"))
+                .andExpect(header().doesNotExist(Keyset.NEXT_CURSOR));
+    }
+
+    @Test
+    void walksMoodHistoryNewestFirst() throws Exception {
+        User user = userRepository.save(new User(null, "me", "pw", "me@example.com"));
+        for (int i = 0; i < 3; i++) {
+            moodRepository.save(new MoodEntry(null, DAY.plusDays(i), "NEUTRAL", "day " + i, user));
+        }
+
+        MvcResult first = mockMvc.perform(get("/api/mood/history").param("limit", "2"))
+                .andExpect(jsonPath("$[0].notes").value("day 2"))
+                .andExpect(jsonPath("$[1].notes").value("day 1"))
+                .andReturn();
+
+        mockMvc.perform(get("/api/mood/history").param("limit", "2")
+                        .param("cursor", first.getResponse().getHeader(Keyset.NEXT_CURSOR)))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].notes").value("day 0"));
+    }
+
+    @Test
+    void pagesPastTasksWithoutADate() throws Exception {
+        save("undated one", null);
+        save("dated", DAY);
+        save("undated two", null);
+
+        for (String fields : new String[]{null, "title"}) {
+            MvcResult first = mockMvc.perform(get("/api/tasks").param("limit", "2").param("fields", fields))
+                    .andExpect(jsonPath("$[0].title").value("dated"))
+                    .andExpect(jsonPath("$[1].title").value("undated one"))
+                    .andReturn();
+            mockMvc.perform(get("/api/tasks").param("limit", "2").param("fields", fields)
+                            .param("cursor", first.getResponse().getHeader(Keyset.NEXT_CURSOR)))
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].title").value("undated two"))
+                    .andExpect(header().doesNotExist(Keyset.NEXT_CURSOR));
+        }
+    }
+
+    @Test
+    void pagesPastStreamTasksWithoutADate() throws Exception {
+        Stream stream = streamRepository.save(new Stream("Undated"));
+        for (String title : new String[]{"undated one", "undated two", "undated three"}) {
+            save(title, null).setStream(stream);
+        }
+        save("dated", DAY).setStream(stream);
+        taskRepository.flush();
+
+        MvcResult first = mockMvc.perform(get("/api/streams/" + stream.getId() + "/tasks").param("limit", "2"))
+                .andExpect(jsonPath("$[0].title").value("dated"))
+                .andExpect(jsonPath("$[1].title").value("undated one"))
+                .andReturn();
+        MvcResult second = mockMvc.perform(get("/api/streams/" + stream.getId() + "/tasks").param("limit", "1")
+                        .param("cursor", first.getResponse().getHeader(Keyset.NEXT_CURSOR)))
+                .andExpect(jsonPath("$[0].title").value("undated two"))
+                .andReturn();
+        mockMvc.perform(get("/api/streams/" + stream.getId() + "/tasks").param("limit", "2")
+                        .param("cursor", second.getResponse().getHeader(Keyset.NEXT_CURSOR)))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("undated three"));
+    }
+
+    @Test
+    void pagesPastMoodEntriesWithoutADate() throws Exception {
+        User user = userRepository.findFirstByOrderByIdAsc()
+                .orElseGet(() -> userRepository.save(new User(null, "me", "pw", "me@example.com")));
+        moodRepository.save(new MoodEntry(null, null, "NEUTRAL", "undated one", user));
+        moodRepository.save(new MoodEntry(null, DAY, "NEUTRAL", "dated", user));
+        moodRepository.save(new MoodEntry(null, null, "NEUTRAL", "undated two", user));
+
+        for (String fields : new String[]{null, "notes"}) {
+            MvcResult first = mockMvc.perform(get("/api/mood/history").param("limit", "2").param("fields", fields))
+                    .andExpect(jsonPath("$[0].notes").value("dated"))
+                    .andExpect(jsonPath("$[1].notes").value("undated two"))
+                    .andReturn();
+            mockMvc.perform(get("/api/mood/history").param("limit", "2").param("fields", fields)
+                            .param("cursor", first.getResponse().getHeader(Keyset.NEXT_CURSOR)))
+                    .andExpect(jsonPath("$.length()").value(1))
+                    .andExpect(jsonPath("$[0].notes").value("undated one"));
+        }
+    }
+
+    @Test
+    void seeksDatedRowsWithoutAnOr() throws Exception {
+        // An "OR date IS NULL" branch turns the (date, id) range scan into a filter over the whole index
+        for (Method method : new Method[]{
+                TaskRepository.class.getMethod("findPageAfter", LocalDate.class, Long.class, Limit.class),
+                TaskRepository.class.getMethod("findStreamPageAfter", Long.class, LocalDate.class, Long.class, Limit.class),
+                MoodRepository.class.getMethod("findPageBefore", User.class, LocalDate.class, Long.class, Limit.class)}) {
+            String jpql = method.getAnnotation(Query.class).value();
+            assertFalse(jpql.toUpperCase().contains(" OR "), method.getName() + ": " + jpql);
+            assertFalse(jpql.toUpperCase().contains("NULLS"), method.getName() + ": " + jpql);
+        }
+    }
+
+    @Test
+    void continuesFromADatedCursorIntoUndatedTasks() throws Exception {
+        save("undated", null);
+        save("dated", DAY);
+
+        MvcResult first = mockMvc.perform(get("/api/tasks").param("limit", "1"))
+                .andExpect(jsonPath("$[0].title").value("dated"))
+                .andReturn();
+        mockMvc.perform(get("/api/tasks").param("limit", "1")
+                        .param("cursor", first.getResponse().getHeader(Keyset.NEXT_CURSOR)))
+                .andExpect(jsonPath("$[0].title").value("undated"))
+                .andExpect(header().doesNotExist(Keyset.NEXT_CURSOR));
+    }
+
+    @Test
+    void rejectsGarbageCursor() throws Exception {
+        mockMvc.perform(get("/api/streams").param("cursor", "not-a-cursor!"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private LearningTask save(String title, LocalDate date) {
+        LearningTask task = new LearningTask();
+        task.setTitle(title);
+        task.setAssignedDate(date);
+        return taskRepository.save(task);
+    }
+}
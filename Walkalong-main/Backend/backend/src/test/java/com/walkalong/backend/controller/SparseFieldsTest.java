@@ -0,0 +1,156 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.entity.AnswerQuestion;
+import com.walkalong.backend.entity.AnswerSubmission;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.MoodEntry;
+import com.walkalong.backend.entity.Stream;
+import com.walkalong.backend.entity.TaskType;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.AnswerQuestionRepository;
+import com.walkalong.backend.repository.AnswerSubmissionRepository;
+import com.walkalong.backend.repository.MoodRepository;
+import com.walkalong.backend.repository.StreamRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.repository.UserRepository;
+import com.walkalong.backend.service.PlanCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class SparseFieldsTest {
+
+    private static final LocalDate DAY = LocalDate.of(2030, 9, 2);
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private StreamRepository streamRepository;
+    @Autowired private MoodRepository moodRepository;
+    @Autowired private AnswerQuestionRepository questionRepository;
+    @Autowired private AnswerSubmissionRepository submissionRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PlanCache planCache;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        // The endpoints act for the first user
+        user = userRepository.findFirstByOrderByIdAsc()
+                .orElseGet(() -> userRepository.save(new User(null, "sparse", "secret", "sparse@example.com")));
+    }
+
+    @AfterEach
+    void dropCachedPlan() {
+        // The plan cache outlives the rolled back tasks
+        planCache.invalidate(user.getId());
+    }
+
+    @Test
+    void selectsOnlyRequestedTaskFieldsIncludingTheStream() throws Exception {
+        Stream physics = streamRepository.save(new Stream("Physics"));
+        task("Optics problems", physics);
+        task("Loose task", null);
+
+        mockMvc.perform(get("/api/tasks").param("fields", "title,stream.name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.title == 'Optics problems')].stream.name").value("Physics"))
+                .andExpect(jsonPath("$[?(@.title == 'Optics problems')].stream.id").doesNotExist())
+                .andExpect(jsonPath("$[0].id").doesNotExist())
+                .andExpect(jsonPath("$[0].status").doesNotExist())
+                .andExpect(jsonPath("$[0].user").doesNotExist());
+        mockMvc.perform(get("/api/tasks").param("fields", "id, title,title"))
+                .andExpect(jsonPath("$[0].id").exists())
+                .andExpect(jsonPath("$[0].length()").value(2));
+    }
+
+    @Test
+    void projectsCachedViewPlanTasks() throws Exception {
+        Stream maths = streamRepository.save(new Stream("Maths"));
+        LearningTask task = task("Integrals", maths);
+        task.setUser(user);
+        task.setType(TaskType.DAILY);
+        taskRepository.save(task);
+
+        mockMvc.perform(get("/api/view-plan/daily").param("date", DAY.toString()).param("fields", "title,stream.id,stream.name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("Integrals"))
+                .andExpect(jsonPath("$[0].stream.id").value(maths.getId()))
+                .andExpect(jsonPath("$[0].stream.name").value("Maths"))
+                .andExpect(jsonPath("$[0].type").doesNotExist());
+        mockMvc.perform(get("/api/view-plan/weekly").param("date", DAY.toString()).param("fields", "user.password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void selectsStreamAndMoodFields() throws Exception {
+        streamRepository.save(new Stream("Chemistry"));
+        moodRepository.save(new MoodEntry(null, DAY, "HAPPY", "good revision day", user));
+
+        mockMvc.perform(get("/api/streams").param("fields", "name"))
+                .andExpect(jsonPath("$[?(@.name == 'Chemistry')]").exists())
+                .andExpect(jsonPath("$[0].id").doesNotExist());
+        mockMvc.perform(get("/api/mood/history").param("fields", "mood,notes"))
+                .andExpect(jsonPath("$[?(@.notes == 'good revision day')].mood").value("HAPPY"))
+                .andExpect(jsonPath("$[0].date").doesNotExist())
+                .andExpect(jsonPath("$[0].user").doesNotExist());
+    }
+
+    @Test
+    void selectsQuestionAndSubmissionFieldsAcrossRelations() throws Exception {
+        AnswerQuestion question = new AnswerQuestion();
+        question.setQuestionText("Explain Le Chatelier's principle");
+        question.setSubject("Chemistry");
+        question.setTopic("Equilibrium");
+        questionRepository.save(question);
+        AnswerSubmission submission = new AnswerSubmission();
+        submission.setQuestion(question);
+        submission.setUser(user);
+        submission.setTimeTakenMinutes(42);
+        submissionRepository.save(submission);
+
+        mockMvc.perform(get("/api/answers/questions").param("fields", "topic"))
+                .andExpect(jsonPath("$[?(@.topic == 'Equilibrium')]").exists())
+                .andExpect(jsonPath("$[0].questionText").doesNotExist());
+        mockMvc.perform(get("/api/answers/my-submissions").param("fields", "timeTakenMinutes,question.topic,user.username"))
+                .andExpect(jsonPath("$[?(@.timeTakenMinutes == 42)].question.topic").value("Equilibrium"))
+                .andExpect(jsonPath("$[?(@.timeTakenMinutes == 42)].user.username").value(user.getUsername()))
+                .andExpect(jsonPath("$[?(@.timeTakenMinutes == 42)].question.questionText").doesNotExist())
+                .andExpect(jsonPath("$[0].pdfPath").doesNotExist());
+    }
+
+    @Test
+    void rejectsFieldsOutsideTheWhitelist() throws Exception {
+        mockMvc.perform(get("/api/tasks").param("fields", "title,user.password")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/tasks").param("fields", "nonsense")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/tasks").param("fields", " , ")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/streams").param("fields", "tasks")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/streams").param("fields", "user.email")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/mood/history").param("fields", "user.id")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/answers/questions").param("fields", "submissions")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/answers/my-submissions").param("fields", "user.password")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/answers/my-submissions").param("fields", "question.questionText")).andExpect(status().isBadRequest());
+    }
+
+    private LearningTask task(String title, Stream stream) {
+        LearningTask task = new LearningTask();
+        task.setTitle(title);
+        task.setAssignedDate(DAY);
+        task.setStream(stream);
+        return taskRepository.save(task);
+    }
+}
@@ -0,0 +1,100 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.Stream;
+import com.walkalong.backend.entity.TaskStatus;
+import com.walkalong.backend.repository.StreamRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class StreamControllerTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 5, 1);
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private StreamRepository streamRepository;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void summarizesEveryStreamInOneQuery() throws Exception {
+        Stream physics = streamRepository.save(new Stream("Physics"));
+        Stream empty = streamRepository.save(new Stream("Empty"));
+        task(physics, "a", TaskStatus.COMPLETED, DAY, DAY.plusDays(3), 15);
+        task(physics, "b", TaskStatus.PENDING, DAY.plusDays(1), null, 10);
+        task(physics, "c", TaskStatus.SKIPPED, DAY.plusDays(2), null, 10);
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get("/api/streams/summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.id == %d)].totalTasks", physics.getId()).value(3))
+                .andExpect(jsonPath("$[?(@.id == %d)].completedTasks", physics.getId()).value(1))
+                .andExpect(jsonPath("$[?(@.id == %d)].pendingTasks", physics.getId()).value(1))
+                .andExpect(jsonPath("$[?(@.id == %d)].pointsEarned", physics.getId()).value(15))
+                .andExpect(jsonPath("$[?(@.id == %d)].lastActivity", physics.getId()).value("2026-05-04"))
+                .andExpect(jsonPath("$[?(@.id == %d)].totalTasks", empty.getId()).value(0))
+                .andExpect(jsonPath("$[?(@.id == %d)].lastActivity", empty.getId()).value((Object) null));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void pagesAStreamsTasks() throws Exception {
+        Stream maths = streamRepository.save(new Stream("Maths"));
+        Stream other = streamRepository.save(new Stream("Other"));
+        task(maths, "second", TaskStatus.PENDING, DAY.plusDays(1), null, 10);
+        task(maths, "first", TaskStatus.PENDING, DAY, null, 10);
+        task(maths, "third", TaskStatus.PENDING, DAY.plusDays(2), null, 10);
+        task(other, "elsewhere", TaskStatus.PENDING, DAY, null, 10);
+
+        MvcResult first = mockMvc.perform(get("/api/streams/" + maths.getId() + "/tasks").param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("first"))
+                .andExpect(jsonPath("$[1].title").value("second"))
+                .andReturn();
+        mockMvc.perform(get("/api/streams/" + maths.getId() + "/tasks").param("limit", "2")
+                        .param("cursor", first.getResponse().getHeader(Keyset.NEXT_CURSOR)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].title").value("third"))
+                .andExpect(header().doesNotExist(Keyset.NEXT_CURSOR));
+
+        mockMvc.perform(get("/api/streams/-1/tasks")).andExpect(status().isNotFound());
+        // The list no longer drags every task along
+        mockMvc.perform(get("/api/streams")).andExpect(jsonPath("$[0].tasks").doesNotExist());
+    }
+
+    private void task(Stream stream, String title, TaskStatus status, LocalDate assigned, LocalDate completed, int points) {
+        LearningTask task = new LearningTask();
+        task.setTitle(title);
+        task.setStream(stream);
+        task.setStatus(status);
+        task.setAssignedDate(assigned);
+        task.setCompletedDate(completed);
+        task.setPoints(points);
+        taskRepository.save(task);
+    }
+}
@@ -0,0 +1,111 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.config.NoteContentMigration;
+import com.walkalong.backend.entity.Stream;
+import com.walkalong.backend.entity.StreamNote;
+import com.walkalong.backend.repository.StreamNoteRepository;
+import com.walkalong.backend.repository.StreamRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional
+class StreamNoteControllerTest {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private StreamRepository streamRepository;
+    @Autowired private StreamNoteRepository noteRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private EntityManager entityManager;
+
+    @Test
+    void storesBodiesCompressedAndListsWithoutThem() throws Exception {
+        Stream stream = streamRepository.save(new Stream("Biology"));
+        String body = "The mitochondria is the powerhouse of the cell. ".repeat(400) + "Ünïcødé ✓";
+        StreamNote note = noteRepository.save(new StreamNote(null, "Cells", body, stream));
+        noteRepository.save(new StreamNote(null, "Short", "tiny", stream));
+        entityManager.flush();
+        entityManager.clear();
+
+        Integer stored = jdbcTemplate.queryForObject(
+                "SELECT OCTET_LENGTH(content_data) FROM stream_note WHERE id = ?", Integer.class, note.getId());
+        int utf8 = body.getBytes(java.nio.charset.StandardCharsets.UTF_8).length;
+        assertTrue(stored < utf8 / 10, "stored " + stored + " of " + utf8);
+
+        mockMvc.perform(get("/api/stream-notes/stream/" + stream.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].title").value("Cells"))
+                .andExpect(jsonPath("$[0].size").value(utf8))
+                .andExpect(jsonPath("$[0].updatedAt").exists())
+                .andExpect(jsonPath("$[0].content").doesNotExist());
+
+        mockMvc.perform(get("/api/stream-notes/" + note.getId()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content").value(body));
+        mockMvc.perform(get("/api/stream-notes/-1")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void autosavesWithEditsAgainstABaseVersion() throws Exception {
+        Stream stream = streamRepository.save(new Stream("Physics"));
+        StreamNote note = noteRepository.save(new StreamNote(null, "Motion", "F = ma", stream));
+        String url = "/api/stream-notes/" + note.getId();
+
+        mockMvc.perform(patch(url).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"baseVersion\":0,\"edits\":[{\"at\":6,\"delete\":0,\"insert\":\" (Newton)\"}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1))
+                .andExpect(jsonPath("$.size").value(15));
+        mockMvc.perform(patch(url).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"baseVersion\":0,\"edits\":[]}"))
+                .andExpect(status().isConflict());
+        mockMvc.perform(patch(url).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"baseVersion\":1,\"edits\":[{\"at\":99,\"delete\":0,\"insert\":\"x\"}]}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(patch("/api/stream-notes/-1").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"baseVersion\":0,\"edits\":[]}"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get(url))
+                .andExpect(jsonPath("$.content").value("F = ma (Newton)"))
+                .andExpect(jsonPath("$.version").value(1));
+        mockMvc.perform(get(url + "/versions/0")).andExpect(jsonPath("$.content").value("F = ma"));
+        mockMvc.perform(get(url + "/versions/2")).andExpect(status().isNotFound());
+    }
+
+    @Test
+    void migratesBodiesFromTheOldTextColumn() {
+        Stream stream = streamRepository.save(new Stream("Legacy"));
+        StreamNote note = noteRepository.save(new StreamNote(null, "Old", null, stream));
+        entityManager.flush();
+        jdbcTemplate.execute("ALTER TABLE stream_note ADD COLUMN content TEXT");
+        try {
+            jdbcTemplate.update("UPDATE stream_note SET content = ?, content_data = NULL WHERE id = ?",
+                    "written before compression", note.getId());
+
+            new NoteContentMigration(jdbcTemplate).afterPropertiesSet();
+
+            entityManager.clear();
+            StreamNote migrated = noteRepository.findById(note.getId()).orElseThrow();
+            assertEquals("written before compression", migrated.getContent());
+            assertEquals(26, migrated.getContentSize());
+            assertNull(jdbcTemplate.queryForObject("SELECT content FROM stream_note WHERE id = ?", String.class, note.getId()));
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE stream_note DROP COLUMN content");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.dto.TaskStats;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskStatus;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.repository.UserRepository;
+import com.walkalong.backend.service.TaskCounterStore;
+import com.walkalong.backend.service.TaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Not @Transactional: each status change must commit on its own for the version check to matter
+@SpringBootTest
+@AutoConfigureMockMvc
+class TaskStatusConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int TOGGLES_PER_THREAD = 25;
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private TaskService taskService;
+    @Autowired private TaskCounterStore taskCounterStore;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private UserRepository userRepository;
+
+    private User user;
+    private LearningTask task;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(new User(null, "toggler", "pw", "toggler@example.com"));
+        LearningTask newTask = new LearningTask();
+        newTask.setTitle("contested");
+        newTask.setUser(user);
+        task = taskService.createAll(List.of(newTask)).get(0);
+    }
+
+    @AfterEach
+    void tearDown() {
+        taskService.delete(task.getId());
+        userRepository.delete(user);
+    }
+
+    @Test
+    void concurrentTogglesNeverOverwriteEachOther() throws Exception {
+        AtomicInteger applied = new AtomicInteger();
+        AtomicInteger conflicts = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < TOGGLES_PER_THREAD; i++) {
+                    LearningTask seen = taskRepository.findById(task.getId()).orElseThrow();
+                    TaskStatus next = seen.getStatus() == TaskStatus.COMPLETED ? TaskStatus.PENDING : TaskStatus.COMPLETED;
+                    try {
+                        taskService.updateStatus(task.getId(), next, seen.getVersion());
+                        applied.incrementAndGet();
+                    } catch (ObjectOptimisticLockingFailureException e) {
+                        conflicts.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        LearningTask last = taskRepository.findById(task.getId()).orElseThrow();
+        assertEquals(THREADS * TOGGLES_PER_THREAD, applied.get() + conflicts.get());
+        assertTrue(applied.get() > 0);
+        // Every applied change bumped the version exactly once; no write was lost or doubled
+        assertEquals(task.getVersion() + applied.get(), last.getVersion());
+        // Each applied change flipped the status, so parity tells where it must have ended up
+        assertEquals(applied.get() % 2 == 0 ? TaskStatus.PENDING : TaskStatus.COMPLETED, last.getStatus());
+        assertEquals(last.getStatus() == TaskStatus.COMPLETED, last.getCompletedDate() != null);
+
+        TaskStats stats = taskCounterStore.get(user.getId());
+        assertEquals(1, stats.totalTasks());
+        assertEquals(last.getStatus() == TaskStatus.COMPLETED ? 1 : 0, stats.completedTasks());
+    }
+
+    @Test
+    void staleVersionIsRejectedWithConflict() throws Exception {
+        long version = task.getVersion();
+        mockMvc.perform(put("/api/tasks/" + task.getId() + "/status").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"COMPLETED\",\"version\":" + version + "}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("COMPLETED"))
+                .andExpect(jsonPath("$.version").value(version + 1));
+
+        mockMvc.perform(put("/api/tasks/" + task.getId() + "/status").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"status\":\"SKIPPED\",\"version\":" + version + "}"))
+                .andExpect(status().isConflict());
+        assertEquals(TaskStatus.COMPLETED, taskRepository.findById(task.getId()).orElseThrow().getStatus());
+    }
+}
@@ -0,0 +1,125 @@
+package com.walkalong.backend.controller;
+
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.UserRepository;
+import com.walkalong.backend.service.TaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+// Not @Transactional: the body is streamed on another thread, which must see committed tasks
+@SpringBootTest
+@AutoConfigureMockMvc
+class ViewPlanRangeTest {
+
+    // Far enough out that tasks other tests leave behind don't fall into the range
+    private static final LocalDate MARCH = LocalDate.of(2031, 3, 1);
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private TaskService taskService;
+    @Autowired private UserRepository userRepository;
+
+    private User created;
+    private final List<LearningTask> tasks = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        // The endpoint plans for the first user
+        if (userRepository.findFirstByOrderByIdAsc().isEmpty()) {
+            created = userRepository.save(new User(null, "planner", "pw", "planner@example.com"));
+        }
+        tasks.addAll(taskService.createAll(List.of(
+                task("april", MARCH.plusMonths(1).plusDays(1)),
+                task("march first", MARCH.plusDays(4)),
+                task("march second", MARCH.plusDays(4)),
+                task("june", MARCH.plusMonths(3)))));
+    }
+
+    @AfterEach
+    void tearDown() {
+        tasks.forEach(task -> taskService.delete(task.getId()));
+        if (created != null) userRepository.delete(created);
+    }
+
+    @Test
+    void streamsTasksBucketedByMonthInDateOrder() throws Exception {
+        range(MARCH, MARCH.plusMonths(2), "month")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from").value("2031-03-01"))
+                .andExpect(jsonPath("$.to").value("2031-05-01"))
+                .andExpect(jsonPath("$.granularity").value("MONTH"))
+                .andExpect(jsonPath("$.buckets.length()").value(2))
+                .andExpect(jsonPath("$.buckets[0].start").value("2031-03-01"))
+                .andExpect(jsonPath("$.buckets[0].tasks[0].title").value("march first"))
+                .andExpect(jsonPath("$.buckets[0].tasks[1].title").value("march second"))
+                .andExpect(jsonPath("$.buckets[0].tasks[0].assignedDate").value("2031-03-05"))
+                .andExpect(jsonPath("$.buckets[0].tasks[0].stream").isEmpty())
+                .andExpect(jsonPath("$.buckets[1].start").value("2031-04-01"))
+                .andExpect(jsonPath("$.buckets[1].tasks.length()").value(1))
+                .andExpect(jsonPath("$.buckets[1].tasks[0].title").value("april"));
+    }
+
+    @Test
+    void bucketsByDayByDefault() throws Exception {
+        mockMvc.perform(asyncDispatch(mockMvc.perform(get("/api/view-plan/range")
+                                .param("from", MARCH.toString())
+                                .param("to", MARCH.plusMonths(2).toString()))
+                        .andExpect(request().asyncStarted())
+                        .andReturn()))
+                .andExpect(jsonPath("$.granularity").value("DAY"))
+                .andExpect(jsonPath("$.buckets.length()").value(2))
+                .andExpect(jsonPath("$.buckets[0].start").value("2031-03-05"))
+                .andExpect(jsonPath("$.buckets[1].start").value("2031-04-02"));
+    }
+
+    @Test
+    void returnsNoBucketsForARangeWithoutTasks() throws Exception {
+        range(MARCH.plusYears(1), MARCH.plusYears(1).plusMonths(1), "week")
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity").value("WEEK"))
+                .andExpect(jsonPath("$.buckets.length()").value(0));
+    }
+
+    @Test
+    void rejectsEmptyOrInvalidRanges() throws Exception {
+        mockMvc.perform(get("/api/view-plan/range").param("from", MARCH.toString()).param("to", MARCH.toString()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/view-plan/range").param("from", MARCH.toString()).param("to", MARCH.minusDays(1).toString()))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/view-plan/range").param("from", MARCH.toString())
+                        .param("to", MARCH.plusMonths(1).toString()).param("granularity", "fortnight"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/view-plan/range").param("from", "not-a-date").param("to", MARCH.toString()))
+                .andExpect(status().isBadRequest());
+    }
+
+    private ResultActions range(LocalDate from, LocalDate to, String granularity) throws Exception {
+        return mockMvc.perform(asyncDispatch(mockMvc.perform(get("/api/view-plan/range")
+                        .param("from", from.toString())
+                        .param("to", to.toString())
+                        .param("granularity", granularity))
+                .andExpect(request().asyncStarted())
+                .andReturn()));
+    }
+
+    private static LearningTask task(String title, LocalDate date) {
+        LearningTask task = new LearningTask();
+        task.setTitle(title);
+        task.setAssignedDate(date);
+        return task;
+    }
+}
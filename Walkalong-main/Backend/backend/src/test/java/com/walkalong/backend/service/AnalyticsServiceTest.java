@@ -0,0 +1,67 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.TaskStats;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskStatus;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({AnalyticsService.class, TaskCounterStore.class})
+class AnalyticsServiceTest {
+
+    @Autowired private AnalyticsService analyticsService;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void aggregatesPerUserInOneQuery() {
+        User me = userRepository.save(new User(null, "me", "pw", "me@example.com"));
+        User other = userRepository.save(new User(null, "other", "pw", "other@example.com"));
+        save(me, TaskStatus.COMPLETED, 10);
+        save(me, TaskStatus.COMPLETED, 5);
+        save(me, TaskStatus.SKIPPED, 10);
+        save(me, TaskStatus.PENDING, 20);
+        save(other, TaskStatus.COMPLETED, 100);
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        TaskStats stats = analyticsService.aggregateTaskStats(me.getId());
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(4, stats.totalTasks());
+        assertEquals(2, stats.completedTasks());
+        assertEquals(1, stats.skippedTasks());
+        assertEquals(1, stats.pendingTasks());
+        assertEquals(45, stats.totalPoints());
+        assertEquals(15, stats.earnedPoints());
+        assertEquals(0.5, stats.learningRate());
+    }
+
+    private void save(User user, TaskStatus status, int points) {
+        LearningTask task = new LearningTask();
+        task.setTitle("task");
+        task.setUser(user);
+        task.setStatus(status);
+        task.setPoints(points);
+        taskRepository.save(task);
+    }
+}
@@ -0,0 +1,102 @@
+package com.walkalong.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.MoodEntry;
+import com.walkalong.backend.entity.TaskStatus;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.AnswerSubmissionRepository;
+import com.walkalong.backend.repository.MoodRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ExportService.class, ObjectMapper.class})
+class ExportServiceTest {
+
+    @Autowired private ExportService exportService;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private MoodRepository moodRepository;
+    @Autowired private UserRepository userRepository;
+
+    @Test
+    void exportsOnlyTheUsersRows() throws Exception {
+        User me = userRepository.save(new User(null, "me", "secret", "me@example.com"));
+        User other = userRepository.save(new User(null, "other", "pw", "other@example.com"));
+        task(me, "Read, then \"summarise\"");
+        task(other, "not mine");
+        moodRepository.save(new MoodEntry(null, LocalDate.of(2026, 1, 2), "LOW", null, me));
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        exportService.export(ExportService.Kind.TASKS, ExportService.Format.CSV, me.getId(), csv);
+        String[] lines = csv.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(2, lines.length);
+        assertEquals("id,title,type,status,assignedDate,completedDate,duration,points,streamId,streamName", lines[0]);
+        assertEquals(",\"Read, then \"\"summarise\"\"\",,PENDING,,,,10,,", lines[1].substring(lines[1].indexOf(',')));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        exportService.export(ExportService.Kind.MOODS, ExportService.Format.NDJSON, me.getId(), ndjson);
+        String body = ndjson.toString(StandardCharsets.UTF_8);
+        assertEquals(1, body.lines().count());
+        assertEquals("\"date\":\"2026-01-02\",\"mood\":\"LOW\",\"notes\":null}", body.substring(body.indexOf("\"date\"")).trim());
+    }
+
+    @Test
+    void streamsMillionRowsWithoutCollectingThem() throws Exception {
+        ExportService service = new ExportService(mock(TaskRepository.class), mock(MoodRepository.class),
+                mock(AnswerSubmissionRepository.class), new ObjectMapper());
+        AtomicInteger detaches = new AtomicInteger();
+        CountingOutputStream out = new CountingOutputStream();
+
+        // Rows are generated lazily and dropped after writing; nothing sized by the row count is kept
+        service.write(LongStream.range(0, 1_000_000).mapToObj(ExportServiceTest::syntheticMood),
+                ExportService.MOOD_COLUMNS, ExportService.Format.NDJSON, out, detaches::incrementAndGet);
+
+        assertEquals(1_000_000, out.lines);
+        assertEquals(1_000_000 / ExportService.FLUSH_EVERY, detaches.get());
+    }
+
+    private static MoodEntry syntheticMood(long i) {
+        return new MoodEntry(i, LocalDate.of(2020, 1, 1).plusDays(i % 3000), "NEUTRAL", "note " + i, null);
+    }
+
+    private void task(User user, String title) {
+        LearningTask task = new LearningTask();
+        task.setTitle(title);
+        task.setUser(user);
+        task.setStatus(TaskStatus.PENDING);
+        taskRepository.save(task);
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') lines++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') lines++;
+            }
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.entity.AnswerSubmission;
+import com.walkalong.backend.entity.StoredBlob;
+import com.walkalong.backend.repository.AnswerSubmissionRepository;
+import com.walkalong.backend.repository.StoredBlobRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not rolled back: reference counts are committed outside the caller's transaction
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({FileStorageService.class, UploadLayoutMigration.class})
+class FileStorageServiceTest {
+
+    @Autowired private FileStorageService storage;
+    @Autowired private UploadLayoutMigration migration;
+    @Autowired private StoredBlobRepository blobRepository;
+    @Autowired private AnswerSubmissionRepository submissionRepository;
+
+    private final List<String> digests = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() throws Exception {
+        submissionRepository.deleteAll();
+        for (String digest : digests) {
+            blobRepository.deleteById(digest);
+            Files.deleteIfExists(storage.getFilePath(digest));
+        }
+    }
+
+    @Test
+    void storesIdenticalUploadsOnce() throws Exception {
+        byte[] scan = "%PDF-1.7 same scan".getBytes(StandardCharsets.UTF_8);
+        String first = store("answer.pdf", scan);
+        String second = store("answer (1).pdf", scan);
+        String other = store("answer.pdf", "%PDF-1.7 another scan".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(scan)), first);
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+        assertArrayEquals(scan, Files.readAllBytes(storage.getFilePath(first)));
+        assertEquals(2, blobRepository.findById(first).orElseThrow().getRefCount());
+        assertEquals(1, blobRepository.findById(other).orElseThrow().getRefCount());
+        assertEquals("\"" + first + "\"", storage.stat(first).orElseThrow().etag());
+        try (var incoming = Files.list(storage.getFilePath(".incoming"))) {
+            assertEquals(0, incoming.count());
+        }
+    }
+
+    @Test
+    void expiresAbandonedChunkedUploads() throws Exception {
+        ChunkedUploadService uploads = new ChunkedUploadService(storage, null, null, 1 << 20, 10, 60);
+        String id = uploads.start(1L, 1L, 5, null, "scan.pdf", 200_000, 64 * 1024).id();
+        uploads.putChunk(id, 1, new ByteArrayInputStream(new byte[64 * 1024]));
+        Path file = storage.getFilePath(".incoming").resolve(id + ".chunks");
+        assertEquals(2 * 64 * 1024, Files.size(file)); // chunk 1 landed at its offset, leaving a hole for chunk 0
+
+        uploads.expire(System.currentTimeMillis() - 60_000);
+        assertEquals(1, uploads.status(id).received());
+
+        uploads.expire(System.currentTimeMillis() + 1000);
+        assertThrows(ResponseStatusException.class, () -> uploads.status(id));
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void stalledChunkUploadsDontHoldUpExpiry() throws Exception {
+        ChunkedUploadService uploads = new ChunkedUploadService(storage, null, null, 1 << 20, 10, 60);
+        String id = uploads.start(1L, 1L, 5, null, "scan.pdf", 200_000, 64 * 1024).id();
+        byte[] chunk = new byte[64 * 1024];
+        System.arraycopy("%PDF-1.4".getBytes(StandardCharsets.US_ASCII), 0, chunk, 0, 8);
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        // Sends half the chunk, then stalls until the session has expired
+        InputStream stalled = new SequenceInputStream(new ByteArrayInputStream(chunk, 0, 32 * 1024), new InputStream() {
+            private final InputStream rest = new ByteArrayInputStream(chunk, 32 * 1024, 32 * 1024);
+
+            @Override
+            public int read() throws IOException {
+                sending.countDown();
+                try {
+                    resume.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                return rest.read();
+            }
+        });
+        ExecutorService client = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> put = client.submit(() -> uploads.putChunk(id, 0, stalled));
+            assertTrue(sending.await(5, TimeUnit.SECONDS));
+
+            uploads.expire(System.currentTimeMillis() + 1000);
+            assertThrows(ResponseStatusException.class, () -> uploads.status(id));
+            resume.countDown();
+            ExecutionException failed = assertThrows(ExecutionException.class, () -> put.get(5, TimeUnit.SECONDS));
+            assertEquals(409, ((ResponseStatusException) failed.getCause()).getStatusCode().value());
+        } finally {
+            resume.countDown();
+            client.shutdownNow();
+        }
+    }
+
+    @Test
+    void collectsBlobsNoSubmissionReferences() {
+        String kept = store("kept.pdf", "%PDF-1.7 kept".getBytes(StandardCharsets.UTF_8));
+        String orphan = store("orphan.pdf", "%PDF-1.7 orphan".getBytes(StandardCharsets.UTF_8)); // its submission was never saved
+        String released = store("released.pdf", "%PDF-1.7 released".getBytes(StandardCharsets.UTF_8));
+        storage.release(released);
+        AnswerSubmission submission = new AnswerSubmission();
+        submission.setPdfPath(kept);
+        submissionRepository.save(submission);
+
+        // Nothing is old enough yet
+        assertEquals(0, storage.collectGarbage(LocalDateTime.now().minusMinutes(1)));
+
+        assertEquals(2, storage.collectGarbage(LocalDateTime.now().plusMinutes(1)));
+        assertTrue(Files.exists(storage.getFilePath(kept)));
+        assertFalse(Files.exists(storage.getFilePath(orphan)));
+        assertFalse(Files.exists(storage.getFilePath(released)));
+        assertEquals(1, blobRepository.findById(kept).map(StoredBlob::getRefCount).orElseThrow());
+        assertFalse(blobRepository.existsById(orphan));
+        // Counts are settled now, so the next run writes no rows
+        assertEquals(0, blobRepository.reconcile(LocalDateTime.now().plusMinutes(1)));
+    }
+
+    @Test
+    void migratesFlatFilesIntoShardsWhileServingThem() throws Exception {
+        Path flatDir = storage.getFilePath(".incoming").getParent();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            String name = UUID.randomUUID() + "_old scan " + i + ".pdf";
+            Files.writeString(flatDir.resolve(name), "%PDF-1.4 legacy " + i);
+            names.add(name);
+        }
+        String blob = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(new byte[]{42}));
+        Files.write(flatDir.resolve(blob), new byte[]{42});
+        digests.add(blob);
+
+        // Before the move lookups fall back to the flat directory
+        assertEquals(flatDir.resolve(names.get(0)), storage.getFilePath(names.get(0)));
+        String etag = storage.stat(names.get(0)).orElseThrow().etag();
+
+        assertTrue(migration.runNow());
+
+        assertEquals(41L, migration.status().get("moved"));
+        assertEquals(etag, storage.stat(names.get(0)).orElseThrow().etag()); // a rename keeps the validators
+        for (String name : names) {
+            Path path = storage.getFilePath(name);
+            assertFalse(Files.exists(flatDir.resolve(name)));
+            assertEquals(flatDir, path.getParent().getParent().getParent());
+            assertEquals(2, path.getParent().getFileName().toString().length());
+            Files.delete(path);
+        }
+        Path blobPath = storage.getFilePath(blob);
+        assertEquals(blob.substring(2, 4), blobPath.getParent().getFileName().toString());
+        assertArrayEquals(new byte[]{42}, Files.readAllBytes(blobPath));
+        assertTrue(migration.runNow());
+        assertEquals(0L, migration.status().get("moved"));
+    }
+
+    private String store(String name, byte[] content) {
+        String digest = storage.storeFile(new MockMultipartFile("file", name, "application/pdf", content));
+        digests.add(digest);
+        return digest;
+    }
+}
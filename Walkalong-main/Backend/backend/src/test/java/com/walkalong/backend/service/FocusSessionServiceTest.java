@@ -0,0 +1,124 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.entity.FocusSession;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.repository.FocusSessionRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(FocusSessionService.class)
+class FocusSessionServiceTest {
+
+    @Autowired private FocusSessionService focusSessionService;
+    @Autowired private FocusSessionRepository sessionRepository;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private EntityManager entityManager;
+
+    private LearningTask task;
+
+    @BeforeEach
+    void setUp() {
+        task = new LearningTask();
+        task.setTitle("focus");
+        task = taskRepository.save(task);
+    }
+
+    @Test
+    void coalescesConcurrentHeartbeatsIntoOneWritePerSession() throws Exception {
+        List<FocusSession> sessions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            sessions.add(focusSessionService.start(task.getId()));
+        }
+        LocalDateTime base = sessions.get(0).getStartedAt();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            futures.add(pool.submit(() -> {
+                for (int beat = 1; beat <= 500; beat++) {
+                    for (FocusSession session : sessions) {
+                        assertTrue(focusSessionService.heartbeat(session.getId(), base.plusSeconds(beat)));
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(30, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // 80,000 beats, nothing written yet, one buffered timestamp per session
+        assertEquals(20, focusSessionService.pendingCount());
+        entityManager.clear();
+        assertEquals(0, sessionRepository.findById(sessions.get(0).getId()).orElseThrow().getFocusedSeconds());
+
+        assertEquals(20, focusSessionService.flush(base.plusSeconds(500)));
+        assertEquals(0, focusSessionService.pendingCount());
+        entityManager.clear();
+        for (FocusSession session : sessionRepository.findAllById(sessions.stream().map(FocusSession::getId).toList())) {
+            assertEquals(base.plusSeconds(500), session.getLastHeartbeatAt());
+            assertNull(session.getEndedAt());
+        }
+    }
+
+    @Test
+    void flushesBufferedBeatsOnShutdown() {
+        FocusSession session = focusSessionService.start(task.getId());
+        LocalDateTime beat = session.getStartedAt().plusSeconds(30);
+        focusSessionService.heartbeat(session.getId(), beat);
+
+        focusSessionService.flushOnShutdown();
+
+        entityManager.clear();
+        assertEquals(beat, sessionRepository.findById(session.getId()).orElseThrow().getLastHeartbeatAt());
+    }
+
+    @Test
+    void closesIdleSessionsAtTheirLastPersistedBeat() {
+        FocusSession session = focusSessionService.start(task.getId());
+        LocalDateTime start = session.getStartedAt();
+        focusSessionService.heartbeat(session.getId(), start.plusSeconds(30));
+        focusSessionService.flush(start.plusSeconds(35));
+
+        // A crash here loses only what was buffered since the last flush; then the beats stop
+        focusSessionService.flush(start.plusMinutes(10));
+
+        entityManager.clear();
+        FocusSession closed = sessionRepository.findById(session.getId()).orElseThrow();
+        assertEquals(start.plusSeconds(30), closed.getEndedAt());
+        assertEquals(30, closed.getFocusedSeconds());
+        assertFalse(focusSessionService.heartbeat(session.getId(), start.plusMinutes(11)));
+    }
+
+    @Test
+    void stopEndsTheSessionAndIgnoresLaterBeats() {
+        FocusSession session = focusSessionService.start(task.getId());
+        focusSessionService.heartbeat(session.getId(), LocalDateTime.now());
+
+        FocusSession stopped = focusSessionService.stop(session.getId());
+        assertNotNull(stopped.getEndedAt());
+        assertEquals(0, focusSessionService.pendingCount());
+        entityManager.flush();
+        assertFalse(focusSessionService.heartbeat(session.getId(), LocalDateTime.now()));
+        assertFalse(focusSessionService.heartbeat(-1L, LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,153 @@
+package com.walkalong.backend.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotFileCacheTest {
+
+    private static final int SEGMENT = HotFileCache.SEGMENT;
+
+    @TempDir Path dir;
+
+    @Test
+    void servesRangesFromMemoryAfterFirstLoad() throws Exception {
+        HotFileCache cache = new HotFileCache(4 * SEGMENT, 2 * SEGMENT);
+        byte[] content = bytes(SEGMENT + 1000, 1);
+        FileStorageService.StoredFile file = write("a.pdf", content);
+
+        assertNull(cache.get(file));
+        assertFalse(cache.contains(file));
+        assertArrayEquals(content, read(cache, load(cache, file), 0, content.length));
+        assertTrue(cache.contains(file)); // neither a hit nor a miss
+        // A range across the segment boundary
+        assertArrayEquals(Arrays.copyOfRange(content, SEGMENT - 10, SEGMENT + 10),
+                read(cache, cache.get(file), SEGMENT - 10, 20));
+
+        assertEquals(1L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+        assertEquals((long) content.length + 20, cache.stats().get("bytesServedFromMemory"));
+        assertEquals((long) content.length, cache.stats().get("cachedBytes"));
+        assertFalse(cache.admits(2 * SEGMENT + 1));
+    }
+
+    @Test
+    void evictsLeastRecentlyServedFilesToStayInBudget() throws Exception {
+        HotFileCache cache = new HotFileCache(3 * SEGMENT, 2 * SEGMENT);
+        FileStorageService.StoredFile a = write("a.pdf", bytes(SEGMENT, 1));
+        FileStorageService.StoredFile b = write("b.pdf", bytes(SEGMENT, 2));
+        FileStorageService.StoredFile c = write("c.pdf", bytes(2 * SEGMENT, 3));
+        cache.release(load(cache, a));
+        cache.release(load(cache, b));
+        cache.release(cache.get(a)); // b is now the least recently served
+
+        cache.release(load(cache, c));
+
+        assertNull(cache.get(b));
+        cache.release(cache.get(a));
+        cache.release(cache.get(c));
+        assertEquals(1L, cache.stats().get("evictions"));
+        assertEquals(3L * SEGMENT, cache.stats().get("allocatedBytes"));
+    }
+
+    @Test
+    void keepsBuffersOfAFileUntilItsDownloadEnds() throws Exception {
+        HotFileCache cache = new HotFileCache(SEGMENT, SEGMENT);
+        byte[] first = bytes(SEGMENT, 1);
+        FileStorageService.StoredFile a = write("a.pdf", first);
+        FileStorageService.StoredFile b = write("b.pdf", bytes(SEGMENT, 2));
+        HotFileCache.Entry downloading = load(cache, a);
+
+        // The only buffer is still being read from, so b is served from disk instead of overwriting it
+        assertNull(load(cache, b));
+        assertArrayEquals(first, read(cache, downloading, 0, SEGMENT));
+
+        assertNotNull(load(cache, b));
+    }
+
+    @Test
+    void skipsFilesBeingDownloadedWhenMakingRoom() throws Exception {
+        HotFileCache cache = new HotFileCache(3 * SEGMENT, 2 * SEGMENT);
+        FileStorageService.StoredFile a = write("a.pdf", bytes(SEGMENT, 1));
+        FileStorageService.StoredFile b = write("b.pdf", bytes(SEGMENT, 2));
+        FileStorageService.StoredFile c = write("c.pdf", bytes(2 * SEGMENT, 3));
+        FileStorageService.StoredFile d = write("d.pdf", bytes(2 * SEGMENT, 4));
+        HotFileCache.Entry downloadingA = load(cache, a);
+        cache.release(load(cache, b));
+
+        // a is the least recently served but still pinned, so b makes room instead
+        HotFileCache.Entry downloadingC = load(cache, c);
+        assertNotNull(downloadingC);
+        assertTrue(cache.contains(a));
+        assertFalse(cache.contains(b));
+
+        // Only pinned files are left; d goes to disk and the cache keeps what it has
+        assertNull(load(cache, d));
+        assertTrue(cache.contains(a));
+        assertTrue(cache.contains(c));
+        assertEquals(1L, cache.stats().get("evictions"));
+        cache.release(downloadingA);
+        cache.release(downloadingC);
+    }
+
+    @Test
+    void reloadsAFileReplacedOnDisk() throws Exception {
+        HotFileCache cache = new HotFileCache(4 * SEGMENT, 2 * SEGMENT);
+        FileStorageService.StoredFile before = write("a.pdf", bytes(1000, 1));
+        cache.release(load(cache, before));
+
+        byte[] replaced = bytes(1000, 2);
+        FileStorageService.StoredFile after = write("a.pdf", replaced, before.lastModified() + 2000);
+        assertNull(cache.get(after));
+        assertEquals(0L, cache.stats().get("cachedBytes"));
+        assertArrayEquals(replaced, read(cache, load(cache, after), 0, replaced.length));
+
+        cache.invalidate("a.pdf");
+        assertNull(cache.get(after));
+    }
+
+    private byte[] read(HotFileCache cache, HotFileCache.Entry entry, long position, int count) throws Exception {
+        assertNotNull(entry);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            assertEquals(count, cache.write(entry, position, count, Channels.newChannel(out)));
+        } finally {
+            cache.release(entry);
+        }
+        return out.toByteArray();
+    }
+
+    private FileStorageService.StoredFile write(String name, byte[] content) throws Exception {
+        return write(name, content, 1_700_000_000_000L);
+    }
+
+    private FileStorageService.StoredFile write(String name, byte[] content, long lastModified) throws Exception {
+        Path path = dir.resolve(name);
+        Files.write(path, content);
+        Files.setLastModifiedTime(path, FileTime.fromMillis(lastModified));
+        return new FileStorageService.StoredFile(path, name, content.length, lastModified, "\"" + name + "\"");
+    }
+
+    private static HotFileCache.Entry load(HotFileCache cache, FileStorageService.StoredFile file) throws Exception {
+        try (FileChannel channel = FileChannel.open(file.path(), StandardOpenOption.READ)) {
+            return cache.load(file, channel);
+        }
+    }
+
+    private static byte[] bytes(int length, long seed) {
+        byte[] bytes = new byte[length];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,78 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.SearchHit;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    @Test
+    void ranksTitleMatchesAndRareTermsFirst() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(SearchHit.Kind.NOTE, 1, "Graph algorithms", "Dijkstra and BFS walkthrough");
+        index.put(SearchHit.Kind.NOTE, 2, "Weekly review", "Revisit graph problems and dynamic programming");
+        index.put(SearchHit.Kind.TASK, 3, "Dynamic programming drills", null);
+
+        List<SearchHit> hits = index.search("graph", 10);
+        assertEquals(List.of(1L, 2L), hits.stream().map(SearchHit::id).toList());
+        assertEquals("Graph algorithms", hits.get(0).title());
+
+        // "dijkstra" only appears once in the corpus, so it outweighs the common "programming"
+        assertEquals(1L, index.search("dijkstra programming", 10).get(0).id());
+    }
+
+    @Test
+    void matchesPrefixesAndTypos() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(SearchHit.Kind.QUESTION, 7, null, "Explain photosynthesis in C4 plants");
+        index.put(SearchHit.Kind.TASK, 8, "Photography basics", null);
+
+        assertEquals(2, index.search("photo", 10).size());
+        assertEquals(7L, index.search("photosynthesys", 10).get(0).id());
+        assertEquals(SearchHit.Kind.QUESTION, index.search("photosynthesys", 10).get(0).kind());
+        assertTrue(index.search("zebra", 10).isEmpty());
+    }
+
+    @Test
+    void reindexingAndRemovalSurviveCompaction() {
+        InvertedIndex index = new InvertedIndex();
+        for (int i = 0; i < 3000; i++) {
+            index.put(SearchHit.Kind.TASK, i, "task number " + i, null);
+        }
+        for (int i = 0; i < 2000; i++) {
+            index.remove(SearchHit.Kind.TASK, i);
+        }
+        index.put(SearchHit.Kind.TASK, 2500, "renamed chemistry task", null);
+
+        assertEquals(1000, index.size());
+        assertEquals(List.of(2500L), index.search("chemistry", 10).stream().map(SearchHit::id).toList());
+        assertTrue(index.search("1999", 10).isEmpty());
+        assertEquals(2999L, index.search("2999", 10).get(0).id());
+        assertArrayEquals(new long[]{1000, 2999}, index.fingerprint(SearchHit.Kind.TASK));
+    }
+
+    @Test
+    void snapshotRoundTrips() throws Exception {
+        InvertedIndex index = new InvertedIndex();
+        index.put(SearchHit.Kind.NOTE, 1, "Thermodynamics", "entropy always increases");
+        index.put(SearchHit.Kind.NOTE, 2, "Old note", "entropy");
+        index.remove(SearchHit.Kind.NOTE, 2);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        index.write(new DataOutputStream(bytes), 1_700_000_000_000L);
+        InvertedIndex copy = InvertedIndex.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(1, copy.size());
+        assertEquals(1_700_000_000_000L, copy.savedAt());
+        assertEquals(index.search("entropy", 10), copy.search("entropy", 10));
+        copy.put(SearchHit.Kind.NOTE, 3, "New", "entropy");
+        assertEquals(2, copy.search("entropy", 10).size());
+    }
+}
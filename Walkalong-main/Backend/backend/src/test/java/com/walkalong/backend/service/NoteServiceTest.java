@@ -0,0 +1,162 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.NotePatch;
+import com.walkalong.backend.dto.NoteVersion;
+import com.walkalong.backend.entity.NoteRevision;
+import com.walkalong.backend.entity.Stream;
+import com.walkalong.backend.entity.StreamNote;
+import com.walkalong.backend.repository.NoteRevisionRepository;
+import com.walkalong.backend.repository.StreamNoteRepository;
+import com.walkalong.backend.repository.StreamRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Not rolled back: each service call commits so the after-commit cache updates run as in production
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({NoteService.class, NoteHistory.class, SearchService.class})
+class NoteServiceTest {
+
+    @Autowired private NoteService noteService;
+    @Autowired private SearchService searchService;
+    @Autowired private StreamRepository streamRepository;
+    @Autowired private StreamNoteRepository noteRepository;
+    @Autowired private NoteRevisionRepository revisionRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+
+    private final List<Long> streams = new ArrayList<>();
+
+    @AfterEach
+    void cleanUp() {
+        for (Long streamId : streams) {
+            jdbcTemplate.update("DELETE FROM note_revisions WHERE note_id IN (SELECT id FROM stream_note WHERE stream_id = ?)", streamId);
+            jdbcTemplate.update("DELETE FROM stream_note WHERE stream_id = ?", streamId);
+            jdbcTemplate.update("DELETE FROM streams WHERE id = ?", streamId);
+        }
+    }
+
+    @Test
+    void appliesEditsAndKeepsEveryVersion() {
+        StreamNote note = create("hello world");
+
+        NoteVersion v1 = noteService.patch(note.getId(), 0, List.of(edit(5, 6, ", there"))).orElseThrow();
+        NoteVersion v2 = noteService.patch(note.getId(), 1, List.of(edit(0, 1, "H"), edit(12, 0, "!"))).orElseThrow();
+
+        assertEquals(1, v1.version());
+        assertEquals(2, v2.version());
+        assertEquals(13, v2.size());
+        assertEquals("Hello, there!", noteService.get(note.getId()).orElseThrow().getContent());
+        assertEquals("hello world", noteService.getVersion(note.getId(), 0).orElseThrow());
+        assertEquals("hello, there", noteService.getVersion(note.getId(), 1).orElseThrow());
+        assertTrue(noteService.getVersion(note.getId(), 3).isEmpty());
+
+        // The body column is untouched until the next snapshot
+        StreamNote stored = noteRepository.findById(note.getId()).orElseThrow();
+        assertEquals("hello world", stored.getContent());
+        assertEquals(2, stored.getVersion());
+        assertEquals(13, stored.getContentSize());
+        assertEquals(note.getId(), searchService.search("there", 5).get(0).id());
+    }
+
+    @Test
+    void rejectsStaleBaseAndBadEdits() {
+        StreamNote note = create("abc");
+        noteService.patch(note.getId(), 0, List.of(edit(3, 0, "d")));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> noteService.patch(note.getId(), 0, List.of(edit(0, 0, "x"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> noteService.patch(note.getId(), 1, List.of(edit(2, 0, "x"), edit(1, 0, "y"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> noteService.patch(note.getId(), 1, List.of(edit(3, 5, ""))));
+        assertTrue(noteService.patch(-1L, 0, List.of()).isEmpty());
+        assertEquals("abcd", noteService.get(note.getId()).orElseThrow().getContent());
+    }
+
+    @Test
+    void fullReplaceIsANewVersion() {
+        StreamNote note = create("draft");
+        noteService.patch(note.getId(), 0, List.of(edit(5, 0, " one")));
+
+        StreamNote replacement = new StreamNote(note.getId(), "Renamed", "rewritten", null);
+        assertEquals(2, noteService.save(replacement).getVersion());
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> noteService.patch(note.getId(), 1, List.of(edit(0, 0, "x"))));
+        StreamNote latest = noteService.get(note.getId()).orElseThrow();
+        assertEquals("rewritten", latest.getContent());
+        assertEquals("Renamed", latest.getTitle());
+        assertEquals("draft one", noteService.getVersion(note.getId(), 1).orElseThrow());
+    }
+
+    @Test
+    void snapshotsBoundTheDeltaChainAndShrinkAutosaveWrites() {
+        StreamNote note = create(words(new Random(7), 3_000)); // about 20 KB
+        String expected = note.getContent();
+        Random random = new Random(42);
+        int saves = 100;
+        long fullRewriteBytes = 0;
+        String at59 = null;
+        for (int v = 0; v < saves; v++) {
+            int at = random.nextInt(expected.length());
+            int delete = Math.min(random.nextInt(4), expected.length() - at);
+            String insert = words(random, 1 + random.nextInt(3));
+            noteService.patch(note.getId(), v, List.of(edit(at, delete, insert))).orElseThrow();
+            expected = expected.substring(0, at) + insert + expected.substring(at + delete);
+            fullRewriteBytes += NoteHistory.snapshot(expected).length;
+            if (v + 1 == 59) at59 = expected;
+        }
+
+        assertEquals(expected, noteService.get(note.getId()).orElseThrow().getContent());
+        StreamNote stored = noteRepository.findById(note.getId()).orElseThrow();
+        assertEquals(100, stored.getSnapshotVersion());
+        // Every version is still reachable, from its nearest snapshot
+        assertEquals(note.getContent(), noteService.getVersion(note.getId(), 0).orElseThrow());
+        assertEquals(at59, noteService.getVersion(note.getId(), 59).orElseThrow());
+
+        List<NoteRevision> revisions = revisionRepository.findRange(note.getId(), -1, saves);
+        assertEquals(saves + 1, revisions.size());
+        assertEquals(6, revisions.stream().filter(r -> r.getKind() == NoteRevision.Kind.SNAPSHOT).count());
+        long deltaBytes = revisions.stream().filter(r -> r.getKind() == NoteRevision.Kind.DELTA)
+                .mapToLong(r -> r.getData().length).sum();
+        long snapshotBytes = revisions.stream().filter(r -> r.getKind() == NoteRevision.Kind.SNAPSHOT && r.getVersion() > 0)
+                .mapToLong(r -> r.getData().length).sum() * 2; // written to the revision and the note
+        long deltaPathBytes = deltaBytes + snapshotBytes;
+        assertTrue(deltaPathBytes * 4 < fullRewriteBytes, deltaPathBytes + " vs " + fullRewriteBytes);
+    }
+
+    private StreamNote create(String text) {
+        Stream stream = streamRepository.save(new Stream("Notes " + System.nanoTime()));
+        streams.add(stream.getId());
+        return noteService.save(new StreamNote(null, "Note", text, stream));
+    }
+
+    private static NotePatch.Edit edit(int at, int delete, String insert) {
+        return new NotePatch.Edit(at, delete, insert);
+    }
+
+    private static String words(Random random, int count) {
+        String[] vocabulary = {"cell", "membrane", "protein", "enzyme", "ribosome", "nucleus", "energy", "glucose",
+                "transport", "gradient", "synthesis", "mitosis", "chromosome", "receptor", "signal", "pathway"};
+        List<String> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            out.add(random.nextInt(10) == 0 ? Integer.toString(random.nextInt(100_000)) : vocabulary[random.nextInt(vocabulary.length)]);
+        }
+        return String.join(" ", out) + " ";
+    }
+}
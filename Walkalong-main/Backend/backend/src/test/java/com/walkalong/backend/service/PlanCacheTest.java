@@ -0,0 +1,130 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskType;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.TaskRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PlanCacheTest {
+
+    private static final LocalDate MONDAY = LocalDate.of(2026, 3, 2);
+
+    @Test
+    void servesRangesFromCacheAfterFirstLoad() {
+        TaskRepository repo = mock(TaskRepository.class);
+        when(repo.findByUserId(1L)).thenReturn(List.of(
+                task(1L, 1L, TaskType.DAILY, MONDAY),
+                task(2L, 1L, TaskType.DAILY, MONDAY.plusDays(1)),
+                task(3L, 1L, TaskType.WEEKLY, MONDAY)));
+        PlanCache cache = new PlanCache(repo, 10);
+
+        assertEquals(List.of(1L), ids(cache.getTasks(1L, TaskType.DAILY, MONDAY, MONDAY.plusDays(1))));
+        assertEquals(List.of(1L, 2L), ids(cache.getTasks(1L, TaskType.DAILY, MONDAY, MONDAY.plusWeeks(1))));
+        assertEquals(List.of(3L), ids(cache.getTasks(1L, TaskType.WEEKLY, MONDAY, MONDAY.plusWeeks(1))));
+
+        verify(repo, times(1)).findByUserId(1L);
+        assertEquals(2L, cache.stats().get("hits"));
+        assertEquals(1L, cache.stats().get("misses"));
+    }
+
+    @Test
+    void appliesMutationsIncrementally() {
+        TaskRepository repo = mock(TaskRepository.class);
+        when(repo.findByUserId(1L)).thenReturn(List.of(task(1L, 1L, TaskType.DAILY, MONDAY)));
+        PlanCache cache = new PlanCache(repo, 10);
+        cache.getTasks(1L, TaskType.DAILY, MONDAY, MONDAY.plusDays(1));
+
+        cache.put(task(2L, 1L, TaskType.DAILY, MONDAY));
+        cache.put(task(1L, 1L, TaskType.DAILY, MONDAY.plusDays(3)));
+        assertEquals(List.of(2L), ids(cache.getTasks(1L, TaskType.DAILY, MONDAY, MONDAY.plusDays(1))));
+
+        cache.remove(2L);
+        assertTrue(cache.getTasks(1L, TaskType.DAILY, MONDAY, MONDAY.plusDays(1)).isEmpty());
+        assertEquals(List.of(1L), ids(cache.getTasks(1L, TaskType.DAILY, MONDAY, MONDAY.plusWeeks(1))));
+        verify(repo, times(1)).findByUserId(1L);
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedUser() {
+        TaskRepository repo = mock(TaskRepository.class);
+        when(repo.findByUserId(anyLong())).thenReturn(List.of());
+        PlanCache cache = new PlanCache(repo, 2);
+
+        cache.getTasks(1L, TaskType.DAILY, MONDAY, MONDAY.plusDays(1));
+        cache.getTasks(2L, TaskType.DAILY, MONDAY, MONDAY.plusDays(1));
+        cache.getTasks(1L, TaskType.DAILY, MONDAY, MONDAY.plusDays(1));
+        cache.getTasks(3L, TaskType.DAILY, MONDAY, MONDAY.plusDays(1));
+        cache.getTasks(2L, TaskType.DAILY, MONDAY, MONDAY.plusDays(1));
+
+        verify(repo, times(2)).findByUserId(2L);
+        verify(repo, times(1)).findByUserId(1L);
+        assertEquals(2L, cache.stats().get("evictions"));
+    }
+
+    @Test
+    void staysConsistentUnderConcurrentUpdates() throws Exception {
+        int threads = 8;
+        int tasksPerThread = 200;
+        TaskRepository repo = mock(TaskRepository.class);
+        when(repo.findByUserId(1L)).thenReturn(List.of());
+        PlanCache cache = new PlanCache(repo, 10);
+        cache.getTasks(1L, TaskType.DAILY, MONDAY, MONDAY.plusDays(1));
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            long base = t * 1000L;
+            pool.submit(() -> {
+                start.await();
+                for (long i = 0; i < tasksPerThread; i++) {
+                    long id = base + i;
+                    cache.put(task(id, 1L, TaskType.DAILY, MONDAY.plusDays(i % 7)));
+                    // Move every task to Monday, then drop the odd ones
+                    cache.put(task(id, 1L, TaskType.DAILY, MONDAY));
+                    if (i % 2 == 1) cache.remove(id);
+                    cache.getTasks(1L, TaskType.DAILY, MONDAY, MONDAY.plusWeeks(1));
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        List<Long> expected = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            for (long i = 0; i < tasksPerThread; i += 2) {
+                expected.add(t * 1000L + i);
+            }
+        }
+        assertEquals(expected, ids(cache.getTasks(1L, TaskType.DAILY, MONDAY, MONDAY.plusDays(1))));
+        assertTrue(cache.getTasks(1L, TaskType.DAILY, MONDAY.plusDays(1), MONDAY.plusWeeks(1)).isEmpty());
+    }
+
+    private static LearningTask task(Long id, Long userId, TaskType type, LocalDate date) {
+        User user = new User();
+        user.setId(userId);
+        LearningTask task = new LearningTask();
+        task.setId(id);
+        task.setUser(user);
+        task.setType(type);
+        task.setAssignedDate(date);
+        return task;
+    }
+
+    private static List<Long> ids(List<LearningTask> tasks) {
+        return tasks.stream().map(LearningTask::getId).toList();
+    }
+}
@@ -0,0 +1,87 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskTemplate;
+import com.walkalong.backend.entity.TaskType;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.repository.TaskStatusWriter;
+import com.walkalong.backend.repository.TaskTemplateRepository;
+import com.walkalong.backend.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({RecurringTaskService.class, TaskService.class, TaskStatusWriter.class, PlanCache.class, TaskCounterStore.class, TaskRollupService.class, SearchService.class, NoteHistory.class})
+class RecurringTaskServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 3, 2);
+
+    @Autowired private RecurringTaskService recurringTaskService;
+    @Autowired private TaskTemplateRepository templateRepository;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private EntityManager entityManager;
+
+    @Test
+    void monthlyOccurrencesClampWithoutDrifting() {
+        TaskTemplate template = template(TaskType.MONTHLY, LocalDate.of(2026, 1, 31));
+        assertEquals(List.of(LocalDate.of(2026, 2, 28), LocalDate.of(2026, 3, 31), LocalDate.of(2026, 4, 30)),
+                RecurringTaskService.occurrences(template, LocalDate.of(2026, 2, 1), LocalDate.of(2026, 4, 30)));
+    }
+
+    @Test
+    void materializesUpToHorizonAndIsIdempotent() {
+        User user = userRepository.save(new User(null, "me", "pw", "me@example.com"));
+        TaskTemplate daily = save(template(TaskType.DAILY, LocalDate.of(2026, 1, 1)), user);
+        TaskTemplate weekly = save(template(TaskType.WEEKLY, LocalDate.of(2026, 3, 4)), user);
+        TaskTemplate ended = template(TaskType.DAILY, LocalDate.of(2026, 1, 1));
+        ended.setEndDate(TODAY.plusDays(2));
+        save(ended, user);
+        TaskTemplate inactive = template(TaskType.DAILY, TODAY);
+        inactive.setActive(false);
+        save(inactive, user);
+
+        // Horizon is 14 days: 15 daily occurrences from today, 2 weekly (Mar 4, Mar 11), 3 before the end date
+        assertEquals(15 + 2 + 3, recurringTaskService.materializeDue(TODAY));
+        assertEquals(0, recurringTaskService.materializeDue(TODAY));
+        assertEquals(1, recurringTaskService.materializeDue(TODAY.plusDays(1)));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<LearningTask> tasks = taskRepository.findAll();
+        assertEquals(21, tasks.size());
+        assertEquals(16, tasks.stream().filter(t -> daily.getId().equals(t.getTemplateId())).count());
+        assertTrue(tasks.stream().filter(t -> weekly.getId().equals(t.getTemplateId()))
+                .allMatch(t -> t.getAssignedDate().getDayOfWeek() == LocalDate.of(2026, 3, 4).getDayOfWeek()));
+        assertEquals(TODAY.plusDays(15), templateRepository.findById(daily.getId()).orElseThrow().getMaterializedThrough());
+        assertTrue(tasks.stream().allMatch(t -> t.getUser() != null && t.getPoints() == 10));
+        // Fully materialized up to its end date, so it is not rewritten on every later run
+        assertFalse(templateRepository.findById(ended.getId()).orElseThrow().isActive());
+        assertTrue(templateRepository.findById(daily.getId()).orElseThrow().isActive());
+    }
+
+    private TaskTemplate save(TaskTemplate template, User user) {
+        template.setUser(user);
+        return templateRepository.save(template);
+    }
+
+    private static TaskTemplate template(TaskType type, LocalDate start) {
+        TaskTemplate template = new TaskTemplate();
+        template.setTitle(type + " practice");
+        template.setType(type);
+        template.setStartDate(start);
+        template.setPoints(10);
+        return template;
+    }
+}
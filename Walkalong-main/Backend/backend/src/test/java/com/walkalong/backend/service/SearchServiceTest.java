@@ -0,0 +1,107 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.SearchHit;
+import com.walkalong.backend.entity.AnswerQuestion;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.StreamNote;
+import com.walkalong.backend.repository.AnswerQuestionRepository;
+import com.walkalong.backend.repository.NoteRevisionRepository;
+import com.walkalong.backend.repository.StreamNoteRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class SearchServiceTest {
+
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private StreamNoteRepository noteRepository;
+    @Autowired private AnswerQuestionRepository questionRepository;
+    @Autowired private NoteRevisionRepository revisionRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @TempDir Path snapshots;
+
+    @Test
+    void rebuildsFromTablesAndReusesAMatchingSnapshot() {
+        LearningTask task = new LearningTask();
+        task.setTitle("Organic chemistry revision");
+        taskRepository.save(task);
+        noteRepository.save(new StreamNote(null, "Reaction mechanisms", "SN1 versus SN2 in organic chemistry", null));
+        AnswerQuestion question = new AnswerQuestion();
+        question.setQuestionText("Describe the mechanism of electrophilic addition");
+        questionRepository.save(question);
+
+        // Written well before the snapshot below
+        backdateUpdates();
+
+        SearchService first = service();
+        first.load();
+        assertEquals(2, first.search("organic", 10).size());
+        assertEquals(SearchHit.Kind.QUESTION, first.search("electrophilic", 10).get(0).kind());
+        first.saveSnapshot();
+        assertTrue(Files.exists(snapshots.resolve("index.bin")));
+
+        // Nothing changed since: the snapshot is used as is
+        SearchService second = service();
+        second.load();
+        assertEquals(2, second.search("organic", 10).size());
+        assertEquals(1, second.search("mechanisms", 10).size());
+
+        // An edit keeps the row count and ids, but is newer than the snapshot
+        task.setTitle("Inorganic chemistry revision");
+        taskRepository.saveAndFlush(task);
+        SearchService third = service();
+        third.load();
+        assertEquals(1, third.search("organic", 10).size());
+        assertEquals(task.getId(), third.search("inorganic", 10).get(0).id());
+
+        // So does a row the snapshot doesn't know about
+        backdateUpdates();
+        third.saveSnapshot();
+        LearningTask later = new LearningTask();
+        later.setTitle("Mechanisms of enzyme catalysis");
+        taskRepository.save(later);
+        backdateUpdates();
+        SearchService fourth = service();
+        fourth.load();
+        assertEquals(2, fourth.search("mechanisms", 10).size());
+    }
+
+    @Test
+    void appliesIncrementalChanges() {
+        SearchService service = service();
+        service.load();
+        StreamNote note = noteRepository.save(new StreamNote(null, "Vectors", "dot product and cross product", null));
+        service.indexNote(note);
+        assertEquals(note.getId(), service.search("cross prod", 10).get(0).id());
+
+        service.remove(SearchHit.Kind.NOTE, note.getId());
+        assertTrue(service.search("vectors", 10).isEmpty());
+    }
+
+    private void backdateUpdates() {
+        LocalDateTime hourAgo = LocalDateTime.now().minusHours(1);
+        entityManager.createQuery("UPDATE LearningTask t SET t.updatedAt = :at").setParameter("at", hourAgo).executeUpdate();
+        entityManager.createQuery("UPDATE StreamNote n SET n.updatedAt = :at").setParameter("at", hourAgo).executeUpdate();
+        entityManager.clear();
+    }
+
+    private SearchService service() {
+        return new SearchService(taskRepository, noteRepository, questionRepository, new NoteHistory(revisionRepository), entityManager,
+                transactionManager, snapshots.resolve("index.bin").toString());
+    }
+}
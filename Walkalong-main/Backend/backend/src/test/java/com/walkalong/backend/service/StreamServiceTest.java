@@ -0,0 +1,94 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.Stream;
+import com.walkalong.backend.entity.StreamNote;
+import com.walkalong.backend.entity.TaskStatus;
+import com.walkalong.backend.entity.TaskTemplate;
+import com.walkalong.backend.entity.TaskType;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.StreamNoteRepository;
+import com.walkalong.backend.repository.StreamRepository;
+import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.repository.TaskTemplateRepository;
+import com.walkalong.backend.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({StreamService.class, PlanCache.class, TaskCounterStore.class, TaskRollupService.class, SearchService.class,
+         NoteService.class, NoteHistory.class})
+class StreamServiceTest {
+
+    private static final int TASKS = 10_000;
+
+    @Autowired private StreamService streamService;
+    @Autowired private StreamRepository streamRepository;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private StreamNoteRepository noteRepository;
+    @Autowired private TaskTemplateRepository templateRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void deletesLargeStreamInAFixedNumberOfStatements() {
+        User user = userRepository.save(new User(null, "me", "pw", "me@example.com"));
+        Stream big = streamRepository.save(new Stream("Big"));
+        Stream kept = streamRepository.save(new Stream("Kept"));
+        List<LearningTask> tasks = new ArrayList<>();
+        for (int i = 0; i < TASKS; i++) {
+            tasks.add(task(big, user, i));
+        }
+        tasks.add(task(kept, user, 0));
+        taskRepository.saveAll(tasks);
+        for (int i = 0; i < 200; i++) {
+            noteRepository.save(new StreamNote(null, "note " + i, "content", big));
+        }
+        noteRepository.save(new StreamNote(null, "kept note", "content", kept));
+        TaskTemplate template = new TaskTemplate();
+        template.setTitle("daily");
+        template.setType(TaskType.DAILY);
+        template.setStream(big);
+        templateRepository.save(template);
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        assertTrue(streamService.delete(big.getId()));
+
+        // exists check, two reads for the in-memory views, five deletes; independent of the task count
+        assertTrue(statistics.getPrepareStatementCount() <= 8, "statements: " + statistics.getPrepareStatementCount());
+        assertFalse(streamRepository.existsById(big.getId()));
+        assertEquals(1, taskRepository.count());
+        assertEquals(1, noteRepository.count());
+        assertEquals(0, templateRepository.count());
+        assertTrue(streamRepository.existsById(kept.getId()));
+        assertFalse(streamService.delete(big.getId()));
+    }
+
+    private static LearningTask task(Stream stream, User user, int i) {
+        LearningTask task = new LearningTask();
+        task.setTitle("task " + i);
+        task.setStream(stream);
+        task.setUser(user);
+        task.setStatus(i % 3 == 0 ? TaskStatus.COMPLETED : TaskStatus.PENDING);
+        task.setAssignedDate(LocalDate.of(2026, 1, 1).plusDays(i % 365));
+        return task;
+    }
+}
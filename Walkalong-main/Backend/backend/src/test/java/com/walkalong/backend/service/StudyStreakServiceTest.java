@@ -0,0 +1,64 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.entity.CalendarEntry;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.CalendarRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+class StudyStreakServiceTest {
+
+    private final User user = new User(1L, "me", "pw", "me@example.com");
+
+    @Test
+    void streaksCrossYearBoundaries() {
+        List<CalendarEntry> entries = new ArrayList<>();
+        // Dec 29, 2025 .. Jan 3, 2026 (6 days), gap, then Jan 10..11
+        for (LocalDate d = LocalDate.of(2025, 12, 29); d.isBefore(LocalDate.of(2026, 1, 4)); d = d.plusDays(1)) {
+            entries.add(studied(d));
+        }
+        entries.add(studied(LocalDate.of(2026, 1, 10)));
+        entries.add(studied(LocalDate.of(2026, 1, 11)));
+        StudyStreakService service = service(entries);
+
+        assertEquals(6, service.longestStreak(user));
+        assertEquals(2, service.currentStreak(user, LocalDate.of(2026, 1, 11)));
+        assertEquals(2, service.currentStreak(user, LocalDate.of(2026, 1, 12))); // today not marked yet
+        assertEquals(0, service.currentStreak(user, LocalDate.of(2026, 1, 13)));
+        assertEquals(6, service.currentStreak(user, LocalDate.of(2026, 1, 3)));
+    }
+
+    @Test
+    void markStudiedUpdatesLoadedUser() {
+        CalendarRepository repo = mock(CalendarRepository.class);
+        when(repo.findByUserAndStudiedTrue(user)).thenReturn(List.of(studied(LocalDate.of(2026, 2, 1))));
+        StudyStreakService service = new StudyStreakService(repo);
+
+        assertEquals(1, service.currentStreak(user, LocalDate.of(2026, 2, 2)));
+        service.markStudied(user, LocalDate.of(2026, 2, 2));
+        assertEquals(2, service.currentStreak(user, LocalDate.of(2026, 2, 2)));
+
+        int[] heatmap = service.heatmap(user, 2026);
+        assertEquals(365, heatmap.length);
+        assertEquals(1, heatmap[31]);
+        assertEquals(1, heatmap[32]);
+        assertEquals(2, java.util.Arrays.stream(heatmap).sum());
+        verify(repo, times(1)).findByUserAndStudiedTrue(user);
+    }
+
+    private StudyStreakService service(List<CalendarEntry> entries) {
+        CalendarRepository repo = mock(CalendarRepository.class);
+        when(repo.findByUserAndStudiedTrue(user)).thenReturn(entries);
+        return new StudyStreakService(repo);
+    }
+
+    private CalendarEntry studied(LocalDate date) {
+        return new CalendarEntry(null, date, true, user);
+    }
+}
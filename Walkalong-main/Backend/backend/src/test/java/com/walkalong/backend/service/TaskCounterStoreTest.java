@@ -0,0 +1,116 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.TaskRef;
+import com.walkalong.backend.dto.TaskStats;
+import com.walkalong.backend.dto.UserTaskStatusCount;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskStatus;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.TaskRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class TaskCounterStoreTest {
+
+    @Test
+    void rebuildsFromAggregateAndAppliesChanges() {
+        TaskRepository repo = mock(TaskRepository.class);
+        when(repo.countByUserAndStatus()).thenReturn(List.of(
+                row(1L, TaskStatus.COMPLETED, 2, 20),
+                row(1L, TaskStatus.PENDING, 1, 10)));
+        TaskCounterStore store = new TaskCounterStore(repo);
+        assertFalse(store.isReady());
+
+        store.rebuild();
+        assertTrue(store.isReady());
+        assertEquals(new TaskStats(3, 2, 0, 1, 30, 20), store.get(1L));
+
+        LearningTask task = task(1L, TaskStatus.PENDING, 5);
+        store.taskCreated(task);
+        task.setStatus(TaskStatus.COMPLETED);
+        store.statusChanged(task, TaskStatus.PENDING);
+        assertEquals(new TaskStats(4, 3, 0, 1, 35, 25), store.get(1L));
+
+        store.taskDeleted(task);
+        assertEquals(new TaskStats(3, 2, 0, 1, 30, 20), store.get(1L));
+        assertEquals(new TaskStats(0, 0, 0, 0, 0, 0), store.get(2L));
+    }
+
+    @Test
+    void verifyReplacesDriftedCounters() {
+        TaskRepository repo = mock(TaskRepository.class);
+        when(repo.countByUserAndStatus()).thenReturn(List.of(row(1L, TaskStatus.SKIPPED, 1, 10)));
+        TaskCounterStore store = new TaskCounterStore(repo);
+        store.rebuild();
+
+        // A write that bypassed the controller
+        when(repo.countByUserAndStatus()).thenReturn(List.of(
+                row(1L, TaskStatus.SKIPPED, 1, 10),
+                row(1L, TaskStatus.COMPLETED, 1, 10)));
+        store.verify();
+
+        assertEquals(new TaskStats(2, 1, 1, 0, 20, 10), store.get(1L));
+    }
+
+    @Test
+    void usersWhoseTasksAreAllGoneAreNotDrift() {
+        TaskRepository repo = mock(TaskRepository.class);
+        when(repo.countByUserAndStatus()).thenReturn(List.of(row(1L, TaskStatus.PENDING, 1, 10)));
+        TaskCounterStore store = new TaskCounterStore(repo);
+        store.rebuild();
+
+        LearningTask task = task(2L, TaskStatus.PENDING, 5);
+        store.taskCreated(task);
+        assertEquals(2, store.trackedUsers());
+        store.taskDeleted(task);
+        assertEquals(1, store.trackedUsers());
+
+        // The aggregate has no row for user 2 any more, and that matches
+        store.verify();
+        assertEquals(1, store.trackedUsers());
+        assertEquals(new TaskStats(1, 0, 0, 1, 10, 0), store.get(1L));
+    }
+
+    @Test
+    void appliesABulkDeleteWithoutRebuilding() {
+        TaskRepository repo = mock(TaskRepository.class);
+        when(repo.countByUserAndStatus()).thenReturn(List.of(
+                row(1L, TaskStatus.COMPLETED, 2, 20),
+                row(1L, TaskStatus.PENDING, 1, 10),
+                row(2L, TaskStatus.SKIPPED, 1, 10)));
+        TaskCounterStore store = new TaskCounterStore(repo);
+        store.rebuild();
+
+        store.tasksDeleted(List.of(
+                new TaskRef(1L, 1L, null, null, TaskStatus.COMPLETED, 10),
+                new TaskRef(2L, 2L, null, null, TaskStatus.SKIPPED, 10),
+                new TaskRef(3L, null, null, null, TaskStatus.PENDING, 10)));
+
+        assertEquals(new TaskStats(2, 1, 0, 1, 20, 10), store.get(1L));
+        assertEquals(1, store.trackedUsers());
+        verify(repo, times(1)).countByUserAndStatus();
+    }
+
+    private static LearningTask task(Long userId, TaskStatus status, int points) {
+        User user = new User();
+        user.setId(userId);
+        LearningTask task = new LearningTask();
+        task.setUser(user);
+        task.setStatus(status);
+        task.setPoints(points);
+        return task;
+    }
+
+    private static UserTaskStatusCount row(Long userId, TaskStatus status, long tasks, long points) {
+        return new UserTaskStatusCount() {
+            public Long getUserId() { return userId; }
+            public TaskStatus getStatus() { return status; }
+            public Long getTasks() { return tasks; }
+            public Long getPoints() { return points; }
+        };
+    }
+}
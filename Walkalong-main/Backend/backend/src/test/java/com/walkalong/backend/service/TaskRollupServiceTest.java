@@ -0,0 +1,84 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskDailyStat;
+import com.walkalong.backend.entity.TaskStatus;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(TaskRollupService.class)
+class TaskRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2026, 5, 4);
+
+    @Autowired private TaskRollupService rollupService;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private EntityManager entityManager;
+
+    @Test
+    void rollsUpOnlyTouchedDays() {
+        User user = userRepository.save(new User(null, "me", "pw", "me@example.com"));
+        task(user, DAY, TaskStatus.COMPLETED, DAY, 10, 30);
+        task(user, DAY, TaskStatus.PENDING, null, 10, null);
+        flush();
+
+        rollupService.refresh(); // no watermark yet: full rebuild
+        List<TaskDailyStat> trend = rollupService.getTrend(user.getId(), DAY, DAY.plusDays(7));
+        assertEquals(1, trend.size());
+        assertEquals(2, trend.get(0).getAssignedTasks());
+        assertEquals(1, trend.get(0).getCompletedTasks());
+        assertEquals(10, trend.get(0).getPointsEarned());
+        assertEquals(30, trend.get(0).getMinutesStudied());
+
+        LearningTask later = task(user, DAY.plusDays(1), TaskStatus.COMPLETED, DAY.plusDays(2), 5, 15);
+        flush();
+        rollupService.refresh();
+        trend = rollupService.getTrend(user.getId(), DAY, DAY.plusDays(7));
+        assertEquals(3, trend.size());
+        assertEquals(1, trend.get(1).getAssignedTasks());
+        assertEquals(0, trend.get(1).getCompletedTasks());
+        assertEquals(5, trend.get(2).getPointsEarned());
+
+        // Deletions are invisible to updatedAt and arrive through markDirty
+        taskRepository.deleteById(later.getId());
+        flush();
+        rollupService.markDirty(later, later.getAssignedDate(), later.getCompletedDate());
+        rollupService.refresh();
+        trend = rollupService.getTrend(user.getId(), DAY, DAY.plusDays(7));
+        assertEquals(1, trend.size());
+        assertTrue(trend.stream().allMatch(s -> s.getDate().equals(DAY)));
+    }
+
+    private LearningTask task(User user, LocalDate assigned, TaskStatus status, LocalDate completed, int points, Integer minutes) {
+        LearningTask task = new LearningTask();
+        task.setTitle("task");
+        task.setUser(user);
+        task.setStatus(status);
+        task.setAssignedDate(assigned);
+        task.setCompletedDate(completed);
+        task.setPoints(points);
+        task.setDuration(minutes);
+        return taskRepository.save(task);
+    }
+
+    private void flush() {
+        entityManager.flush();
+        entityManager.clear();
+    }
+}
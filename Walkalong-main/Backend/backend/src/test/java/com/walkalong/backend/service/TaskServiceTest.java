@@ -0,0 +1,118 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.dto.TaskStatusChange;
+import com.walkalong.backend.entity.LearningTask;
+import com.walkalong.backend.entity.TaskStatus;
+import com.walkalong.backend.entity.TaskType;
+import com.walkalong.backend.entity.User;
+import com.walkalong.backend.repository.TaskRepository;
+import com.walkalong.backend.repository.TaskStatusWriter;
+import com.walkalong.backend.repository.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({TaskService.class, TaskStatusWriter.class, PlanCache.class, TaskCounterStore.class, TaskRollupService.class, SearchService.class, NoteHistory.class})
+class TaskServiceTest {
+
+    @Autowired private TaskService taskService;
+    @Autowired private TaskRepository taskRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private EntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void batchesThousandInserts() {
+        User user = userRepository.save(new User(null, "me", "pw", "me@example.com"));
+        List<LearningTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            LearningTask task = new LearningTask();
+            task.setTitle("task " + i);
+            task.setType(TaskType.DAILY);
+            task.setUser(user);
+            task.setAssignedDate(LocalDate.of(2026, 6, 1).plusDays(i % 7));
+            tasks.add(task);
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        taskService.createAll(tasks);
+        entityManager.flush();
+
+        // 20 insert batches plus 20 sequence calls, instead of 1000 round trips
+        assertTrue(statistics.getPrepareStatementCount() <= 50, "statements: " + statistics.getPrepareStatementCount());
+        assertEquals(1000, taskRepository.count());
+        assertEquals(LocalDate.of(2026, 6, 2), taskRepository.findById(tasks.get(1).getId()).orElseThrow().getAssignedDate());
+    }
+
+    @Test
+    void changesManyStatusesAtOnce() {
+        User user = userRepository.save(new User(null, "me", "pw", "me@example.com"));
+        List<LearningTask> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            LearningTask task = new LearningTask();
+            task.setTitle("task " + i);
+            task.setUser(user);
+            tasks.add(task);
+        }
+        List<LearningTask> created = taskService.createAll(tasks);
+        assertTrue(created.stream().allMatch(t -> t.getStatus() == TaskStatus.PENDING && t.getPoints() == 10));
+
+        Map<Long, TaskStatus> changes = new LinkedHashMap<>();
+        changes.put(created.get(0).getId(), TaskStatus.COMPLETED);
+        changes.put(created.get(1).getId(), TaskStatus.SKIPPED);
+        taskService.updateStatuses(changes);
+        entityManager.flush();
+        entityManager.clear();
+
+        LearningTask completed = taskRepository.findById(created.get(0).getId()).orElseThrow();
+        assertEquals(TaskStatus.COMPLETED, completed.getStatus());
+        assertNotNull(completed.getCompletedDate());
+        assertEquals(TaskStatus.SKIPPED, taskRepository.findById(created.get(1).getId()).orElseThrow().getStatus());
+        assertEquals(TaskStatus.PENDING, taskRepository.findById(created.get(2).getId()).orElseThrow().getStatus());
+    }
+
+    @Test
+    void changesOneStatusInASingleStatement() {
+        User user = userRepository.save(new User(null, "me", "pw", "me@example.com"));
+        LearningTask pending = new LearningTask();
+        pending.setTitle("task");
+        pending.setUser(user);
+        LearningTask task = taskService.createAll(List.of(pending)).get(0);
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        TaskStatusChange change = taskService.updateStatus(task.getId(), TaskStatus.COMPLETED, task.getVersion());
+
+        // The update hands back the replaced row; the task is never read
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(task.getVersion() + 1, change.version());
+        assertNotNull(change.completedDate());
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> taskService.updateStatus(change.id(), TaskStatus.SKIPPED, task.getVersion()));
+        assertThrows(RuntimeException.class, () -> taskService.updateStatus(-1L, TaskStatus.SKIPPED, null));
+
+        LearningTask saved = taskRepository.findById(task.getId()).orElseThrow();
+        assertEquals(TaskStatus.COMPLETED, saved.getStatus());
+        assertEquals(change.version(), saved.getVersion());
+    }
+}
@@ -0,0 +1,67 @@
+package com.walkalong.backend.service;
+
+import com.walkalong.backend.entity.AnswerSubmission;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class UploadPipelineTest {
+
+    @Test
+    void skipsAJobCancelledWhileQueued() throws Exception {
+        UploadPipeline pipeline = new UploadPipeline(mock(AnswerService.class), 1, 1);
+        try {
+            CountDownLatch running = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            AnswerSubmission first = new AnswerSubmission();
+            CompletableFuture<AnswerSubmission> busy = pipeline.run(10, () -> {
+                running.countDown();
+                await(release);
+                return first;
+            }, () -> fail("the running job can't be cancelled"));
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+
+            AtomicInteger ran = new AtomicInteger();
+            AtomicInteger skipped = new AtomicInteger();
+            CompletableFuture<AnswerSubmission> queued = pipeline.run(10, () -> {
+                ran.incrementAndGet();
+                return new AnswerSubmission();
+            }, skipped::incrementAndGet);
+            assertThrows(RejectedExecutionException.class, () -> pipeline.run(10, AnswerSubmission::new, () -> { }));
+
+            // The request for the queued job timed out
+            queued.cancel(false);
+            release.countDown();
+            assertSame(first, busy.get(5, TimeUnit.SECONDS));
+            // The worker still takes the cancelled job off the queue, and drops it
+            for (int i = 0; i < 100 && !idle(pipeline); i++) Thread.sleep(10);
+            assertTrue(idle(pipeline));
+
+            assertEquals(0, ran.get());
+            assertEquals(1, skipped.get());
+            assertEquals(1L, pipeline.stats().get("cancelled"));
+            assertEquals(1L, pipeline.stats().get("completed"));
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    private static boolean idle(UploadPipeline pipeline) {
+        return (Integer) pipeline.stats().get("queueDepth") == 0 && (Integer) pipeline.stats().get("active") == 0;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
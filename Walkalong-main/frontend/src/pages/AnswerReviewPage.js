@@ -56,7 +56,7 @@ const AnswerReviewPage = () => {
     if (loading) return <div className="loading">Loading Submission...</div>;
     if (!submission) return <div className="hub-container"><div className="glass-panel">Submission not found.</div></div>;
 
-    const downloadUrl = answersAPI.getDownloadUrl(submission.pdfPath);
+    const downloadUrl = answersAPI.getSubmissionFileUrl(submission.id);
 
     return (
         <div className="hub-container">
@@ -84,7 +84,7 @@ const AnswerReviewPage = () => {
                     <div className="pdf-display-area">
                         <FileText size={64} className="pdf-large-icon" />
                         <h3>Answer PDF</h3>
-                        <p>Document: {submission.pdfPath}</p>
+                        <p>Document: {submission.originalName || 'Answer PDF'}</p>
                         <a href={downloadUrl} className="download-btn-lg" target="_blank" rel="noopener noreferrer">
                             <Download size={20} /> Download for Review
                         </a>
@@ -5,7 +5,7 @@ import {
     ResponsiveContainer, BarChart, Bar, CartesianGrid, XAxis, YAxis, Tooltip,
     PieChart, Pie, Cell, Legend, AreaChart, Area
 } from 'recharts';
-import { streamsAPI, todoAPI } from '../services/api';
+import { streamsAPI } from '../services/api';
 // Using inline styles for parts of this to achieve the "different style" / "free-form" look requested
 
 const StreamDetail = () => {
@@ -32,9 +32,8 @@ const StreamDetail = () => {
             const currentStream = allStreams.data.find(s => s.id.toString() === id);
             setStream(currentStream || { name: 'Unknown Stream' });
 
-            const allTasks = await todoAPI.getAllTasks();
-            const streamTasks = allTasks.data.filter(t => t.stream && t.stream.id.toString() === id);
-            setTasks(streamTasks);
+            const streamTasks = await streamsAPI.getStreamTasks(id);
+            setTasks(streamTasks.data);
 
             setLoading(false);
         } catch (e) {
@@ -43,10 +43,13 @@ const TodoPage = () => {
 
   const updateTaskStatus = async (id, status) => {
     try {
-      const response = await todoAPI.updateTaskStatus(id, status);
-      setTasks(tasks.map(task => task.id === id ? response.data : task));
+      const current = tasks.find(task => task.id === id);
+      const response = await todoAPI.updateTaskStatus(id, status, current && current.version);
+      setTasks(tasks.map(task => task.id === id ? { ...task, ...response.data } : task));
     } catch (err) {
-      setError('Failed to update task');
+      setError(err.response && err.response.status === 409
+        ? 'Task was changed elsewhere, please refresh'
+        : 'Failed to update task');
       console.error('Failed to update task:', err);
     }
   };
@@ -11,6 +11,20 @@ const api = axios.create({
   },
 });
 
+// List endpoints return pages of at most 500 rows, with the cursor for the next page in the
+// X-Next-Cursor header; this follows it so callers still get every row in one response
+const getAllPages = async (url) => {
+  const first = await api.get(url);
+  let data = first.data;
+  let cursor = first.headers['x-next-cursor'];
+  while (cursor) {
+    const next = await api.get(url, { params: { cursor } });
+    data = data.concat(next.data);
+    cursor = next.headers['x-next-cursor'];
+  }
+  return { ...first, data };
+};
+
 // Real API functions
 const realWorkDoneAPI = {
   getAllEntries: () => api.get('/workdone'),
@@ -26,15 +40,16 @@ const realWorkDoneAPI = {
 };
 
 const realTodoAPI = {
-  getAllTasks: () => api.get('/tasks'),
+  getAllTasks: () => getAllPages('/tasks'),
   createTask: (task) => api.post('/tasks', task),
   updateTask: (id, task) => api.put(`/tasks/${id}`, task),
-  updateTaskStatus: (id, status) => api.put(`/tasks/${id}/status`, { status }),
+  updateTaskStatus: (id, status, version) => api.put(`/tasks/${id}/status`, { status, version }),
   deleteTask: (id) => api.delete(`/tasks/${id}`),
 };
 
 const realStreamsAPI = {
-  getAllStreams: () => api.get('/streams'),
+  getAllStreams: () => getAllPages('/streams'),
+  getStreamTasks: (id) => getAllPages(`/streams/${id}/tasks`),
   createStream: (stream) => api.post('/streams', stream),
   deleteStream: (id) => api.delete(`/streams/${id}`),
 };
@@ -60,7 +75,7 @@ export const viewPlanAPI = USE_MOCK_API ? mockViewPlanAPI : realViewPlanAPI;
 export const moodAPI = USE_MOCK_API ? mockMoodAPI : realMoodAPI;
 
 const realAnswerAPI = {
-  getQuestions: () => api.get('/answers/questions'),
+  getQuestions: () => getAllPages('/answers/questions'),
   createQuestion: (question) => api.post('/answers/questions', question),
   submitAnswer: (formData) => api.post('/answers/submit', formData, {
     headers: { 'Content-Type': 'multipart/form-data' }
@@ -70,6 +85,7 @@ const realAnswerAPI = {
   submitReview: (submissionId, review) => api.post(`/answers/review?submissionId=${submissionId}`, review),
   getReview: (submissionId) => api.get(`/answers/submission/${submissionId}/review`),
   getDownloadUrl: (fileName) => `${API_BASE_URL}/answers/download/${fileName}`,
+  getSubmissionFileUrl: (submissionId) => `${API_BASE_URL}/answers/submission/${submissionId}/file`,
 };
 
 export const answersAPI = USE_MOCK_API ? mockAnswerAPI : realAnswerAPI;
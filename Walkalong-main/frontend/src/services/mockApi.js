@@ -287,6 +287,10 @@ export const mockTodoAPI = {
 export const mockStreamsAPI = {
   getAllStreams: () => Promise.resolve({ data: [...mockStreams] }),
 
+  getStreamTasks: (id) => Promise.resolve({
+    data: mockTasks.filter(t => t.stream && t.stream.id === parseInt(id))
+  }),
+
   createStream: (stream) => {
     const newStream = {
       ...stream,
@@ -366,7 +370,7 @@ const initialMockQuestions = [
 ];
 
 const initialMockSubmissions = [
-  { id: 1, questionId: 1, pdfPath: 'answer-gr.pdf', timeTaken: 15, status: 'REVIEWED', submittedAt: '2026-02-01' }
+  { id: 1, questionId: 1, pdfPath: 'answer-gr.pdf', originalName: 'answer-gr.pdf', timeTaken: 15, status: 'REVIEWED', submittedAt: '2026-02-01' }
 ];
 
 const initialMockReviews = [
@@ -394,6 +398,7 @@ export const mockAnswerAPI = {
       id: Date.now(),
       questionId: qId,
       pdfPath: 'mock-upload.pdf',
+      originalName: formData.get('file')?.name || 'mock-upload.pdf',
       timeTaken: formData.get('timeTaken') || 0,
       status: 'SUBMITTED',
       submittedAt: new Date().toISOString().split('T')[0]
@@ -434,5 +439,6 @@ export const mockAnswerAPI = {
     persistData('mockSubmissions', mockSubmissions);
     return Promise.resolve({ data: newReview });
   },
-  getDownloadUrl: (fileName) => '#'
+  getDownloadUrl: (fileName) => '#',
+  getSubmissionFileUrl: (submissionId) => '#'
 };
\ No newline at end of file